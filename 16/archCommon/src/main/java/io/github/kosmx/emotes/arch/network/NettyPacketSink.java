@@ -0,0 +1,42 @@
+package io.github.kosmx.emotes.arch.network;
+
+import io.github.kosmx.emotes.common.network.PacketSink;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Write emote packets straight into the Netty buffer of the outgoing custom payload packet.
+ *
+ * The buffers are not taken from a pooled allocator: vanilla never releases the data of custom payload packets
+ * and the integrated server hands the same buffer to the client, a pooled buffer would leak or be read after release.
+ * Compression and splitting use the pool of the codec, only the sent bytes are allocated here.
+ */
+public class NettyPacketSink implements PacketSink {
+    private final Consumer<FriendlyByteBuf> sender;
+    private ByteBuf current;
+
+    /**
+     * @param sender sends a written frame, like {@code buf -> connection.send(new ServerboundCustomPayloadPacket(channelID, buf))}
+     */
+    public NettyPacketSink(Consumer<FriendlyByteBuf> sender) {
+        this.sender = sender;
+    }
+
+    @Override
+    public ByteBuffer allocate(int size) {
+        current = Unpooled.buffer(size, size);
+        return current.nioBuffer(0, size);
+    }
+
+    @Override
+    public void send(ByteBuffer frame) {
+        ByteBuf buf = current;
+        current = null;
+        buf.writerIndex(frame.position());
+        sender.accept(new FriendlyByteBuf(buf));
+    }
+}
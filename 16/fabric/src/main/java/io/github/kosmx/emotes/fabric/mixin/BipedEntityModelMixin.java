@@ -3,6 +3,8 @@ package io.github.kosmx.emotes.fabric.mixin;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.VertexConsumer;
 import io.github.kosmx.bendylib.IModelPart;
+import io.github.kosmx.emotes.common.emote.PartRegistry;
+import io.github.kosmx.emotes.common.tools.MutableVec3f;
 import io.github.kosmx.emotes.common.tools.SetableSupplier;
 import io.github.kosmx.emotes.executor.emotePlayer.IMutatedBipedModel;
 import io.github.kosmx.emotes.executor.emotePlayer.IUpperPartHelper;
@@ -26,6 +28,7 @@ import java.util.function.Function;
 @SuppressWarnings("unchecked")
 @Mixin(HumanoidModel.class)
 public abstract class BipedEntityModelMixin<T extends LivingEntity> extends AgeableListModel<T> implements IMutatedBipedModel<BendableModelPart> {
+    private final MutableVec3f bendTransform = new MutableVec3f();
 
     @Shadow
     public ModelPart rightLeg;
@@ -78,11 +81,11 @@ public abstract class BipedEntityModelMixin<T extends LivingEntity> extends Agea
             if(this.emote.get() != null && this.emote.get().isActive()){
                 IMutatedBipedModel<BendableModelPart> thisWithMixin = (IMutatedBipedModel) bipedEntityModel;
                 AnimationPlayer playedEmote = emote.get();
-                thisWithMixin.getTorso().bend(playedEmote.getBend("torso"));
-                thisWithMixin.getLeftArm().bend(playedEmote.getBend("leftArm"));
-                thisWithMixin.getLeftLeg().bend(playedEmote.getBend("leftLeg"));
-                thisWithMixin.getRightArm().bend(playedEmote.getBend("rightArm"));
-                thisWithMixin.getRightLeg().bend(playedEmote.getBend("rightLeg"));
+                bendPart(thisWithMixin.getTorso(), playedEmote, PartRegistry.TORSO);
+                bendPart(thisWithMixin.getLeftArm(), playedEmote, PartRegistry.LEFT_ARM);
+                bendPart(thisWithMixin.getLeftLeg(), playedEmote, PartRegistry.LEFT_LEG);
+                bendPart(thisWithMixin.getRightArm(), playedEmote, PartRegistry.RIGHT_ARM);
+                bendPart(thisWithMixin.getRightLeg(), playedEmote, PartRegistry.RIGHT_LEG);
             }
         }
     }
@@ -179,4 +182,9 @@ public abstract class BipedEntityModelMixin<T extends LivingEntity> extends Agea
     public SetableSupplier<AnimationPlayer> getEmoteSupplier(){
         return emote;
     }
+
+    private void bendPart(BendableModelPart part, AnimationPlayer emote, int partId){
+        emote.getBend(partId, bendTransform);
+        part.bend(bendTransform.getX(), bendTransform.getY());
+    }
 }
@@ -2,9 +2,9 @@ package io.github.kosmx.emotes.fabric.mixin;
 
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.math.Vector3f;
-import io.github.kosmx.emotes.api.Pair;
 import io.github.kosmx.emotes.arch.emote.EmotePlayImpl;
-import io.github.kosmx.emotes.common.tools.Vec3f;
+import io.github.kosmx.emotes.common.emote.PartRegistry;
+import io.github.kosmx.emotes.common.tools.MutableVec3f;
 import io.github.kosmx.emotes.executor.emotePlayer.IEmotePlayerEntity;
 import io.github.kosmx.playerAnim.TransformType;
 import io.github.kosmx.playerAnim.impl.AnimationPlayer;
@@ -22,6 +22,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 @SuppressWarnings("unchecked")
 @Mixin(ItemInHandLayer.class)
 public class HeldItemMixin {
+    private final MutableVec3f itemTransform = new MutableVec3f();
 
     @Inject(method = "renderArmWithItem", at = @At(value = "INVOKE", target = "Lcom/mojang/blaze3d/vertex/PoseStack;mulPose(Lcom/mojang/math/Quaternion;)V", ordinal = 0))
     private void renderMixin(LivingEntity livingEntity, ItemStack stack, ItemTransforms.TransformType transformationMode, HumanoidArm arm, PoseStack matrices, MultiBufferSource vertexConsumers, int light, CallbackInfo ci){
@@ -30,14 +31,13 @@ public class HeldItemMixin {
             if(player.getAnimation().isActive()){
                 AnimationPlayer anim = player.getAnimation();
 
-                Vec3f data = anim.get3DTransform(arm == HumanoidArm.LEFT ? "leftArm" : "rightArm", TransformType.BEND, new Vec3f(0f, 0f, 0f));
-
-                Pair<Float, Float> pair = new Pair<>(data.getX(), data.getY());
+                MutableVec3f data = itemTransform.set(0f, 0f, 0f);
+                anim.get3DTransform(arm == HumanoidArm.LEFT ? PartRegistry.LEFT_ARM : PartRegistry.RIGHT_ARM, TransformType.BEND, data);
 
                 float offset = 0.25f;
                 matrices.translate(0, offset, 0);
-                float bend = pair.getRight();
-                float axisf = - pair.getLeft();
+                float bend = data.getY();
+                float axisf = - data.getX();
                 Vector3f axis = new Vector3f((float) Math.cos(axisf), 0, (float) Math.sin(axisf));
                 //return this.setRotation(axis.getRadialQuaternion(bend));
                 matrices.mulPose(axis.rotation(bend));
@@ -54,10 +54,12 @@ public class HeldItemMixin {
             if (player.getAnimation().isActive()) {
                 AnimationPlayer anim = player.getAnimation();
 
-                Vec3f rot = anim.get3DTransform(arm == HumanoidArm.LEFT ? "leftItem" : "rightItem", TransformType.ROTATION, Vec3f.ZERO);
-                Vec3f pos = anim.get3DTransform(arm == HumanoidArm.LEFT ? "leftItem" : "rightItem", TransformType.POSITION, Vec3f.ZERO).scale(1/16f);
+                MutableVec3f pos = itemTransform.set(0f, 0f, 0f);
+                anim.get3DTransform(arm == HumanoidArm.LEFT ? PartRegistry.LEFT_ITEM : PartRegistry.RIGHT_ITEM, TransformType.POSITION, pos);
+                matrices.translate(pos.getX() / 16f, pos.getY() / 16f, pos.getZ() / 16f);
 
-                matrices.translate(pos.getX(), pos.getY(), pos.getZ());
+                MutableVec3f rot = itemTransform.set(0f, 0f, 0f);
+                anim.get3DTransform(arm == HumanoidArm.LEFT ? PartRegistry.LEFT_ITEM : PartRegistry.RIGHT_ITEM, TransformType.ROTATION, rot);
 
                 matrices.mulPose(Vector3f.ZP.rotation(rot.getZ()));    //roll
                 matrices.mulPose(Vector3f.YP.rotation(rot.getY()));    //pitch
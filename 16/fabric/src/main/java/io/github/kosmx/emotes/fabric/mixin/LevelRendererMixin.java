@@ -0,0 +1,26 @@
+package io.github.kosmx.emotes.fabric.mixin;
+
+import io.github.kosmx.emotes.main.emotePlay.ParallelPoseEvaluator;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.LevelRenderer;
+import net.minecraft.client.renderer.culling.Frustum;
+import net.minecraft.client.renderer.entity.EntityRenderDispatcher;
+import net.minecraft.world.phys.Vec3;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.ModifyArg;
+
+@Mixin(LevelRenderer.class)
+public class LevelRendererMixin {
+    //The frustum of the frame is passed to setupRender, the players are rendered after it
+    @ModifyArg(method = "renderLevel", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/renderer/LevelRenderer;setupRender(Lnet/minecraft/client/Camera;Lnet/minecraft/client/renderer/culling/Frustum;ZIZ)V"), index = 1)
+    private Frustum prepareEmotePoses(Frustum frustum){
+        Minecraft minecraft = Minecraft.getInstance();
+        if(minecraft.level != null){
+            EntityRenderDispatcher dispatcher = minecraft.getEntityRenderDispatcher();
+            Vec3 camera = minecraft.gameRenderer.getMainCamera().getPosition();
+            ParallelPoseEvaluator.preparePoses(minecraft.level.players(), player -> dispatcher.shouldRender(player, frustum, camera.x, camera.y, camera.z), minecraft.getFrameTime());
+        }
+        return frustum;
+    }
+}
@@ -1,8 +1,9 @@
 package io.github.kosmx.emotes.fabric.mixin;
 
 
-import io.github.kosmx.emotes.api.proxy.AbstractNetworkInstance;
+import io.github.kosmx.emotes.arch.network.NettyPacketSink;
 import io.github.kosmx.emotes.common.network.EmotePacket;
+import io.github.kosmx.emotes.common.network.VersionTable;
 import io.github.kosmx.emotes.fabric.network.ServerNetwork;
 import io.github.kosmx.emotes.server.network.EmotePlayTracker;
 import io.github.kosmx.emotes.server.network.IServerNetworkInstance;
@@ -16,7 +17,6 @@ import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.UUID;
 
 @Mixin(ServerGamePacketListenerImpl.class)
@@ -24,15 +24,15 @@ public abstract class ServerPlayNetworkInstance implements IServerNetworkInstanc
     private final EmotePlayTracker emoteTracker = new EmotePlayTracker();
     @Shadow public abstract void send(Packet<?> packet);
 
-    HashMap<Byte, Byte> versions = new HashMap<>();
+    VersionTable versions = VersionTable.EMPTY;
     @Override
-    public HashMap<Byte, Byte> getRemoteVersions() {
+    public VersionTable getRemoteVersions() {
         return versions;
     }
 
     @Override
-    public void setVersions(HashMap<Byte, Byte> map) {
-        versions = map;
+    public void setVersions(VersionTable versions) {
+        this.versions = versions;
     }
 
     @Override
@@ -47,7 +47,7 @@ public abstract class ServerPlayNetworkInstance implements IServerNetworkInstanc
 
     @Override
     public void sendMessage(EmotePacket.Builder builder, @Nullable UUID target) throws IOException {
-        sendMessage(AbstractNetworkInstance.safeGetBytesFromBuffer(builder.build().write()), null);
+        builder.build().write(new NettyPacketSink(buf -> this.send(ServerPlayNetworking.createS2CPacket(ServerNetwork.channelID, buf))), this.maxDataSize(), this.getRemoteVersions());
     }
 
     public void sendMessage(byte[] bytes, @Nullable UUID target) {
@@ -65,6 +65,11 @@ public abstract class ServerPlayNetworkInstance implements IServerNetworkInstanc
         }
     }
 
+    @Override
+    public int maxDataSize() {
+        return 0x100000; //1 MB, the limit of custom payload packets
+    }
+
     @Override
     public boolean isActive() {
         return false;
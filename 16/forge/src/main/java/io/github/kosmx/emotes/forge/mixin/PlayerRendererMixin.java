@@ -3,8 +3,8 @@ package io.github.kosmx.emotes.forge.mixin;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.math.Vector3f;
 import io.github.kosmx.emotes.arch.emote.EmotePlayImpl;
-import io.github.kosmx.emotes.common.tools.Vec3f;
-import io.github.kosmx.emotes.common.tools.Vector3;
+import io.github.kosmx.emotes.common.emote.PartRegistry;
+import io.github.kosmx.emotes.common.tools.MutableVec3f;
 import io.github.kosmx.emotes.executor.emotePlayer.IEmotePlayerEntity;
 import io.github.kosmx.playerAnim.TransformType;
 import io.github.kosmx.playerAnim.impl.AnimationPlayer;
@@ -18,15 +18,19 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 @SuppressWarnings("unchecked")
 @Mixin(PlayerRenderer.class)
 public class PlayerRendererMixin {
+    private final MutableVec3f bodyTransform = new MutableVec3f();
+
     @Inject(method = "setupRotations", at = @At("RETURN"))
     private void applyBodyTransforms(AbstractClientPlayer abstractClientPlayerEntity, PoseStack matrixStack, float f, float bodyYaw, float tickDelta, CallbackInfo ci){
         AnimationPlayer animationPlayer = ((IEmotePlayerEntity<EmotePlayImpl>) abstractClientPlayerEntity).getAnimation();
         animationPlayer.setTickDelta(tickDelta);
         if(animationPlayer.isActive()){
 
-            Vector3<Float> vec3d = animationPlayer.get3DTransform("body", TransformType.POSITION, Vec3f.ZERO);
+            MutableVec3f vec3d = bodyTransform.set(0, 0, 0);
+            animationPlayer.get3DTransform(PartRegistry.BODY, TransformType.POSITION, vec3d);
             matrixStack.translate(vec3d.getX(), vec3d.getY() + 0.7, vec3d.getZ());
-            Vector3<Float> vec3f = animationPlayer.get3DTransform("body", TransformType.ROTATION, Vec3f.ZERO);
+            MutableVec3f vec3f = bodyTransform.set(0, 0, 0);
+            animationPlayer.get3DTransform(PartRegistry.BODY, TransformType.ROTATION, vec3f);
             matrixStack.mulPose(Vector3f.ZP.rotation(vec3f.getZ()));    //roll
             matrixStack.mulPose(Vector3f.YP.rotation(vec3f.getY()));    //pitch
             matrixStack.mulPose(Vector3f.XP.rotation(vec3f.getX()));    //yaw
@@ -8,6 +8,7 @@ import io.github.kosmx.emotes.common.network.objects.NetData;
 import io.github.kosmx.emotes.forge.mixin.ChunkMapAccessor;
 import io.github.kosmx.emotes.forge.mixin.TrackedEntityAccessor;
 import io.github.kosmx.emotes.server.network.AbstractServerEmotePlay;
+import io.github.kosmx.emotes.server.network.BroadcastPacket;
 import io.github.kosmx.emotes.server.network.IServerNetworkInstance;
 import io.netty.buffer.Unpooled;
 import net.minecraft.network.FriendlyByteBuf;
@@ -18,9 +19,13 @@ import net.minecraft.server.level.ServerChunkCache;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.server.network.ServerGamePacketListenerImpl;
 import net.minecraft.world.entity.player.Player;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.fml.network.NetworkEvent;
 import net.minecraftforge.fml.network.NetworkRegistry;
 import net.minecraftforge.fml.network.PacketDistributor;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
 import net.minecraftforge.fml.network.event.EventNetworkChannel;
 import net.minecraftforge.fml.server.ServerLifecycleHooks;
 
@@ -54,6 +59,21 @@ public class ServerNetwork extends AbstractServerEmotePlay<Player> {
     public void init(){
         channel.addListener(this::receiveByteBuf);
         geyserChannel.addListener(this::receiveGeyserEvent); //Lambdas are not possible.
+        MinecraftForge.EVENT_BUS.addListener(this::playerLoggedOut);
+        MinecraftForge.EVENT_BUS.addListener(this::serverTick);
+        MinecraftForge.EVENT_BUS.addListener(this::serverStopped);
+    }
+
+    private void serverTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) tick();
+    }
+
+    private void serverStopped(FMLServerStoppedEvent event) {
+        shutdown();
+    }
+
+    private void playerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        if (event.getPlayer() instanceof ServerPlayer) playerDisconnected((INetworkInstance) ((ServerPlayer) event.getPlayer()).connection);
     }
 
     public void receiveByteBuf(NetworkEvent.ClientCustomPayloadEvent event){
@@ -129,10 +149,13 @@ public class ServerNetwork extends AbstractServerEmotePlay<Player> {
 
     @Override
     protected void sendForEveryoneElse(NetData data, @Nullable GeyserEmotePacket emotePacket, Player player) {
+        BroadcastPacket packet = prepareBroadcast(data);
         try {
             sendConsumer(player, (Consumer<ServerPlayer>) serverPlayer -> {
                 try {
-                    PacketDistributor.PLAYER.with(() -> serverPlayer).send(newS2CEmotesPacket(data));
+                    for (byte[] frame : packet.getFrames(getPlayerNetworkInstance(serverPlayer))) {
+                        PacketDistributor.PLAYER.with(() -> serverPlayer).send(newS2CEmotesPacket(channelID, frame));
+                    }
                     if (emotePacket != null && geyserChannel.isRemotePresent(serverPlayer.connection.getConnection())) {
                         PacketDistributor.PLAYER.with(() -> serverPlayer).send(newS2CEmotesPacket(geyserChannelID, emotePacket.write()));
                     }
@@ -153,9 +176,13 @@ public class ServerNetwork extends AbstractServerEmotePlay<Player> {
     }
 
     public static Packet newS2CEmotesPacket(ResourceLocation channelID, byte[] data) throws IOException {
+        return newS2CEmotesPacket(channelID, new FriendlyByteBuf(Unpooled.wrappedBuffer(data)));
+    }
+
+    public static Packet newS2CEmotesPacket(ResourceLocation channelID, FriendlyByteBuf data) {
         ClientboundCustomPayloadPacket packet = new ClientboundCustomPayloadPacket();
         packet.setName(channelID);
-        packet.setData(new FriendlyByteBuf(Unpooled.wrappedBuffer(data)));
+        packet.setData(data);
         return packet;
     }
 
@@ -169,7 +196,10 @@ public class ServerNetwork extends AbstractServerEmotePlay<Player> {
     @Override
     protected void sendForPlayer(NetData data, Player player, UUID target) {
         try {
-            PacketDistributor.PLAYER.with(() -> (ServerPlayer) player.getCommandSenderWorld().getPlayerByUUID(target)).send(newS2CEmotesPacket(data));
+            ServerPlayer serverPlayer = (ServerPlayer) player.getCommandSenderWorld().getPlayerByUUID(target);
+            for (byte[] frame : new BroadcastPacket(data).getFrames(getPlayerNetworkInstance(serverPlayer))) {
+                PacketDistributor.PLAYER.with(() -> serverPlayer).send(newS2CEmotesPacket(channelID, frame));
+            }
         }
         catch (IOException e){
             e.printStackTrace();
@@ -1,22 +1,43 @@
 package io.github.kosmx.emotes.arch.emote;
 
-import io.github.kosmx.emotes.common.tools.Vec3f;
+import io.github.kosmx.emotes.common.emote.PartRegistry;
+import io.github.kosmx.emotes.common.tools.MutableVec3f;
 import io.github.kosmx.playerAnim.TransformType;
 import io.github.kosmx.playerAnim.impl.AnimationPlayer;
 import io.github.kosmx.playerAnim.layered.IAnimation;
 import net.minecraft.client.model.geom.ModelPart;
 
 public class AnimationApplier extends AnimationPlayer {
+    private final MutableVec3f transform = new MutableVec3f();
+
     public AnimationApplier(IAnimation animation) {
         super(animation);
     }
 
     public void updatePart(String partName, ModelPart part) {
-        Vec3f pos = this.get3DTransform(partName, TransformType.POSITION, new Vec3f(part.x, part.y, part.z));
+        MutableVec3f pos = transform.set(part.x, part.y, part.z);
+        this.get3DTransform(partName, TransformType.POSITION, pos);
+        part.x = pos.getX();
+        part.y = pos.getY();
+        part.z = pos.getZ();
+        MutableVec3f rot = transform.set(part.xRot, part.yRot, part.zRot);
+        this.get3DTransform(partName, TransformType.ROTATION, rot);
+        part.setRotation(rot.getX(), rot.getY(), rot.getZ());
+    }
+
+    /**
+     * Update the part without looking up its name
+     * @param partId {@link PartRegistry} ID of the part
+     * @param part   model part
+     */
+    public void updatePart(int partId, ModelPart part) {
+        MutableVec3f pos = transform.set(part.x, part.y, part.z);
+        this.get3DTransform(partId, TransformType.POSITION, pos);
         part.x = pos.getX();
         part.y = pos.getY();
         part.z = pos.getZ();
-        Vec3f rot = this.get3DTransform(partName, TransformType.ROTATION, new Vec3f(part.xRot, part.yRot, part.zRot));
+        MutableVec3f rot = transform.set(part.xRot, part.yRot, part.zRot);
+        this.get3DTransform(partId, TransformType.ROTATION, rot);
         part.setRotation(rot.getX(), rot.getY(), rot.getZ());
     }
 
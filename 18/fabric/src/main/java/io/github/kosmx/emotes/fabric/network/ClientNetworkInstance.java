@@ -1,9 +1,9 @@
 package io.github.kosmx.emotes.fabric.network;
 
 import io.github.kosmx.emotes.api.proxy.AbstractNetworkInstance;
+import io.github.kosmx.emotes.arch.network.NettyPacketSink;
 import io.github.kosmx.emotes.common.network.EmotePacket;
 import io.github.kosmx.emotes.executor.EmoteInstance;
-import io.netty.buffer.Unpooled;
 import net.fabricmc.fabric.api.client.networking.v1.C2SPlayChannelEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
@@ -15,7 +15,6 @@ import net.minecraft.resources.ResourceLocation;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -66,17 +65,6 @@ public class ClientNetworkInstance extends AbstractNetworkInstance implements C2
         }
     }
 
-    private boolean disableNBS = false;
-    @Override
-    public HashMap<Byte, Byte> getVersions() {
-        if(disableNBS){
-            HashMap<Byte, Byte> map = new HashMap<>();
-            map.put((byte)3, (byte) 0);
-            return map;
-        }
-        return null;
-    }
-
     @Override
     public boolean sendPlayerID() {
         return false;
@@ -93,7 +81,7 @@ public class ClientNetworkInstance extends AbstractNetworkInstance implements C2
             builder.configureTarget(target);
         }
         EmotePacket writer = builder.build();
-        ClientPlayNetworking.send(ServerNetwork.channelID, new FriendlyByteBuf(Unpooled.wrappedBuffer(writer.write().array())));
+        writer.write(new NettyPacketSink(buf -> ClientPlayNetworking.send(ServerNetwork.channelID, buf)), this.maxDataSize(), this.getRemoteVersions());
         if(writer.data.emoteData != null && writer.data.emoteData.song != null && !writer.data.writeSong){
             EmoteInstance.instance.getClientMethods().sendChatMessage(EmoteInstance.instance.getDefaults().newTranslationText("emotecraft.song_too_big_to_send"));
         }
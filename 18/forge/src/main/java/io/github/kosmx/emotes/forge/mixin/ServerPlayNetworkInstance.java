@@ -1,7 +1,9 @@
 package io.github.kosmx.emotes.forge.mixin;
 
 
+import io.github.kosmx.emotes.arch.network.NettyPacketSink;
 import io.github.kosmx.emotes.common.network.EmotePacket;
+import io.github.kosmx.emotes.common.network.VersionTable;
 import io.github.kosmx.emotes.forge.network.ServerNetwork;
 import io.github.kosmx.emotes.server.network.EmotePlayTracker;
 import io.github.kosmx.emotes.server.network.IServerNetworkInstance;
@@ -12,7 +14,6 @@ import org.spongepowered.asm.mixin.Shadow;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.UUID;
 
 @Mixin(ServerGamePacketListenerImpl.class)
@@ -20,15 +21,15 @@ public abstract class ServerPlayNetworkInstance implements IServerNetworkInstanc
     private final EmotePlayTracker emoteTracker = new EmotePlayTracker();
     @Shadow public abstract void send(Packet<?> packet);
 
-    HashMap<Byte, Byte> versions = new HashMap<>();
+    VersionTable versions = VersionTable.EMPTY;
     @Override
-    public HashMap<Byte, Byte> getRemoteVersions() {
+    public VersionTable getRemoteVersions() {
         return versions;
     }
 
     @Override
-    public void setVersions(HashMap<Byte, Byte> map) {
-        versions = map;
+    public void setVersions(VersionTable versions) {
+        this.versions = versions;
     }
 
     @Override
@@ -44,7 +45,7 @@ public abstract class ServerPlayNetworkInstance implements IServerNetworkInstanc
     @Override
     public void sendMessage(EmotePacket.Builder builder, @Nullable UUID target) throws IOException {
         //sendMessage(builder.build().write(), null);
-        this.send(ServerNetwork.newS2CEmotesPacket(builder.copyAndGetData()));
+        builder.copy().build().write(new NettyPacketSink(buf -> this.send(ServerNetwork.newS2CEmotesPacket(ServerNetwork.channelID, buf))), this.maxDataSize(), this.getRemoteVersions());
     }
 
     /*
@@ -65,6 +66,11 @@ public abstract class ServerPlayNetworkInstance implements IServerNetworkInstanc
         }
     }
 
+    @Override
+    public int maxDataSize() {
+        return 0x100000; //1 MB, the limit of custom payload packets
+    }
+
     @Override
     public boolean isActive() {
         return false;
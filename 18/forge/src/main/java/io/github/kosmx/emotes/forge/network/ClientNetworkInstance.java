@@ -1,10 +1,12 @@
 package io.github.kosmx.emotes.forge.network;
 
 import io.github.kosmx.emotes.api.proxy.AbstractNetworkInstance;
+import io.github.kosmx.emotes.arch.network.NettyPacketSink;
 import io.github.kosmx.emotes.common.network.EmotePacket;
 import io.github.kosmx.emotes.common.network.objects.NetData;
 import io.netty.buffer.Unpooled;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientPacketListener;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.protocol.game.ServerboundCustomPayloadPacket;
 import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
@@ -13,7 +15,6 @@ import net.minecraftforge.network.NetworkEvent;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -69,16 +70,6 @@ public class ClientNetworkInstance extends AbstractNetworkInstance {
         }
     }
 
-    @Override
-    public HashMap<Byte, Byte> getVersions() {
-        if(disableNBS){
-            HashMap<Byte, Byte> map = new HashMap<>();
-            map.put((byte)3, (byte) 0);
-            return map;
-        }
-        return null;
-    }
-
     @Override
     public boolean sendPlayerID() {
         return false;
@@ -95,12 +86,22 @@ public class ClientNetworkInstance extends AbstractNetworkInstance {
         return new ServerboundCustomPayloadPacket(ServerNetwork.channelID, new FriendlyByteBuf(Unpooled.wrappedBuffer(new EmotePacket.Builder(data).build().write().array())));
     }
 
+    public static ServerboundCustomPayloadPacket newC2SEmotePacket(byte[] data) {
+        return newC2SEmotePacket(new FriendlyByteBuf(Unpooled.wrappedBuffer(data)));
+    }
+
+    public static ServerboundCustomPayloadPacket newC2SEmotePacket(FriendlyByteBuf data) {
+        return new ServerboundCustomPayloadPacket(ServerNetwork.channelID, data);
+    }
+
     @Override
     public void sendMessage(EmotePacket.Builder builder, @Nullable UUID target) throws IOException {
         if(target != null){
             builder.configureTarget(target);
         }
-        if(Minecraft.getInstance().getConnection() != null)
-        Minecraft.getInstance().getConnection().send(newC2SEmotePacket(builder.copyAndGetData()));
+        ClientPacketListener connection = Minecraft.getInstance().getConnection();
+        if(connection != null) {
+            builder.copy().build().write(new NettyPacketSink(buf -> connection.send(newC2SEmotePacket(buf))), this.maxDataSize(), this.getRemoteVersions());
+        }
     }
 }
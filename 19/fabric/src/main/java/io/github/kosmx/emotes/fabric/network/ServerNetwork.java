@@ -2,13 +2,15 @@ package io.github.kosmx.emotes.fabric.network;
 
 import io.github.kosmx.emotes.api.proxy.INetworkInstance;
 import io.github.kosmx.emotes.common.CommonData;
-import io.github.kosmx.emotes.common.network.EmotePacket;
 import io.github.kosmx.emotes.common.network.GeyserEmotePacket;
 import io.github.kosmx.emotes.common.network.objects.NetData;
 import io.github.kosmx.emotes.fabric.FabricWrapper;
 import io.github.kosmx.emotes.server.network.AbstractServerEmotePlay;
+import io.github.kosmx.emotes.server.network.BroadcastPacket;
 import io.github.kosmx.emotes.server.network.IServerNetworkInstance;
 import io.netty.buffer.Unpooled;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.networking.v1.PacketSender;
 import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
@@ -36,6 +38,9 @@ public class ServerNetwork extends AbstractServerEmotePlay<Player> {
             ServerPlayNetworking.registerReceiver(handler, channelID, this::receiveMessage);
             ServerPlayNetworking.registerReceiver(handler, geyserChannelID, this::receiveGeyserMessage);
         });
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> playerDisconnected((INetworkInstance) handler));
+        ServerTickEvents.END_SERVER_TICK.register(server -> tick());
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> shutdown());
     }
 
     void receiveMessage(MinecraftServer server, ServerPlayer player, ServerGamePacketListenerImpl handler, FriendlyByteBuf buf, PacketSender responseSender){
@@ -100,11 +105,14 @@ public class ServerNetwork extends AbstractServerEmotePlay<Player> {
     @Override
     protected void sendForEveryoneElse(NetData data, GeyserEmotePacket emotePacket, Player player) {
         data.player = player.getUUID();
+        BroadcastPacket packet = prepareBroadcast(data);
         PlayerLookup.tracking(player).forEach(serverPlayerEntity -> {
             try {
                 if (serverPlayerEntity != player) {
-                    if (ServerPlayNetworking.canSend(serverPlayerEntity, channelID))
-                        ServerPlayNetworking.send(serverPlayerEntity, channelID, new FriendlyByteBuf(Unpooled.wrappedBuffer(new EmotePacket.Builder(data).build().write().array())));
+                    if (ServerPlayNetworking.canSend(serverPlayerEntity, channelID)) {
+                        for (byte[] frame : packet.getFrames(getPlayerNetworkInstance(serverPlayerEntity)))
+                            ServerPlayNetworking.send(serverPlayerEntity, channelID, new FriendlyByteBuf(Unpooled.wrappedBuffer(frame)));
+                    }
                     else if (ServerPlayNetworking.canSend(serverPlayerEntity, geyserChannelID) && emotePacket != null)
                         ServerPlayNetworking.send(serverPlayerEntity, geyserChannelID, new FriendlyByteBuf(Unpooled.wrappedBuffer(emotePacket.write())));
                 }
@@ -127,7 +135,9 @@ public class ServerNetwork extends AbstractServerEmotePlay<Player> {
     private void targetFinder(ServerPlayer serverPlayerEntity, NetData data, UUID target){
         if (serverPlayerEntity.getUUID().equals(target)) {
             try {
-                ServerPlayNetworking.send(serverPlayerEntity, channelID, new FriendlyByteBuf(Unpooled.wrappedBuffer(new EmotePacket.Builder(data).build().write().array())));
+                for (byte[] frame : new BroadcastPacket(data).getFrames(getPlayerNetworkInstance(serverPlayerEntity))) {
+                    ServerPlayNetworking.send(serverPlayerEntity, channelID, new FriendlyByteBuf(Unpooled.wrappedBuffer(frame)));
+                }
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -3,6 +3,8 @@ package io.github.kosmx.emotes.forge.mixin;
 import io.github.kosmx.bendylibForge.ModelPartAccessor;
 import io.github.kosmx.bendylibForge.impl.BendableCuboid;
 import io.github.kosmx.emotes.arch.emote.AnimationApplier;
+import io.github.kosmx.emotes.common.emote.PartRegistry;
+import io.github.kosmx.emotes.common.tools.MutableVec3f;
 import io.github.kosmx.emotes.common.tools.SetableSupplier;
 import io.github.kosmx.emotes.executor.emotePlayer.IEmotePlayerEntity;
 import io.github.kosmx.emotes.executor.emotePlayer.IMutatedBipedModel;
@@ -30,6 +32,7 @@ import java.util.function.Function;
 @SuppressWarnings("unchecked")
 @Mixin(value = PlayerModel.class, priority = 2000)//Apply after NotEnoughAnimation's inject
 public class PlayerModelMixin<T extends LivingEntity> extends HumanoidModel<T> {
+    private final MutableVec3f bendTransform = new MutableVec3f();
     @Shadow
     @Final
     public ModelPart jacket;
@@ -105,20 +108,20 @@ public class PlayerModelMixin<T extends LivingEntity> extends HumanoidModel<T> {
             AnimationApplier emote = (AnimationApplier) ((IEmotePlayerEntity<EmotePlayImpl>) livingEntity).getAnimation();
             emoteSupplier.set(emote);
 
-            emote.updatePart("head", this.head);
+            emote.updatePart(PartRegistry.HEAD, this.head);
             this.hat.copyFrom(this.head);
 
-            emote.updatePart("leftArm", this.leftArm);
-            emote.updatePart("rightArm", this.rightArm);
-            emote.updatePart("leftLeg", this.leftLeg);
-            emote.updatePart("rightLeg", this.rightLeg);
-            emote.updatePart("torso", this.body);
+            emote.updatePart(PartRegistry.LEFT_ARM, this.leftArm);
+            emote.updatePart(PartRegistry.RIGHT_ARM, this.rightArm);
+            emote.updatePart(PartRegistry.LEFT_LEG, this.leftLeg);
+            emote.updatePart(PartRegistry.RIGHT_LEG, this.rightLeg);
+            emote.updatePart(PartRegistry.TORSO, this.body);
 
-            thisWithMixin.getTorso().bend(emote.getBend("torso"));
-            thisWithMixin.getLeftArm().bend(emote.getBend("leftArm"));
-            thisWithMixin.getLeftLeg().bend(emote.getBend("leftLeg"));
-            thisWithMixin.getRightArm().bend(emote.getBend("rightArm"));
-            thisWithMixin.getRightLeg().bend(emote.getBend("rightLeg"));
+            bendPart(thisWithMixin.getTorso(), emote, PartRegistry.TORSO);
+            bendPart(thisWithMixin.getLeftArm(), emote, PartRegistry.LEFT_ARM);
+            bendPart(thisWithMixin.getLeftLeg(), emote, PartRegistry.LEFT_LEG);
+            bendPart(thisWithMixin.getRightArm(), emote, PartRegistry.RIGHT_ARM);
+            bendPart(thisWithMixin.getRightLeg(), emote, PartRegistry.RIGHT_LEG);
 
         }
         else {
@@ -130,4 +133,9 @@ public class PlayerModelMixin<T extends LivingEntity> extends HumanoidModel<T> {
             thisWithMixin.getRightLeg().bend(null);
         }
     }
+
+    private void bendPart(BendableModelPart part, AnimationPlayer emote, int partId){
+        emote.getBend(partId, bendTransform);
+        part.bend(bendTransform.getX(), bendTransform.getY());
+    }
 }
@@ -9,6 +9,7 @@ import io.github.kosmx.emotes.executor.EmoteInstance;
 import io.github.kosmx.emotes.forge.mixin.ChunkMapAccessor;
 import io.github.kosmx.emotes.forge.mixin.TrackedEntityAccessor;
 import io.github.kosmx.emotes.server.network.AbstractServerEmotePlay;
+import io.github.kosmx.emotes.server.network.BroadcastPacket;
 import io.github.kosmx.emotes.server.network.IServerNetworkInstance;
 import io.netty.buffer.Unpooled;
 import net.minecraft.network.FriendlyByteBuf;
@@ -19,6 +20,10 @@ import net.minecraft.server.level.ServerChunkCache;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.server.network.ServerGamePacketListenerImpl;
 import net.minecraft.world.entity.player.Player;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
 import net.minecraftforge.network.NetworkEvent;
 import net.minecraftforge.network.NetworkRegistry;
 import net.minecraftforge.network.PacketDistributor;
@@ -54,6 +59,21 @@ public class ServerNetwork extends AbstractServerEmotePlay<Player> {
     public void init(){
         channel.addListener(this::receiveByteBuf);
         geyserChannel.addListener(this::receiveGeyserEvent); //Lambdas are not possible.
+        MinecraftForge.EVENT_BUS.addListener(this::playerLoggedOut);
+        MinecraftForge.EVENT_BUS.addListener(this::serverTick);
+        MinecraftForge.EVENT_BUS.addListener(this::serverStopped);
+    }
+
+    private void serverTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) tick();
+    }
+
+    private void serverStopped(ServerStoppedEvent event) {
+        shutdown();
+    }
+
+    private void playerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        if (event.getEntity() instanceof ServerPlayer) playerDisconnected((INetworkInstance) ((ServerPlayer) event.getEntity()).connection);
     }
 
     public void receiveByteBuf(NetworkEvent.ClientCustomPayloadEvent event){
@@ -130,11 +150,14 @@ public class ServerNetwork extends AbstractServerEmotePlay<Player> {
     @Override
     protected void sendForEveryoneElse(NetData data, @Nullable GeyserEmotePacket emotePacket, Player player) {
         data.player = player.getUUID();
+        BroadcastPacket packet = prepareBroadcast(data);
         try {
             sendConsumer(player, serverPlayer -> {
                 try {
                     if (channel.isRemotePresent(serverPlayer.connection.getConnection())){
-                        PacketDistributor.PLAYER.with(() -> serverPlayer).send(newS2CEmotesPacket(data));
+                        for (byte[] frame : packet.getFrames(getPlayerNetworkInstance(serverPlayer))) {
+                            PacketDistributor.PLAYER.with(() -> serverPlayer).send(newS2CEmotesPacket(channelID, frame));
+                        }
                     } else if (emotePacket != null && geyserChannel.isRemotePresent(serverPlayer.connection.getConnection())) {
                         PacketDistributor.PLAYER.with(() -> serverPlayer).send(newS2CEmotesPacket(geyserChannelID, emotePacket.write()));
                     }
@@ -152,7 +175,11 @@ public class ServerNetwork extends AbstractServerEmotePlay<Player> {
     }
 
     public static Packet newS2CEmotesPacket(ResourceLocation channelID, byte[] data) throws IOException {
-        return new ClientboundCustomPayloadPacket(channelID, new FriendlyByteBuf(Unpooled.wrappedBuffer(data)));
+        return newS2CEmotesPacket(channelID, new FriendlyByteBuf(Unpooled.wrappedBuffer(data)));
+    }
+
+    public static Packet newS2CEmotesPacket(ResourceLocation channelID, FriendlyByteBuf data) {
+        return new ClientboundCustomPayloadPacket(channelID, data);
     }
 
     @Override
@@ -171,7 +198,10 @@ public class ServerNetwork extends AbstractServerEmotePlay<Player> {
     @Override
     protected void sendForPlayer(NetData data, Player player, UUID target) {
         try {
-            PacketDistributor.PLAYER.with(() -> (ServerPlayer) player.getCommandSenderWorld().getPlayerByUUID(target)).send(newS2CEmotesPacket(data));
+            ServerPlayer serverPlayer = (ServerPlayer) player.getCommandSenderWorld().getPlayerByUUID(target);
+            for (byte[] frame : new BroadcastPacket(data).getFrames(getPlayerNetworkInstance(serverPlayer))) {
+                PacketDistributor.PLAYER.with(() -> serverPlayer).send(newS2CEmotesPacket(channelID, frame));
+            }
         }
         catch (IOException e){
             e.printStackTrace();
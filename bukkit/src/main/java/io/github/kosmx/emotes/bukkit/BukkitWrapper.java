@@ -55,6 +55,7 @@ public class BukkitWrapper extends JavaPlugin {
     @Override
     public void onDisable() {
         super.onDisable();
+        if (networkPlay != null) networkPlay.shutdown();
         Bukkit.getMessenger().unregisterIncomingPluginChannel(this, EmotePacket);
     }
 
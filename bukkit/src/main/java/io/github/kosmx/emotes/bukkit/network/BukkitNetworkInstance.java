@@ -5,14 +5,13 @@ import io.github.kosmx.emotes.bukkit.BukkitWrapper;
 import io.github.kosmx.emotes.common.CommonData;
 import io.github.kosmx.emotes.server.network.EmotePlayTracker;
 import io.github.kosmx.emotes.server.network.IServerNetworkInstance;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
 import javax.annotation.Nullable;
-import java.util.HashMap;
 import java.util.UUID;
 
 public class BukkitNetworkInstance extends AbstractNetworkInstance implements IServerNetworkInstance {
-    private HashMap<Byte, Byte> version = null;
     final Player player;
     final BukkitWrapper bukkitPlugin = BukkitWrapper.getPlugin(BukkitWrapper.class);
 
@@ -27,16 +26,6 @@ public class BukkitNetworkInstance extends AbstractNetworkInstance implements IS
         this.player = player;
     }
 
-    @Override
-    public HashMap<Byte, Byte> getVersions() {
-        return version;
-    }
-
-    @Override
-    public void setVersions(HashMap<Byte, Byte> map) {
-        this.version = map;
-    }
-
     @Override
     public void sendMessage(byte[] bytes, @Nullable UUID target) {
         player.sendPluginMessage(bukkitPlugin, CommonData.getIDAsString(CommonData.playEmoteID), bytes);
@@ -50,6 +39,12 @@ public class BukkitNetworkInstance extends AbstractNetworkInstance implements IS
     @Override
     public void presenceResponse() {
         IServerNetworkInstance.super.presenceResponse();
+        //The config message is processed on a worker, visibility can be checked only on the main thread
+        if (Bukkit.isPrimaryThread()) sendTrackedEmotes();
+        else Bukkit.getScheduler().runTask(bukkitPlugin, this::sendTrackedEmotes);
+    }
+
+    private void sendTrackedEmotes() {
         for (Player player :bukkitPlugin.getServer().getOnlinePlayers()) {
             if (this.player.canSee(player)) {
                 ServerSideEmotePlay.getInstance().playerStartTracking(player, this.player);
@@ -0,0 +1,70 @@
+package io.github.kosmx.emotes.bukkit.network;
+
+import io.github.kosmx.emotes.executor.EmoteInstance;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Worker threads for the received emote messages, decoding, validation and encoding don't use the main thread's time.
+ *
+ * Every player is assigned to one lane, a lane is a single worker with a bounded queue.
+ * The messages of a player are processed in order, a stop message can't overtake its emote.
+ * If a lane's queue is full, new messages are dropped instead of piling up.
+ */
+@ThreadSafe
+public class MessagePipeline {
+    public static final int QUEUE_CAPACITY = 128;
+
+    private final ThreadPoolExecutor[] lanes;
+
+    public MessagePipeline() {
+        this(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+    }
+
+    public MessagePipeline(int laneCount) {
+        lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            final String name = "Emotecraft worker #" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Process a message of the player on its lane
+     * @param player sender player
+     * @param task the work, exceptions are logged
+     * @return false if the message was dropped
+     */
+    public boolean submit(UUID player, Runnable task) {
+        ThreadPoolExecutor lane = lanes[Math.floorMod(player.hashCode(), lanes.length)];
+        try {
+            lane.execute(() -> {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            EmoteInstance.instance.getLogger().log(Level.WARNING, "Emote message queue is full, dropping message of " + player, true);
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
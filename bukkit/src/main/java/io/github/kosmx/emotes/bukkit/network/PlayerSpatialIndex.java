@@ -0,0 +1,185 @@
+package io.github.kosmx.emotes.bukkit.network;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Online players bucketed by world and chunk column, the emote relay asks only the buckets around the emote's player.
+ * The buckets are updated when a player moves to another chunk, teleports or changes world,
+ * {@link #updateAll(Collection)} catches the movement what doesn't fire an event, like riding a vehicle.
+ *
+ * Use it only from the server thread.
+ */
+@NotThreadSafe
+public class PlayerSpatialIndex implements Listener {
+    private static final int CHUNK_SHIFT = 4;
+
+    private final HashMap<UUID, HashMap<Long, ArrayList<Player>>> worlds = new HashMap<>();
+    private final HashMap<UUID, Cell> players = new HashMap<>();
+
+    public void update(Player player, Location location) {
+        World world = location.getWorld();
+        if (world == null) return;
+        UUID worldId = world.getUID();
+        long chunk = chunkKey(location.getBlockX() >> CHUNK_SHIFT, location.getBlockZ() >> CHUNK_SHIFT);
+
+        Cell cell = players.get(player.getUniqueId());
+        if (cell != null) {
+            if (cell.chunk == chunk && cell.world.equals(worldId) && cell.player == player) return;
+            removeFromBucket(cell);
+        }
+        worlds.computeIfAbsent(worldId, uuid -> new HashMap<>()).computeIfAbsent(chunk, c -> new ArrayList<>(2)).add(player);
+        players.put(player.getUniqueId(), new Cell(player, worldId, chunk));
+    }
+
+    public void remove(Player player) {
+        Cell cell = players.remove(player.getUniqueId());
+        if (cell != null) removeFromBucket(cell);
+    }
+
+    public void updateAll(Collection<? extends Player> onlinePlayers) {
+        for (Player player : onlinePlayers) {
+            update(player, player.getLocation());
+        }
+    }
+
+    /**
+     * Get the players near to the source player
+     * @param source the player in the middle, it is included in the result
+     * @param radius horizontal distance in blocks, 0 or less means the whole world
+     * @return players in the same world and in range
+     */
+    public List<Player> getPlayersInRange(Player source, double radius) {
+        Location location = source.getLocation();
+        World world = location.getWorld();
+        if (world == null) return new ArrayList<>();
+        if (!players.containsKey(source.getUniqueId())) update(source, location);
+
+        HashMap<Long, ArrayList<Player>> chunks = worlds.get(world.getUID());
+        if (chunks == null) return new ArrayList<>();
+
+        List<Player> result = new ArrayList<>();
+        if (radius <= 0) {
+            for (ArrayList<Player> bucket : chunks.values()) result.addAll(bucket);
+            return result;
+        }
+
+        double x = location.getX();
+        double z = location.getZ();
+        double radiusSq = radius * radius;
+        int minX = (int) Math.floor(x - radius) >> CHUNK_SHIFT;
+        int maxX = (int) Math.floor(x + radius) >> CHUNK_SHIFT;
+        int minZ = (int) Math.floor(z - radius) >> CHUNK_SHIFT;
+        int maxZ = (int) Math.floor(z + radius) >> CHUNK_SHIFT;
+
+        //Few players in a big range, it is cheaper to check every occupied chunk
+        if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > chunks.size()) {
+            for (Map.Entry<Long, ArrayList<Player>> entry : chunks.entrySet()) {
+                int chunkX = (int) (entry.getKey() >> 32);
+                int chunkZ = (int) (long) entry.getKey();
+                if (chunkX >= minX && chunkX <= maxX && chunkZ >= minZ && chunkZ <= maxZ) {
+                    addInRange(entry.getValue(), x, z, radiusSq, result);
+                }
+            }
+        }
+        else {
+            for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+                for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
+                    ArrayList<Player> bucket = chunks.get(chunkKey(chunkX, chunkZ));
+                    if (bucket != null) addInRange(bucket, x, z, radiusSq, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addInRange(ArrayList<Player> bucket, double x, double z, double radiusSq, List<Player> result) {
+        for (Player player : bucket) {
+            Location location = player.getLocation();
+            double dx = location.getX() - x;
+            double dz = location.getZ() - z;
+            if (dx * dx + dz * dz <= radiusSq) result.add(player);
+        }
+    }
+
+    private void removeFromBucket(Cell cell) {
+        HashMap<Long, ArrayList<Player>> chunks = worlds.get(cell.world);
+        if (chunks == null) return;
+        ArrayList<Player> bucket = chunks.get(cell.chunk);
+        if (bucket == null) return;
+        bucket.remove(cell.player);
+        if (bucket.isEmpty()) {
+            chunks.remove(cell.chunk);
+            if (chunks.isEmpty()) worlds.remove(cell.world);
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        remove(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        updateTo(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        updateTo(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        update(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    private void updateTo(Player player, @Nullable Location to) {
+        if (to != null) update(player, to);
+    }
+
+    private static final class Cell {
+        final Player player;
+        final UUID world;
+        final long chunk;
+
+        Cell(Player player, UUID world, long chunk) {
+            this.player = player;
+            this.world = world;
+            this.chunk = chunk;
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package io.github.kosmx.emotes.bukkit.network;
 
 import io.github.kosmx.emotes.bukkit.BukkitWrapper;
-import io.github.kosmx.emotes.common.network.EmotePacket;
 import io.github.kosmx.emotes.common.network.GeyserEmotePacket;
 import io.github.kosmx.emotes.common.network.objects.NetData;
 import io.github.kosmx.emotes.executor.EmoteInstance;
 import io.github.kosmx.emotes.server.network.AbstractServerEmotePlay;
+import io.github.kosmx.emotes.server.network.BroadcastPacket;
 import io.github.kosmx.emotes.server.network.IServerNetworkInstance;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -14,14 +14,32 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
-import java.util.HashMap;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
+/**
+ * Received messages are processed on the {@link MessagePipeline}'s workers, not on the main thread.
+ * The recipients are collected on the main thread when the message arrives, the workers only encode and send.
+ * Server emote events of received messages are invoked on a worker thread, {@link io.github.kosmx.emotes.api.events.server.ServerEmoteEvents#EMOTE_END} on the main thread.
+ */
 public class ServerSideEmotePlay extends AbstractServerEmotePlay<Player> implements Listener {
     final BukkitWrapper plugin;
 
-    final HashMap<UUID, BukkitNetworkInstance> player_database = new HashMap<>();
+    final ConcurrentHashMap<UUID, BukkitNetworkInstance> player_database = new ConcurrentHashMap<>();
+
+    final PlayerSpatialIndex spatialIndex = new PlayerSpatialIndex();
+
+    final MessagePipeline pipeline = new MessagePipeline();
+
+    /**
+     * Recipients of the message what is processed on this worker thread
+     */
+    private final ThreadLocal<Recipients> currentRecipients = new ThreadLocal<>();
 
 
     public ServerSideEmotePlay(BukkitWrapper plugin){
@@ -30,6 +48,10 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<Player> impleme
         Bukkit.getMessenger().registerOutgoingPluginChannel(plugin, BukkitWrapper.GeyserPacket);
         Bukkit.getMessenger().registerIncomingPluginChannel(plugin, BukkitWrapper.EmotePacket, this::receivePluginMessage);
         Bukkit.getMessenger().registerIncomingPluginChannel(plugin, BukkitWrapper.GeyserPacket, this::receivePluginMessage);
+        Bukkit.getPluginManager().registerEvents(spatialIndex, plugin);
+        //Vehicles don't fire move events, and the players already online (after a reload) are added here
+        Bukkit.getScheduler().runTaskTimer(plugin, () -> spatialIndex.updateAll(plugin.getServer().getOnlinePlayers()), 0, 100);
+        Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1, 1);
     }
 
     private void receivePluginMessage(String channel, Player player, byte[] message) {
@@ -38,17 +60,64 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<Player> impleme
             BukkitNetworkInstance playerNetwork = player_database.getOrDefault(player.getUniqueId(), null);
             if (playerNetwork != null) {
                 //Let the common server logic process the message
-                try {
-                    this.receiveMessage(message, player, playerNetwork);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+                Recipients recipients = collectRecipients(player);
+                pipeline.submit(player.getUniqueId(), () -> withRecipients(recipients, () -> {
+                    try {
+                        this.receiveMessage(message, player, playerNetwork);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }));
             } else {
                 EmoteInstance.instance.getLogger().log(Level.WARNING, "Player: " + player.getName() + " is not registered");
             }
         }
         else {
-            receiveGeyserMessage(player, message);
+            Recipients recipients = collectRecipients(player);
+            pipeline.submit(player.getUniqueId(), () -> withRecipients(recipients, () -> receiveGeyserMessage(player, message)));
+        }
+    }
+
+    private void withRecipients(Recipients recipients, Runnable task) {
+        currentRecipients.set(recipients);
+        try {
+            task.run();
+        } finally {
+            currentRecipients.remove();
+        }
+    }
+
+    /**
+     * Snapshot of the players who can see the player, use it on the main thread
+     * The relay radius is {@link io.github.kosmx.emotes.common.SerializableConfig#relayRadius} or the world's view distance
+     */
+    private Recipients collectRecipients(Player player) {
+        List<Player> emotecraft = new ArrayList<>();
+        List<Player> others = new ArrayList<>();
+        double radius = EmoteInstance.config.relayRadius.get();
+        //The players who can see the emoter, like before the radius existed
+        if (radius <= 0) radius = player.getWorld().getViewDistance() * 16;
+        for (Player player1 : spatialIndex.getPlayersInRange(player, radius)) {
+            if (player1 != player && player1.canSee(player)) {
+                if (player1.getListeningPluginChannels().contains(BukkitWrapper.EmotePacket)) emotecraft.add(player1);
+                else others.add(player1);
+            }
+        }
+        return new Recipients(player, emotecraft, others);
+    }
+
+    /**
+     * The snapshot of the current message on a worker, or a new one on the main thread
+     */
+    private Recipients getRecipients(Player player) {
+        Recipients recipients = currentRecipients.get();
+        if (recipients != null && recipients.source == player) return recipients;
+        if (Bukkit.isPrimaryThread()) return collectRecipients(player);
+        try {
+            return Bukkit.getScheduler().callSyncMethod(plugin, () -> collectRecipients(player)).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new Recipients(player, Collections.emptyList(), Collections.emptyList());
         }
     }
 
@@ -59,7 +128,8 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<Player> impleme
 
     @Override
     public Player getPlayerFromUUID(UUID player) {
-        return plugin.getServer().getPlayer(player);
+        BukkitNetworkInstance instance = player_database.get(player);
+        return instance != null ? instance.player : plugin.getServer().getPlayer(player);
     }
 
     @Override
@@ -79,37 +149,44 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<Player> impleme
 
     @Override
     protected void sendForEveryoneElse(GeyserEmotePacket packet, Player player) {
-        for(Player player1 : plugin.getServer().getOnlinePlayers()){
-            if (player1 != player && player1.canSee(player)) {
-                try {
-                    player1.sendPluginMessage(plugin, BukkitWrapper.GeyserPacket, packet.write());
-                }catch (Exception e){
-                    e.printStackTrace();
-                }
-            }
+        Recipients recipients = getRecipients(player);
+        try {
+            byte[] bytes = packet.write();
+            for (Player player1 : recipients.emotecraft) player1.sendPluginMessage(plugin, BukkitWrapper.GeyserPacket, bytes);
+            for (Player player1 : recipients.others) player1.sendPluginMessage(plugin, BukkitWrapper.GeyserPacket, bytes);
+        }catch (Exception e){
+            e.printStackTrace();
         }
     }
 
     @Override
-    protected void sendForEveryoneElse(NetData data, GeyserEmotePacket emotePacket, Player player) {
-        for(Player player1 : plugin.getServer().getOnlinePlayers()){
-            if (player1 != player && player1.canSee(player)) {
-                try {
-                    //Bukkit server will filter if I really can send, or not.
-                    //If else to not spam dumb forge clients.
-                    if(player1.getListeningPluginChannels().contains(BukkitWrapper.EmotePacket))
-                        player1.sendPluginMessage(plugin, BukkitWrapper.EmotePacket, new EmotePacket.Builder(data).build().write().array());
-                    else if(emotePacket != null) player1.sendPluginMessage(plugin, BukkitWrapper.GeyserPacket, emotePacket.write());
-                }catch (Exception e){
-                    e.printStackTrace();
-                }
+    protected void sendForEveryoneElse(NetData data, @Nullable GeyserEmotePacket emotePacket, Player player) {
+        Recipients recipients = getRecipients(player);
+        BroadcastPacket packet = prepareBroadcast(data);
+        //Bukkit server will filter if I really can send, or not.
+        //Only the players listening on the channel get it to not spam dumb forge clients.
+        //sendPluginMessage only queues the packet in the player's connection, it can be used from the workers.
+        for(Player player1 : recipients.emotecraft){
+            try {
+                for (byte[] frame : packet.getFrames(player_database.get(player1.getUniqueId())))
+                    player1.sendPluginMessage(plugin, BukkitWrapper.EmotePacket, frame);
+            }catch (Exception e){
+                e.printStackTrace();
+            }
+        }
+        if(emotePacket != null && !recipients.others.isEmpty()) {
+            try {
+                byte[] bytes = emotePacket.write();
+                for (Player player1 : recipients.others) player1.sendPluginMessage(plugin, BukkitWrapper.GeyserPacket, bytes);
+            }catch (Exception e){
+                e.printStackTrace();
             }
         }
     }
 
     @Override
     protected void sendForPlayerInRange(NetData data, Player player, UUID target) {
-        Player targetPlayer = plugin.getServer().getPlayer(target);
+        Player targetPlayer = getPlayerFromUUID(target);
         if(targetPlayer.canSee(player)){
             sendForPlayer(data, player, target);
         }
@@ -117,9 +194,12 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<Player> impleme
 
     @Override
     protected void sendForPlayer(NetData data, Player player, UUID target) {
-        Player targetPlayer = plugin.getServer().getPlayer(target);
+        BukkitNetworkInstance instance = player_database.get(target);
+        if (instance == null) return;
         try {
-            targetPlayer.sendPluginMessage(plugin, BukkitWrapper.EmotePacket, new EmotePacket.Builder(data).build().write().array());
+            for (byte[] frame : new BroadcastPacket(data).getFrames(instance)) {
+                instance.player.sendPluginMessage(plugin, BukkitWrapper.EmotePacket, frame);
+            }
         }catch (Exception e){
             e.printStackTrace();
         }
@@ -135,6 +215,27 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<Player> impleme
         Player player = event.getPlayer();
 
         BukkitNetworkInstance instance = this.player_database.remove(player.getUniqueId());
-        if(instance != null)instance.closeConnection();
+        if(instance != null) {
+            instance.closeConnection();
+            playerDisconnected(instance);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        pipeline.shutdown();
+        super.shutdown();
+    }
+
+    private static final class Recipients {
+        final Player source;
+        final List<Player> emotecraft;
+        final List<Player> others;
+
+        Recipients(Player source, List<Player> emotecraft, List<Player> others) {
+            this.source = source;
+            this.emotecraft = emotecraft;
+            this.others = others;
+        }
     }
 }
@@ -8,6 +8,8 @@ import io.github.kosmx.emotes.server.config.Serializer;
 import io.github.kosmx.emotes.server.serializer.UniversalEmoteSerializer;
 import net.md_5.bungee.api.plugin.Plugin;
 
+import java.util.concurrent.TimeUnit;
+
 public class BungeeWrapper extends Plugin {
     public final static String EmotePacket = CommonData.getIDAsString(CommonData.playEmoteID);
     public final static String GeyserPacket = "geyser:emote";
@@ -31,6 +33,8 @@ public class BungeeWrapper extends Plugin {
     public void onEnable() {
         this.networkPlay = new ServerSideEmotePlay(this);
         getProxy().getPluginManager().registerListener(this, networkPlay);
+        //The proxy doesn't have a main thread, the emote ends are processed on the scheduler
+        getProxy().getScheduler().schedule(this, networkPlay::tick, 50, 50, TimeUnit.MILLISECONDS);
         super.onEnable();
         getLogger().info("Loading Emotecraft as a bukkit plugin...");
         getLogger().warning("Emotecraft is meant to be used on a server, not on a proxy.");
@@ -40,6 +44,8 @@ public class BungeeWrapper extends Plugin {
     @Override
     public void onDisable() {
         super.onDisable();
+        getProxy().getScheduler().cancel(this);
+        if (networkPlay != null) networkPlay.shutdown();
         getProxy().unregisterChannel(EmotePacket);
     }
 }
\ No newline at end of file
@@ -7,11 +7,9 @@ import io.github.kosmx.emotes.server.network.IServerNetworkInstance;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
 
 import javax.annotation.Nullable;
-import java.util.HashMap;
 import java.util.UUID;
 
 public class BungeeNetworkInstance extends AbstractNetworkInstance implements IServerNetworkInstance {
-    private HashMap<Byte, Byte> version = null;
     final ProxiedPlayer player;
 
     private final EmotePlayTracker emotePlayTracker = new EmotePlayTracker();
@@ -25,16 +23,6 @@ public class BungeeNetworkInstance extends AbstractNetworkInstance implements IS
         this.player = player;
     }
 
-    @Override
-    public HashMap<Byte, Byte> getVersions() {
-        return version;
-    }
-
-    @Override
-    public void setVersions(HashMap<Byte, Byte> map) {
-        this.version = map;
-    }
-
     @Override
     public void sendMessage(byte[] bytes, @Nullable UUID target) {
         player.sendData(CommonData.getIDAsString(CommonData.playEmoteID), bytes);
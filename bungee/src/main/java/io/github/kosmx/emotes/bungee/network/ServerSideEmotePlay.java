@@ -1,19 +1,23 @@
 package io.github.kosmx.emotes.bungee.network;
 
 import io.github.kosmx.emotes.bungee.BungeeWrapper;
-import io.github.kosmx.emotes.common.network.EmotePacket;
 import io.github.kosmx.emotes.common.network.GeyserEmotePacket;
 import io.github.kosmx.emotes.common.network.objects.NetData;
 import io.github.kosmx.emotes.executor.EmoteInstance;
 import io.github.kosmx.emotes.server.network.AbstractServerEmotePlay;
+import io.github.kosmx.emotes.server.network.BackendMembershipIndex;
+import io.github.kosmx.emotes.server.network.BroadcastPacket;
 import io.github.kosmx.emotes.server.network.IServerNetworkInstance;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.event.PlayerDisconnectEvent;
 import net.md_5.bungee.api.event.PluginMessageEvent;
 import net.md_5.bungee.api.event.PostLoginEvent;
+import net.md_5.bungee.api.event.ServerConnectedEvent;
+import net.md_5.bungee.api.event.ServerDisconnectEvent;
 import net.md_5.bungee.api.plugin.Listener;
 import net.md_5.bungee.event.EventHandler;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.UUID;
 import java.util.logging.Level;
@@ -22,6 +26,7 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<ProxiedPlayer>
     final BungeeWrapper plugin;
 
     final HashMap<UUID, BungeeNetworkInstance> player_database = new HashMap<>();
+    final BackendMembershipIndex<ProxiedPlayer> backends = new BackendMembershipIndex<>();
 
     public static ServerSideEmotePlay INSTANCE;
 
@@ -90,7 +95,7 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<ProxiedPlayer>
 
     @Override
     protected void sendForEveryoneElse(GeyserEmotePacket packet, ProxiedPlayer player) {
-        for (ProxiedPlayer player1 : plugin.getProxy().getPlayers()) {
+        for (ProxiedPlayer player1 : getRelayTargets(player)) {
             if (player1 != player) {
                 try {
                     player1.sendData(BungeeWrapper.GeyserPacket, packet.write());
@@ -103,10 +108,13 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<ProxiedPlayer>
 
     @Override
     protected void sendForEveryoneElse(NetData data, GeyserEmotePacket emotePacket, ProxiedPlayer player) {
-        for (ProxiedPlayer player1 : plugin.getProxy().getPlayers()) {
+        BroadcastPacket packet = prepareBroadcast(data);
+        for (ProxiedPlayer player1 : getRelayTargets(player)) {
             if (player1 != player) {
                 try {
-                    player1.sendData(BungeeWrapper.EmotePacket, new EmotePacket.Builder(data).build().write().array());
+                    for (byte[] frame : packet.getFrames(player_database.get(player1.getUniqueId()))) {
+                        player1.sendData(BungeeWrapper.EmotePacket, frame);
+                    }
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -123,7 +131,9 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<ProxiedPlayer>
     protected void sendForPlayer(NetData data, ProxiedPlayer player, UUID target) {
         ProxiedPlayer targetPlayer = plugin.getProxy().getPlayer(target);
         try {
-            targetPlayer.sendData(BungeeWrapper.EmotePacket, new EmotePacket.Builder(data).build().write().array());
+            for (byte[] frame : new BroadcastPacket(data).getFrames(player_database.get(target))) {
+                targetPlayer.sendData(BungeeWrapper.EmotePacket, frame);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -139,7 +149,28 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<ProxiedPlayer>
         ProxiedPlayer player = event.getPlayer();
 
         BungeeNetworkInstance instance = this.player_database.remove(player.getUniqueId());
-        if (instance != null)
+        if (instance != null) {
             instance.closeConnection();
+            playerDisconnected(instance);
+        }
+        backends.disconnect(player.getUniqueId());
+    }
+
+    @EventHandler
+    public void onServerConnected(ServerConnectedEvent event) {
+        backends.connect(event.getPlayer().getUniqueId(), event.getPlayer(), event.getServer().getInfo().getName());
+    }
+
+    @EventHandler
+    public void onServerDisconnect(ServerDisconnectEvent event) {
+        backends.disconnect(event.getPlayer().getUniqueId(), event.getTarget().getName());
+    }
+
+    /**
+     * Players on the same backend server, or everyone if {@link io.github.kosmx.emotes.common.SerializableConfig#proxyGlobalRelay} is set
+     */
+    private Collection<ProxiedPlayer> getRelayTargets(ProxiedPlayer player) {
+        if (EmoteInstance.config.proxyGlobalRelay.get()) return plugin.getProxy().getPlayers();
+        return backends.getPlayersOnSameBackend(player.getUniqueId());
     }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package io.github.kosmx.emotes.benchmark;
+
+import io.github.kosmx.emotes.common.tools.Ease;
+import io.github.kosmx.emotes.common.tools.Easing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Easing evaluation: the old enum switch, the function dispatch and the lookup tables.
+ * The lookup table mode is switched in the trial setup, not in the measured methods.
+ * Every invocation evaluates the same pseudo-random ease and progress samples.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EasingBenchmark {
+    private static final int SAMPLES = 4096;
+
+    @Param({"mixed", "INOUTSINE", "OUTELASTIC", "INOUTBOUNCE"})
+    public String easing;
+
+    /**
+     * Easing mode of {@link #functionDispatch()}, the switch doesn't use it
+     */
+    @Param({"exact", "lookupTable"})
+    public String mode;
+
+    private Ease[] eases;
+    private float[] progress;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        eases = new Ease[SAMPLES];
+        progress = new float[SAMPLES];
+        Ease[] values = Ease.values();
+        for (int i = 0; i < SAMPLES; i++) {
+            eases[i] = easing.equals("mixed") ? values[random.nextInt(values.length)] : Ease.valueOf(easing);
+            progress[i] = random.nextFloat();
+        }
+        Easing.setLookupTables(mode.equals("lookupTable"), 1e-4f);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Easing.setLookupTables(false, 0);
+    }
+
+    @Benchmark
+    public float enumSwitch() {
+        float sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sum += switchEasing(eases[i], progress[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float functionDispatch() {
+        float sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sum += Easing.easingFromEnum(eases[i], progress[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * The easing dispatch before the function registry, kept here as the baseline
+     */
+    private static float switchEasing(Ease type, float f) {
+        switch (type) {
+            case INOUTSINE: return Easing.inOutSine(f);
+            case INSINE: return Easing.inSine(f);
+            case OUTSINE: return Easing.outSine(f);
+            case INCUBIC: return Easing.inCubic(f);
+            case OUTCUBIC: return Easing.outCubic(f);
+            case LINEAR: return f;
+            case INOUTCUBIC: return Easing.inOutCubic(f);
+            case INQUAD: return Easing.inQuad(f);
+            case INQUART: return Easing.inQuart(f);
+            case OUTQUAD: return Easing.outQuad(f);
+            case OUTQUART: return Easing.outQuart(f);
+            case INOUTQUAD: return Easing.inOutQuad(f);
+            case INOUTQUART: return Easing.inOutQuart(f);
+            case INBACK: return Easing.inBack(f);
+            case INCIRC: return Easing.inCirc(f);
+            case INEXPO: return Easing.inExpo(f);
+            case INQUINT: return Easing.inQuint(f);
+            case OUTBACK: return Easing.outBack(f);
+            case OUTCIRC: return Easing.outCirc(f);
+            case OUTEXPO: return Easing.outExpo(f);
+            case INBOUNCE: return Easing.inBounce(f);
+            case OUTQUINT: return Easing.outQuint(f);
+            case INELASTIC: return Easing.inElastic(f);
+            case INOUTBACK: return Easing.inOutBack(f);
+            case INOUTCIRC: return Easing.inOutCirc(f);
+            case INOUTEXPO: return Easing.inOutExpo(f);
+            case OUTBOUNCE: return Easing.outBounce(f);
+            case INOUTQUINT: return Easing.inOutQuint(f);
+            case OUTELASTIC: return Easing.outElastic(f);
+            case INOUTBOUNCE: return Easing.inOutBounce(f);
+            case INOUTELASTIC: return Easing.inOutElastic(f);
+            case CONSTANT: return 0;
+            default: return f;
+        }
+    }
+}
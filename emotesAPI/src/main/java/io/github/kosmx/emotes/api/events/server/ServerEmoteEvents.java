@@ -79,10 +79,32 @@ public final class ServerEmoteEvents {
 
         /**
          * Only used when a user stops an emote-play,
-         * Finishing an emote will NOT invoke it
+         * Finishing an emote will NOT invoke it, see {@link ServerEmoteEvents#EMOTE_END}
          * @param emoteID the ID of the emote
          * @param userID the ID of the user
          */
         void onStopEmote(UUID emoteID, UUID userID);
     }
+
+    /**
+     * Invoked when a played emote reaches its end, infinite emotes never end
+     * It is invoked on the server's main thread when the server ticks, on proxies on the scheduler thread
+     * Emotes of the players who left the server or of a stopped server don't end
+     */
+    public static final Event<EmoteEndEvent> EMOTE_END = new Event<>(EmoteEndEvent.class, listeners -> (emote, userID) -> {
+        for (EmoteEndEvent listener : listeners) {
+            listener.onEmoteEnd(emote, userID);
+        }
+    });
+
+    @FunctionalInterface
+    public interface EmoteEndEvent {
+
+        /**
+         * The emote has finished, it wasn't stopped or replaced
+         * @param emoteData the finished emote
+         * @param userID the ID of the user
+         */
+        void onEmoteEnd(EmoteData emoteData, UUID userID);
+    }
 }
@@ -2,12 +2,17 @@ package io.github.kosmx.emotes.api.proxy;
 
 import io.github.kosmx.emotes.common.CommonData;
 import io.github.kosmx.emotes.common.network.EmotePacket;
+import io.github.kosmx.emotes.common.network.PacketCompression;
 import io.github.kosmx.emotes.common.network.PacketConfig;
+import io.github.kosmx.emotes.common.network.PacketFragment;
+import io.github.kosmx.emotes.common.network.PacketSink;
+import io.github.kosmx.emotes.common.network.VersionTable;
+import io.github.kosmx.emotes.common.network.objects.EmoteReferencePacket;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
-import java.util.HashMap;
 import java.util.UUID;
 import java.util.logging.Level;
 
@@ -21,6 +26,14 @@ public abstract class AbstractNetworkInstance implements INetworkInstance{
     protected int remoteVersion = 0;
     protected boolean disableNBS = false;
     protected boolean doesServerTrackEmotePlay = false;
+    protected boolean streamEmoteReferences = false;
+    protected byte emoteDataVersion = 1;
+    protected byte compressionVersion = 0;
+    protected byte fragmentationVersion = 0;
+    /**
+     * Built from the version parameters when the versions are received
+     */
+    private volatile VersionTable remoteVersions = buildRemoteVersions();
 
     /*
      * You have to implement at least one of these three functions
@@ -61,13 +74,26 @@ public abstract class AbstractNetworkInstance implements INetworkInstance{
      * to send the bytes data
      *
      *
+     * Messages bigger than {@link #maxDataSize()} are sent in fragments if the other side supports it.
+     *
      * @param builder EmotePacket builder
      * @param target target to send message, if null, everyone in the view distance
      * @throws IOException throws IOException if packet writing has failed
      */
     @Override
     public void sendMessage(EmotePacket.Builder builder, @Nullable UUID target) throws IOException {
-        this.sendMessage(builder.build().write(), target);    //everything is happening on the heap, there won't be any memory leak
+        builder.build().write(new PacketSink() {
+            @Override
+            public ByteBuffer allocate(int size) {
+                return ByteBuffer.allocate(size);
+            }
+
+            @Override
+            public void send(ByteBuffer frame) {
+                ((Buffer) frame).flip();
+                AbstractNetworkInstance.this.sendMessage(frame, target);    //everything is happening on the heap, there won't be any memory leak
+            }
+        }, this.maxDataSize(), this.getRemoteVersions());
     }
 
     /**
@@ -132,35 +158,49 @@ public abstract class AbstractNetworkInstance implements INetworkInstance{
     /**
      * Default client-side version config,
      * Please call super if you override it.
-     * @param map version/config map
+     * @param versions version/config table
      */
     @Override
-    public void setVersions(HashMap<Byte, Byte> map) {
-        if (map.containsKey((byte) 3)) {
-            disableNBS = map.get((byte) 3) == 0;
+    public void setVersions(VersionTable versions) {
+        if (versions.contains((byte) 3)) {
+            disableNBS = versions.get((byte) 3, (byte) 0) == 0;
         }
-        if (map.containsKey((byte) 8)) {
-            remoteVersion = map.get((byte) 8); //8x8 :D
+        if (versions.contains((byte) 8)) {
+            remoteVersion = versions.get((byte) 8, (byte) 0); //8x8 :D
         }
-        if (map.containsKey(PacketConfig.SERVER_TRACK_EMOTE_PLAY)) {
-            this.doesServerTrackEmotePlay = map.get(PacketConfig.SERVER_TRACK_EMOTE_PLAY) != 0;
+        if (versions.contains(PacketConfig.SERVER_TRACK_EMOTE_PLAY)) {
+            this.doesServerTrackEmotePlay = versions.get(PacketConfig.SERVER_TRACK_EMOTE_PLAY, (byte) 0) != 0;
         }
+        this.streamEmoteReferences = EmoteReferencePacket.isSupported(versions);
+        this.emoteDataVersion = versions.get((byte) 0, this.emoteDataVersion);
+        this.compressionVersion = versions.get(PacketCompression.ID, (byte) 0);
+        this.fragmentationVersion = versions.get(PacketFragment.ID, (byte) 0);
+        this.remoteVersions = buildRemoteVersions();
     }
 
     /**
      * see {@link INetworkInstance#getRemoteVersions()}
-     * it is just a default implementation
+     * it is just a default implementation, the table is built only when the versions are received
      */
     @Override
-    public HashMap<Byte, Byte> getRemoteVersions() {
-        HashMap<Byte, Byte> map = new HashMap<>();
+    public VersionTable getRemoteVersions() {
+        return remoteVersions;
+    }
+
+    private VersionTable buildRemoteVersions() {
+        VersionTable versions = VersionTable.EMPTY;
         if(disableNBS){
-            map.put((byte)3, (byte) 0);
+            versions = versions.with((byte)3, (byte) 0);
         }
         if (doesServerTrackEmotePlay) {
-            map.put(PacketConfig.SERVER_TRACK_EMOTE_PLAY, (byte)1);
+            versions = versions.with(PacketConfig.SERVER_TRACK_EMOTE_PLAY, (byte)1);
+        }
+        if (streamEmoteReferences) {
+            versions = versions.with(EmoteReferencePacket.ID, (byte)1);
         }
-        return map;
+        return versions.with((byte)0, emoteDataVersion)
+                .with(PacketCompression.ID, compressionVersion)
+                .with(PacketFragment.ID, fragmentationVersion);
     }
 
     @Override
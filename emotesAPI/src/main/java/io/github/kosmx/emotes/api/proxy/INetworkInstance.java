@@ -1,13 +1,14 @@
 package io.github.kosmx.emotes.api.proxy;
 
 import io.github.kosmx.emotes.common.network.EmotePacket;
+import io.github.kosmx.emotes.common.network.PacketFragment;
+import io.github.kosmx.emotes.common.network.VersionTable;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
-import java.util.HashMap;
 import java.util.UUID;
 
 /**
@@ -21,39 +22,27 @@ public interface INetworkInstance {
 
     /**
      * Get the version from the other side. null if default
-     * the map doesn't have to contain information about every module. these will be added automatically.
+     * the table doesn't have to contain information about every module. these will be added automatically.
+     * It is used for every sent message, keep the same instance until the versions change.
      *
-     * do {@code HashMap#put(3, 0)} to disable sound streaming. NBS can't be optimized and often very large
+     * do {@code versions.with(3, 0)} to disable sound streaming. NBS can't be optimized and often very large
      *
      * @return maybe null
-     * @deprecated ambiguous name, use {@link INetworkInstance#getRemoteVersions()}
      */
-    @Deprecated
-    default HashMap<Byte, Byte> getVersions() { return null; }
-
-
-    /**
-     * Get the version from the other side. null if default
-     * the map doesn't have to contain information about every module. these will be added automatically.
-     *
-     * do {@code HashMap#put(3, 0)} to disable sound streaming. NBS can't be optimized and often very large
-     *
-     * @return maybe null
-     */
-    @SuppressWarnings("deprecated")
-    default HashMap<Byte, Byte> getRemoteVersions() {
-        return getVersions();
+    @Nullable
+    default VersionTable getRemoteVersions() {
+        return null;
     }
 
     /**
      * Receive (and save) versions from the other side
-     * @param map map
+     * @param versions versions table
      */
-    void setVersions(HashMap<Byte, Byte> map);
+    void setVersions(VersionTable versions);
 
     /**
      * Invoked after receiving the presence packet
-     * {@link INetworkInstance#setVersions(HashMap)}
+     * {@link INetworkInstance#setVersions(VersionTable)}
      * Used to send server-side config/emotes
      */
     default void presenceResponse(){}
@@ -141,6 +130,15 @@ public interface INetworkInstance {
      */
     int maxDataSize();
 
+    /**
+     * Maximum size of a message
+     * It is bigger than {@link #maxDataSize()} if the other side can reassemble fragmented messages, see {@link PacketFragment}
+     * @return max size of the message before splitting it
+     */
+    default int maxMessageSize() {
+        return PacketFragment.getSizeLimit(this.getRemoteVersions(), this.maxDataSize());
+    }
+
     /**
      * If {@link ByteBuffer} is wrapped, it is safe to get the array
      * but if is direct manual read is required.
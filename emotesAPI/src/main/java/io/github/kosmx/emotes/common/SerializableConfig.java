@@ -31,6 +31,16 @@ public class SerializableConfig {
 
     public final StringConfigEntry emotesDir = new StringConfigEntry("emotesDirectory", "emotes", false, expert, true);
 
+    /**
+     * Server-side, emotes are relayed only to the players in this horizontal distance, 0 means the world's view distance
+     */
+    public final FloatConfigEntry relayRadius = new FloatConfigEntry("relayRadius", null, 0f, false, expert, "options.generic_value", 0f, 512f, 16f, true);
+
+    /**
+     * On a proxy, emotes are relayed to the players of every backend server, not only to the emoter's backend
+     */
+    public final BooleanConfigEntry proxyGlobalRelay = new BooleanConfigEntry("proxyGlobalRelay", false, false, expert, true);
+
     public void iterate(Consumer<ConfigEntry<?>> consumer){
         basics.forEach(consumer);
         expert.forEach(consumer);
@@ -125,7 +135,11 @@ public class SerializableConfig {
         final private String formatKey;
         public final float min, max, step;
         public FloatConfigEntry(String name, String oldconfig, Float defVal, boolean hasTooltip, List<ConfigEntry<?>> collection, String formatKey, float min, float max, float step) {
-            super(name, oldconfig, defVal, hasTooltip, collection);
+            this(name, oldconfig, defVal, hasTooltip, collection, formatKey, min, max, step, false);
+        }
+
+        public FloatConfigEntry(String name, String oldconfig, Float defVal, boolean hasTooltip, List<ConfigEntry<?>> collection, String formatKey, float min, float max, float step, boolean hidden) {
+            super(name, oldconfig, defVal, hasTooltip, collection, hidden);
             this.formatKey = formatKey;
             this.min = min;
             this.max = max;
@@ -2,11 +2,14 @@ package io.github.kosmx.emotes.common.emote;
 
 import io.github.kosmx.emotes.common.opennbs.NBS;
 import io.github.kosmx.emotes.common.tools.Ease;
+import io.github.kosmx.emotes.common.tools.Easing;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 //TODO
@@ -74,8 +77,14 @@ public final class EmoteData implements Supplier<UUID> {
 
     public boolean isBuiltin = false;
 
+    /**
+     * Data computed from the keyframes, like baked sample tables.
+     * Not part of the emote, ignored by equals and hashCode
+     */
+    private final transient Map<Class<?>, DerivedData> derivedData = new ConcurrentHashMap<>(2);
+    private final transient ModificationCounter modificationCounter;
 
-    private EmoteData(int beginTick, int endTick, int stopTick, boolean isInfinite, int returnToTick, HashMap<String, StateCollection> bodyParts, boolean isEasingBefore, boolean nsfw, UUID uuid, @Nullable String name, @Nullable String description, @Nullable String author, EmoteFormat emoteFormat, ByteBuffer iconData, NBS song) {
+    private EmoteData(int beginTick, int endTick, int stopTick, boolean isInfinite, int returnToTick, HashMap<String, StateCollection> bodyParts, boolean isEasingBefore, boolean nsfw, UUID uuid, @Nullable String name, @Nullable String description, @Nullable String author, EmoteFormat emoteFormat, ByteBuffer iconData, NBS song, ModificationCounter modificationCounter) {
         this.beginTick = Math.max(beginTick, 0);
         this.name = name;
         this.description = description;
@@ -106,6 +115,10 @@ public final class EmoteData implements Supplier<UUID> {
         rightItem = bodyParts.get("rightItem");
         leftItem = bodyParts.get("leftItem");
         torso = bodyParts.get("torso");
+        this.modificationCounter = modificationCounter;
+        for (StateCollection part : bodyParts.values()) {
+            part.bind(modificationCounter);
+        }
         assert emoteFormat != null;
     }
 
@@ -209,6 +222,53 @@ public final class EmoteData implements Supplier<UUID> {
         return isInfinite;
     }
 
+    /**
+     * Sum of the keyframe modifications in every part.
+     * Changes whenever a keyframe is added, replaced or removed using the {@link StateCollection.State} methods, it is kept by the states, reading it is free.
+     *
+     * @return modification count
+     */
+    public int getModificationCount() {
+        return modificationCounter.count;
+    }
+
+    /**
+     * Get data derived from this emote, compute it if absent or if the keyframes were modified since.
+     * Computing is not synchronized, the factory might run more than once.
+     *
+     * @param type    type of the data, used as key
+     * @param factory compute the data
+     * @param <T>     type
+     * @return derived data
+     */
+    public <T> T getDerivedData(Class<T> type, Function<EmoteData, T> factory) {
+        int modCount = getModificationCount();
+        DerivedData data = derivedData.get(type);
+        if (data == null || data.modCount != modCount) {
+            data = new DerivedData(factory.apply(this), modCount);
+            derivedData.put(type, data);
+        }
+        return type.cast(data.value);
+    }
+
+    /**
+     * Modifications of the states of an emote, the states bump it to not sum the parts on every lookup.
+     * It is shared by the builder and the emotes built from it, the parts added later by the builder are counted too.
+     */
+    static final class ModificationCounter {
+        int count = 0;
+    }
+
+    private static final class DerivedData {
+        final Object value;
+        final int modCount;
+
+        private DerivedData(Object value, int modCount) {
+            this.value = value;
+            this.modCount = modCount;
+        }
+    }
+
     public static class StateCollection {
         @Deprecated
         public final String name;
@@ -327,18 +387,68 @@ public final class EmoteData implements Supplier<UUID> {
             return new StateCollection(this);
         }
 
+        private void trimToSize() {
+            x.trimToSize();
+            y.trimToSize();
+            z.trimToSize();
+            pitch.trimToSize();
+            yaw.trimToSize();
+            roll.trimToSize();
+            if (isBendable) {
+                bend.trimToSize();
+                bendDirection.trimToSize();
+            }
+        }
+
+        /**
+         * Count the modifications of the states in the emote's counter
+         */
+        void bind(ModificationCounter counter) {
+            x.bind(counter);
+            y.bind(counter);
+            z.bind(counter);
+            pitch.bind(counter);
+            yaw.bind(counter);
+            roll.bind(counter);
+            if (isBendable) {
+                bend.bind(counter);
+                bendDirection.bind(counter);
+            }
+        }
+
         public static class State {
+            private static final int MAX_CURSOR_STEPS = 8;
+            private static final int[] EMPTY_TICKS = new int[0];
+            private static final float[] EMPTY_VALUES = new float[0];
+            private static final byte[] EMPTY_EASES = new byte[0];
+
             public final float defaultValue;
             public final float threshold;
-            public final List<KeyFrame> keyFrames = new ArrayList<>();
+            /**
+             * View of the packed keyframes, kept for compatibility.
+             * {@link List#get(int)} creates a new {@link KeyFrame}, use {@link State#getTick(int)}, {@link State#getValue(int)} and {@link State#getEaseId(int)} instead.
+             */
+            public final List<KeyFrame> keyFrames = new KeyFrameList();
             public final String name;
             private final boolean isAngle;
             public boolean isEnabled = false;
+            //Packed keyframes, sorted by tick
+            private int[] ticks = EMPTY_TICKS;
+            private float[] values = EMPTY_VALUES;
+            private byte[] easeIds = EMPTY_EASES;
+            private int size = 0;
+            private int modCount = 0;
+            //Counter of the emote, see EmoteData#getModificationCount
+            @Nullable
+            private ModificationCounter counter = null;
 
             public State(State state) {
                 this.defaultValue = state.defaultValue;
                 this.threshold = state.threshold;
-                this.keyFrames.addAll(state.keyFrames); //KeyFrames are immutable, copying them is safe
+                this.ticks = Arrays.copyOf(state.ticks, state.size);
+                this.values = Arrays.copyOf(state.values, state.size);
+                this.easeIds = Arrays.copyOf(state.easeIds, state.size);
+                this.size = state.size;
                 this.name = state.name;
                 this.isAngle = state.isAngle;
                 this.isEnabled = state.isEnabled;
@@ -353,15 +463,28 @@ public final class EmoteData implements Supplier<UUID> {
 
                 if (Float.compare(state.defaultValue, defaultValue) != 0) return false;
                 if (isAngle != state.isAngle) return false;
-                if (!keyFrames.equals(state.keyFrames)) return false;
+                if (!keyFramesEquals(state)) return false;
                 if (isEnabled != state.isEnabled) return false;
                 return Objects.equals(name, state.name);
             }
 
+            private boolean keyFramesEquals(State state) {
+                if (size != state.size) return false;
+                for (int i = 0; i < size; i++) {
+                    if (ticks[i] != state.ticks[i] || values[i] != state.values[i] || easeIds[i] != state.easeIds[i]) return false;
+                }
+                return true;
+            }
+
             @Override
             public int hashCode() {
                 int result = (defaultValue != +0.0f ? Float.floatToIntBits(defaultValue) : 0);
-                result = 31 * result + keyFrames.hashCode();
+                //Same as the hash of the keyframe list
+                int keyFramesHash = 1;
+                for (int i = 0; i < size; i++) {
+                    keyFramesHash = 31 * keyFramesHash + KeyFrame.hashCode(ticks[i], values[i], easeIds[i]);
+                }
+                result = 31 * result + keyFramesHash;
                 result = 31 * result + (isAngle ? 1 : 0);
                 return result;
             }
@@ -380,7 +503,30 @@ public final class EmoteData implements Supplier<UUID> {
             }
 
             public int length() {
-                return keyFrames.size();
+                return size;
+            }
+
+            public int getTick(int pos) {
+                checkIndex(pos);
+                return ticks[pos];
+            }
+
+            public float getValue(int pos) {
+                checkIndex(pos);
+                return values[pos];
+            }
+
+            public byte getEaseId(int pos) {
+                checkIndex(pos);
+                return easeIds[pos];
+            }
+
+            public Ease getEase(int pos) {
+                return Ease.getEase(getEaseId(pos));
+            }
+
+            private void checkIndex(int pos) {
+                if (pos < 0 || pos >= size) throw new IndexOutOfBoundsException("Index: " + pos + ", Size: " + size);
             }
 
             /**
@@ -390,8 +536,34 @@ public final class EmoteData implements Supplier<UUID> {
              * @return given keyframe
              */
             public int findAtTick(int tick) {
-                int i = -1;
-                while (this.keyFrames.size() > i + 1 && this.keyFrames.get(i + 1).tick <= tick) {
+                int low = 0;
+                int high = size;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (ticks[mid] <= tick) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                return low - 1;
+            }
+
+            /**
+             * Find the last keyframe's number before the tick, walking forward from a previous result.
+             * Seeking backwards or far ahead falls back to binary search.
+             *
+             * @param tick tick
+             * @param from previous result, -1 if none
+             * @return given keyframe
+             */
+            public int findAtTick(int tick, int from) {
+                if (from < -1 || from >= size || from != -1 && ticks[from] > tick) {
+                    return findAtTick(tick);
+                }
+                int i = from;
+                for (int steps = 0; size > i + 1 && ticks[i + 1] <= tick; steps++) {
+                    if (steps == MAX_CURSOR_STEPS) return findAtTick(tick);
                     i++;
                 }
                 return i;
@@ -409,9 +581,9 @@ public final class EmoteData implements Supplier<UUID> {
              */
             public boolean addKeyFrame(int tick, float value, Ease ease, int rotate, boolean degrees) {
                 if (degrees && this.isAngle) value *= 0.01745329251f;
-                boolean bl = this.addKeyFrame(new KeyFrame(tick, value, ease));
+                boolean bl = this.putKeyFrame(tick, value, ease.getId());
                 if (isAngle && rotate != 0) {
-                    bl = this.addKeyFrame(new KeyFrame(tick, (float) (value + Math.PI * 2d * rotate), ease)) && bl;
+                    bl = this.putKeyFrame(tick, (float) (value + Math.PI * 2d * rotate), ease.getId()) && bl;
                 }
                 return bl;
             }
@@ -425,51 +597,192 @@ public final class EmoteData implements Supplier<UUID> {
              * @return is the keyframe valid
              */
             public boolean addKeyFrame(int tick, float value, Ease ease) {
+                return this.addKeyFrame(tick, value, ease.getId());
+            }
+
+            /**
+             * Add a new keyframe to the emote with an ease ID, custom easings from {@link Easing} can be used too
+             *
+             * @param tick   where
+             * @param value  what value
+             * @param easeId with what easing
+             * @return is the keyframe valid
+             */
+            public boolean addKeyFrame(int tick, float value, byte easeId) {
                 if (Float.isNaN(value)) throw new IllegalArgumentException("value can't be NaN");
-                return this.addKeyFrame(new KeyFrame(tick, value, ease));
+                return this.putKeyFrame(tick, value, easeId);
+            }
+
+            /**
+             * Add many keyframes at once, like a decoded track.
+             * If the state is empty and the ticks are sorted, the arrays are used as the packed storage without copying,
+             * don't modify them after. Otherwise it falls back to sorted insertion, the result is the same as adding them one by one.
+             *
+             * @param ticks   ticks of the keyframes
+             * @param values  values of the keyframes
+             * @param easeIds ease IDs of the keyframes
+             * @param length  count of the keyframes, the arrays may be longer
+             * @return every keyframe is valid
+             */
+            public boolean addKeyFrames(int[] ticks, float[] values, byte[] easeIds, int length) {
+                if (length > ticks.length || length > values.length || length > easeIds.length) {
+                    throw new IndexOutOfBoundsException("Length: " + length);
+                }
+                boolean sorted = this.size == 0;
+                boolean valid = true;
+                for (int i = 0; i < length; i++) {
+                    float value = values[i];
+                    if (Float.isNaN(value)) throw new IllegalArgumentException("value can't be NaN");
+                    if (i != 0 && ticks[i - 1] > ticks[i]) sorted = false;
+                    if (!this.isAngle && Math.abs(this.defaultValue - value) > this.threshold) valid = false;
+                }
+                this.isEnabled = true;
+                if (sorted) {
+                    this.ticks = ticks;
+                    this.values = values;
+                    this.easeIds = easeIds;
+                    this.size = length;
+                    modified();
+                }
+                else {
+                    for (int i = 0; i < length; i++) {
+                        insert(findAtTick(ticks[i]) + 1, ticks[i], values[i], easeIds[i]);
+                    }
+                }
+                return valid;
             }
 
             /**
              * Internal add keyframe method
              *
-             * @param keyFrame what
              * @return is valid keyframe
              */
-            private boolean addKeyFrame(KeyFrame keyFrame) {
+            private boolean putKeyFrame(int tick, float value, byte easeId) {
                 this.isEnabled = true;
-                int i = findAtTick(keyFrame.tick) + 1;
-                this.keyFrames.add(i, keyFrame);
-                return this.isAngle || !(Math.abs(this.defaultValue - keyFrame.value) > this.threshold);
+                insert(findAtTick(tick) + 1, tick, value, easeId);
+                return this.isAngle || !(Math.abs(this.defaultValue - value) > this.threshold);
+            }
+
+            private void insert(int pos, int tick, float value, byte easeId) {
+                if (pos < 0 || pos > size) throw new IndexOutOfBoundsException("Index: " + pos + ", Size: " + size);
+                if (size == ticks.length) {
+                    int capacity = Math.max(size * 2, 4);
+                    ticks = Arrays.copyOf(ticks, capacity);
+                    values = Arrays.copyOf(values, capacity);
+                    easeIds = Arrays.copyOf(easeIds, capacity);
+                }
+                System.arraycopy(ticks, pos, ticks, pos + 1, size - pos);
+                System.arraycopy(values, pos, values, pos + 1, size - pos);
+                System.arraycopy(easeIds, pos, easeIds, pos + 1, size - pos);
+                ticks[pos] = tick;
+                values[pos] = value;
+                easeIds[pos] = easeId;
+                size++;
+                modified();
+            }
+
+            private void remove(int pos) {
+                checkIndex(pos);
+                System.arraycopy(ticks, pos + 1, ticks, pos, size - pos - 1);
+                System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+                System.arraycopy(easeIds, pos + 1, easeIds, pos, size - pos - 1);
+                size--;
+                modified();
+            }
+
+            private void set(int pos, int tick, float value, byte easeId) {
+                checkIndex(pos);
+                ticks[pos] = tick;
+                values[pos] = value;
+                easeIds[pos] = easeId;
+                modified();
+            }
+
+            /**
+             * Drop the unused capacity
+             */
+            private void trimToSize() {
+                if (ticks.length != size) {
+                    ticks = Arrays.copyOf(ticks, size);
+                    values = Arrays.copyOf(values, size);
+                    easeIds = Arrays.copyOf(easeIds, size);
+                }
             }
 
             public void replace(KeyFrame keyFrame, int pos) {
-                this.keyFrames.remove(pos);
-                this.keyFrames.add(pos, keyFrame);
+                set(pos, keyFrame.tick, keyFrame.value, keyFrame.ease.getId());
             }
 
             public void replaceEase(int pos, Ease ease) {
-                KeyFrame original = this.keyFrames.get(pos);
-                replace(new KeyFrame(original.tick, original.value, ease), pos);
+                set(pos, getTick(pos), getValue(pos), ease.getId());
             }
 
             protected void optimize(boolean isLooped, int returnToTick) {
-                for (int i = 1; i < this.keyFrames.size() - 1; i++) {
-                    if (keyFrames.get(i - 1).value != keyFrames.get(i).value) {
+                for (int i = 1; i < this.size - 1; i++) {
+                    if (values[i - 1] != values[i]) {
                         continue;
                     }
-                    if (keyFrames.size() <= i + 1 || keyFrames.get(i).value != keyFrames.get(i + 1).value) {
+                    if (size <= i + 1 || values[i] != values[i + 1]) {
                         continue;
                     }
-                    if (isLooped && keyFrames.get(i - 1).tick < returnToTick && keyFrames.get(i).tick >= returnToTick) {
+                    if (isLooped && ticks[i - 1] < returnToTick && ticks[i] >= returnToTick) {
                         continue;
                     }
-                    keyFrames.remove(i--);
+                    remove(i--);
                 }
             }
 
             public State copy() {
                 return new State(this);
             }
+
+            public int getModificationCount() {
+                return modCount;
+            }
+
+            private void modified() {
+                modCount++;
+                if (counter != null) counter.count++;
+            }
+
+            void bind(ModificationCounter counter) {
+                if (this.counter == counter) return;
+                this.counter = counter;
+                counter.count += modCount;
+            }
+
+            private final class KeyFrameList extends AbstractList<KeyFrame> implements RandomAccess {
+                @Override
+                public KeyFrame get(int index) {
+                    return new KeyFrame(getTick(index), getValue(index), getEase(index));
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public KeyFrame set(int index, KeyFrame element) {
+                    KeyFrame old = get(index);
+                    replace(element, index);
+                    return old;
+                }
+
+                @Override
+                public void add(int index, KeyFrame element) {
+                    insert(index, element.tick, element.value, element.ease.getId());
+                    this.modCount++;
+                }
+
+                @Override
+                public KeyFrame remove(int index) {
+                    KeyFrame old = get(index);
+                    State.this.remove(index);
+                    this.modCount++;
+                    return old;
+                }
+            }
         }
     }
 
@@ -499,9 +812,13 @@ public final class EmoteData implements Supplier<UUID> {
 
         @Override
         public int hashCode() {
+            return hashCode(tick, value, ease.getId());
+        }
+
+        static int hashCode(int tick, float value, byte easeId) {
             int result = tick;
             result = 31 * result + Float.hashCode(value);
-            result = 31 * result + ease.getId();
+            result = 31 * result + easeId;
             return result;
         }
     }
@@ -539,6 +856,7 @@ public final class EmoteData implements Supplier<UUID> {
         final EmoteFormat emoteEmoteFormat;
 
         private final float validationThreshold;
+        private final ModificationCounter modificationCounter = new ModificationCounter();
 
         public String name = null;
         @Nullable
@@ -643,7 +961,9 @@ public final class EmoteData implements Supplier<UUID> {
          */
         public StateCollection getOrCreateNewPart(String name, float x, float y, float z, float pitch, float yaw, float roll, boolean bendable) {
             if (!bodyParts.containsKey(name)) {
-                bodyParts.put(name, new StateCollection(x, y, z, pitch, yaw, roll, name, validationThreshold, bendable));
+                StateCollection part = new StateCollection(x, y, z, pitch, yaw, roll, name, validationThreshold, bendable);
+                part.bind(modificationCounter);
+                bodyParts.put(name, part);
             }
             return bodyParts.get(name);
         }
@@ -679,7 +999,10 @@ public final class EmoteData implements Supplier<UUID> {
         }
 
         public EmoteData build() {
-            return new EmoteData(beginTick, endTick, stopTick, isLooped, returnTick, bodyParts, isEasingBefore, nsfw, uuid, name, description, author, emoteEmoteFormat, iconData, song);
+            for (StateCollection part : bodyParts.values()) {
+                part.trimToSize();
+            }
+            return new EmoteData(beginTick, endTick, stopTick, isLooped, returnTick, bodyParts, isEasingBefore, nsfw, uuid, name, description, author, emoteEmoteFormat, iconData, song, modificationCounter);
         }
 
         public EmoteBuilder setUuid(UUID uuid) {
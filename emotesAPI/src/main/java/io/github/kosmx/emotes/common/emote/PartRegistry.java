@@ -0,0 +1,90 @@
+package io.github.kosmx.emotes.common.emote;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned body part names.
+ * Every part name gets a small int ID, the animation pipeline can index arrays with it instead of hashing strings.
+ * IDs are only valid in the current runtime, don't send or save them.
+ * The registry never shrinks, only the renderers register parts, the names of received or loaded emotes aren't registered.
+ */
+@ThreadSafe
+public final class PartRegistry {
+    public static final int HEAD = 0;
+    public static final int BODY = 1;
+    public static final int RIGHT_ARM = 2;
+    public static final int LEFT_ARM = 3;
+    public static final int RIGHT_LEG = 4;
+    public static final int LEFT_LEG = 5;
+    public static final int RIGHT_ITEM = 6;
+    public static final int LEFT_ITEM = 7;
+    public static final int TORSO = 8;
+
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[0];
+
+    static {
+        register("head");
+        register("body");
+        register("rightArm");
+        register("leftArm");
+        register("rightLeg");
+        register("leftLeg");
+        register("rightItem");
+        register("leftItem");
+        register("torso");
+    }
+
+    private PartRegistry() {
+    }
+
+    /**
+     * Get the ID of a part, register it if it is new
+     * Use it for the parts what the renderer knows, not for the names of the emotes.
+     * @param name part name
+     * @return part ID
+     */
+    public static int getId(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : register(name);
+    }
+
+    /**
+     * Get the ID of a part without registering it
+     * @param name part name
+     * @return part ID or -1 if the part is not registered
+     */
+    public static int findId(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @param id part ID
+     * @return part name
+     * @throws IndexOutOfBoundsException if the ID is not registered
+     */
+    public static String getName(int id) {
+        return names[id];
+    }
+
+    /**
+     * @return count of the registered parts, every ID is smaller than this
+     */
+    public static int size() {
+        return names.length;
+    }
+
+    private static synchronized int register(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        String[] newNames = Arrays.copyOf(names, names.length + 1);
+        newNames[names.length] = name;
+        names = newNames;
+        ids.put(name, names.length - 1);
+        return names.length - 1;
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.kosmx.emotes.common.network;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+/**
+ * Small pool of reusable byte buffers for platforms without their own pooled allocator.
+ * Buffers are kept in power of two sizes from 1 KB to 1 MB, bigger buffers are allocated and dropped.
+ *
+ * Don't use a buffer after releasing it and don't release it twice.
+ */
+@ThreadSafe
+public final class BufferPool {
+    /**
+     * Heap buffers, the codec uses it for compression and splitting
+     */
+    public static final BufferPool HEAP = new BufferPool(false, 4);
+
+    private static final int MIN_SHIFT = 10; //1 KB
+    private static final int MAX_SHIFT = 20; //1 MB
+
+    private final boolean direct;
+    private final int buffersPerSize;
+    private final ArrayDeque<ByteBuffer>[] pools;
+
+    /**
+     * @param direct allocate direct buffers
+     * @param buffersPerSize max count of the idle buffers of one size
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BufferPool(boolean direct, int buffersPerSize) {
+        this.direct = direct;
+        this.buffersPerSize = buffersPerSize;
+        this.pools = new ArrayDeque[MAX_SHIFT - MIN_SHIFT + 1];
+        for (int i = 0; i < pools.length; i++) {
+            pools[i] = new ArrayDeque<>(buffersPerSize);
+        }
+    }
+
+    /**
+     * Get a buffer
+     * @param size required size
+     * @return buffer at position 0 with its limit set to the size, the capacity might be bigger
+     */
+    public ByteBuffer acquire(int size) {
+        if (size < 0) throw new IllegalArgumentException("Negative buffer size: " + size);
+        int index = indexOf(size);
+        ByteBuffer buffer = null;
+        if (index >= 0) {
+            ArrayDeque<ByteBuffer> pool = pools[index];
+            synchronized (pool) {
+                buffer = pool.pollLast();
+            }
+            if (buffer == null) buffer = allocate(1 << (index + MIN_SHIFT));
+        }
+        else {
+            buffer = allocate(size);
+        }
+        ((Buffer) buffer).clear();
+        ((Buffer) buffer).limit(size);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * Give back a buffer from {@link #acquire(int)}, other buffers are ignored
+     * @param buffer the buffer
+     */
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (buffer.isDirect() != direct || buffer.isReadOnly() || Integer.bitCount(capacity) != 1) return;
+        int index = Integer.numberOfTrailingZeros(capacity) - MIN_SHIFT;
+        if (index < 0 || index >= pools.length) return;
+        ArrayDeque<ByteBuffer> pool = pools[index];
+        synchronized (pool) {
+            for (ByteBuffer idle : pool) {
+                if (idle == buffer) throw new IllegalStateException("Buffer is already released");
+            }
+            if (pool.size() < buffersPerSize) pool.addLast(buffer);
+        }
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * @return index of the smallest pooled size what can hold it, -1 if it is too big
+     */
+    private static int indexOf(int size) {
+        if (size <= 1 << MIN_SHIFT) return 0;
+        int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return shift <= MAX_SHIFT ? shift - MIN_SHIFT : -1;
+    }
+}
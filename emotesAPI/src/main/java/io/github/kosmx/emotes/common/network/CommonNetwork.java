@@ -30,9 +30,18 @@ public class CommonNetwork {
 
     //copied from MC
     public static String readVarString(ByteBuffer buf) throws IOException {
+        return readVarString(buf, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxLength max length of the encoded string in bytes
+     */
+    public static String readVarString(ByteBuffer buf, int maxLength) throws IOException {
         int j = readVarInt(buf);
         if (j < 0) {
             throw new IOException("The received encoded string buffer length is less than zero! Weird string!");
+        } else if (j > maxLength || j > buf.remaining()) {
+            throw new IOException("The received encoded string buffer length is too long: " + j);
         } else {
             byte[] bytes = new byte[j];
             buf.get(bytes);
@@ -81,4 +90,28 @@ public class CommonNetwork {
 
         buf.put((byte) i);
     }
+
+    /**
+     * @param i value
+     * @return byte count of the value written by {@link #writeVarInt(ByteBuffer, int)}
+     */
+    public static int varIntSize(int i){
+        int size = 1;
+        while((i & - 128) != 0){
+            size++;
+            i >>>= 7;
+        }
+        return size;
+    }
+
+    /**
+     * ZigZag encoding, small negative numbers will be small var ints too
+     */
+    public static int zigZag(int i){
+        return (i << 1) ^ (i >> 31);
+    }
+
+    public static int unZigZag(int i){
+        return (i >>> 1) ^ -(i & 1);
+    }
 }
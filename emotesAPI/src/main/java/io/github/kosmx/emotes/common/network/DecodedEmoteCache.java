@@ -0,0 +1,174 @@
+package io.github.kosmx.emotes.common.network;
+
+import io.github.kosmx.emotes.common.emote.EmoteData;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Already decoded and validated emotes, keyed by a digest of the received emote data sub-packet.
+ * Players replay the same emotes, a hit skips the decoding and the validation and returns the same {@link EmoteData} instance.
+ * The start tick is not part of the key, the same emote started at a different tick is a hit.
+ *
+ * Only emotes without song, header and icon are cached, these are the most of the streamed emotes.
+ * The returned emote is shared, don't modify it.
+ */
+@ThreadSafe
+public final class DecodedEmoteCache {
+    public static final DecodedEmoteCache INSTANCE = new DecodedEmoteCache(256, 0x200000);
+
+    private final int maxEntries;
+    private final int maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int cachedBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param maxEntries max count of cached emotes
+     * @param maxBytes max sum of the cached sub-packet sizes
+     */
+    public DecodedEmoteCache(int maxEntries, int maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param key received sub-packet
+     * @return the cached entry or null
+     */
+    @Nullable
+    synchronized Entry get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null) hits++;
+        else misses++;
+        return entry;
+    }
+
+    /**
+     * @param key received sub-packet, it is copied
+     * @param emote decoded emote
+     * @param valid the emote passed the validation
+     */
+    void put(Key key, EmoteData emote, boolean valid) {
+        int size = key.payload.remaining();
+        if (size > maxBytes / 4) return;
+        Key copy = key.copy();
+        synchronized (this) {
+            Entry old = entries.put(copy, new Entry(emote, valid, size));
+            cachedBytes += size - (old != null ? old.size : 0);
+            Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext() && (entries.size() > maxEntries || cachedBytes > maxBytes)) {
+                cachedBytes -= iterator.next().getValue().size;
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        cachedBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return count of the lookups what found the emote
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return count of the lookups what had to decode the emote
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    static final class Entry {
+        final EmoteData emote;
+        final boolean valid;
+        final int size;
+
+        Entry(EmoteData emote, boolean valid, int size) {
+            this.emote = emote;
+            this.valid = valid;
+            this.size = size;
+        }
+    }
+
+    /**
+     * The sub-packet's version, the validation threshold and the payload after the start tick.
+     * The lookup key is a view of the received buffer, it is copied only when it gets cached.
+     */
+    static final class Key {
+        private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+        private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+        final byte version;
+        final int threshold;
+        final ByteBuffer payload;
+        private final long digest;
+
+        /**
+         * @param payload the sub-packet after the start tick, from its position to its limit
+         */
+        Key(byte version, float threshold, ByteBuffer payload) {
+            this(version, Float.floatToIntBits(threshold), payload.slice(), digest(payload));
+        }
+
+        private Key(byte version, int threshold, ByteBuffer payload, long digest) {
+            this.version = version;
+            this.threshold = threshold;
+            this.payload = payload;
+            this.digest = digest;
+        }
+
+        Key copy() {
+            ByteBuffer copy = ByteBuffer.allocate(payload.remaining());
+            copy.put(payload.duplicate());
+            ((Buffer) copy).flip();
+            return new Key(version, threshold, copy, digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return digest == key.digest && version == key.version && threshold == key.threshold && payload.equals(key.payload);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (digest ^ digest >>> 32);
+        }
+
+        /**
+         * Fast non-cryptographic 64-bit digest, equality is checked on the bytes anyway
+         */
+        private static long digest(ByteBuffer buf) {
+            int pos = buf.position();
+            int end = buf.limit();
+            long hash = PRIME_2 ^ (end - pos) * PRIME_1;
+            for (; pos + 8 <= end; pos += 8) {
+                hash = Long.rotateLeft(hash ^ buf.getLong(pos) * PRIME_2, 31) * PRIME_1;
+            }
+            for (; pos < end; pos++) {
+                hash = Long.rotateLeft(hash ^ (buf.get(pos) & 0xFF) * PRIME_1, 11) * PRIME_2;
+            }
+            hash ^= hash >>> 33;
+            hash *= PRIME_2;
+            hash ^= hash >>> 29;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package io.github.kosmx.emotes.common.network;
+
+import io.github.kosmx.emotes.common.emote.EmoteData;
+import io.github.kosmx.emotes.common.network.objects.EmoteDataPacket;
+import io.github.kosmx.emotes.common.opennbs.NBS;
+import io.github.kosmx.emotes.common.opennbs.network.NBSPacket;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Received emotes are deduplicated here, the same emote played by many players is the same {@link EmoteData} instance.
+ * Derived data of the emote, like baked sample tables, is computed only once this way.
+ *
+ * Emotes are matched by UUID and content hash then compared, the local emote with the same UUID is preferred.
+ * Only the animation is compared: streamed emotes have no icon and their values are quantized,
+ * see {@link EmoteDataPacket#QUANTIZATION_MAX_ERROR}.
+ * The table holds the emotes weakly, an emote is dropped when no player uses it anymore.
+ */
+@ThreadSafe
+public final class EmoteInternTable {
+    /**
+     * Max difference of two values of the same animation, the rounding of the dequantization is included
+     */
+    private static final float VALUE_TOLERANCE = EmoteDataPacket.QUANTIZATION_MAX_ERROR * 2;
+
+    private static final HashMap<Key, Ref> table = new HashMap<>();
+    private static final ReferenceQueue<EmoteData> queue = new ReferenceQueue<>();
+
+    private EmoteInternTable(){}
+
+    /**
+     * Get the shared instance of an emote
+     * @param emote received emote
+     * @param local the local emote with the same UUID, maybe null
+     * @return the local emote or an already used emote with the same animation, the emote itself if there is none
+     */
+    public static EmoteData intern(EmoteData emote, @Nullable EmoteData local) {
+        if (local != null && isSameAnimation(local, emote)) {
+            return local;
+        }
+
+        Key key = new Key(emote.getUuid(), emote.hashCode());
+        synchronized (table) {
+            expungeStaleEntries();
+            Ref ref = table.get(key);
+            EmoteData interned = ref != null ? ref.get() : null;
+            if (interned != null) {
+                if (isSameAnimation(interned, emote)) return interned;
+                return emote; //Hash collision, keep the older one
+            }
+            table.put(key, new Ref(key, emote, queue));
+            return emote;
+        }
+    }
+
+    /**
+     * Can the interned emote be played instead of the received one.
+     * The icon and the header are not part of the animation, the song is compared by its content.
+     */
+    public static boolean isSameAnimation(EmoteData interned, EmoteData emote) {
+        if (interned == emote) return true;
+        if (!interned.getUuid().equals(emote.getUuid())) return false;
+        if (interned.nsfw != emote.nsfw
+                || interned.beginTick != emote.beginTick
+                || interned.endTick != emote.endTick
+                || interned.stopTick != emote.stopTick
+                || interned.isInfinite != emote.isInfinite
+                || interned.returnToTick != emote.returnToTick
+                || interned.isEasingBefore != emote.isEasingBefore) return false;
+        if (!isSameSong(interned.song, emote.song)) return false;
+
+        if (interned.bodyParts.size() != emote.bodyParts.size()) return false;
+        for (Map.Entry<String, EmoteData.StateCollection> entry : interned.bodyParts.entrySet()) {
+            EmoteData.StateCollection part = emote.bodyParts.get(entry.getKey());
+            if (part == null || !isSamePart(entry.getValue(), part)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isSamePart(EmoteData.StateCollection a, EmoteData.StateCollection b) {
+        if (a.isBendable != b.isBendable) return false;
+        if (!isSameAxis(a.x, b.x) || !isSameAxis(a.y, b.y) || !isSameAxis(a.z, b.z)) return false;
+        if (!isSameAxis(a.pitch, b.pitch) || !isSameAxis(a.yaw, b.yaw) || !isSameAxis(a.roll, b.roll)) return false;
+        return !a.isBendable || isSameAxis(a.bend, b.bend) && isSameAxis(a.bendDirection, b.bendDirection);
+    }
+
+    private static boolean isSameAxis(EmoteData.StateCollection.State a, EmoteData.StateCollection.State b) {
+        if (a.isEnabled != b.isEnabled || a.length() != b.length()) return false;
+        for (int i = 0; i < a.length(); i++) {
+            if (a.getTick(i) != b.getTick(i) || a.getEaseId(i) != b.getEaseId(i)) return false;
+            if (!(Math.abs(a.getValue(i) - b.getValue(i)) <= VALUE_TOLERANCE)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Songs don't have equals, the network form of the song is compared
+     */
+    private static boolean isSameSong(@Nullable NBS a, @Nullable NBS b) {
+        if (a == b) return true;
+        if (a == null || b == null) return false;
+        int size = NBSPacket.calculateMessageSize(a);
+        if (size != NBSPacket.calculateMessageSize(b)) return false;
+        ByteBuffer bufA = ByteBuffer.allocate(size);
+        ByteBuffer bufB = ByteBuffer.allocate(size);
+        new NBSPacket(a).write(bufA);
+        new NBSPacket(b).write(bufB);
+        ((Buffer) bufA).flip();
+        ((Buffer) bufB).flip();
+        return bufA.equals(bufB);
+    }
+
+    private static void expungeStaleEntries() {
+        for (Object ref; (ref = queue.poll()) != null; ) {
+            Key key = ((Ref) ref).key;
+            if (table.get(key) == ref) table.remove(key);
+        }
+    }
+
+    private static final class Ref extends WeakReference<EmoteData> {
+        final Key key;
+
+        Ref(Key key, EmoteData emote, ReferenceQueue<EmoteData> queue) {
+            super(emote, queue);
+            this.key = key;
+        }
+    }
+
+    private static final class Key {
+        final UUID uuid;
+        final int hash;
+
+        Key(UUID uuid, int hash) {
+            this.uuid = uuid;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hash == key.hash && uuid.equals(key.uuid);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * uuid.hashCode() + hash;
+        }
+    }
+}
@@ -1,159 +1,71 @@
 package io.github.kosmx.emotes.common.network;
 
-import io.github.kosmx.emotes.common.CommonData;
 import io.github.kosmx.emotes.common.emote.EmoteData;
-import io.github.kosmx.emotes.common.network.objects.*;
+import io.github.kosmx.emotes.common.network.objects.EmoteReferencePacket;
+import io.github.kosmx.emotes.common.network.objects.NetData;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.nio.Buffer;
 import java.nio.ByteBuffer;
-import java.util.HashMap;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Send everything emotes mod data...
+ * It is a facade over {@link EmotePacketCodec}, creating it doesn't allocate anything else.
  */
 public class EmotePacket {
-    public static final HashMap<Byte, Byte> defaultVersions = new HashMap<>();
-
-    static {
-        AbstractNetworkPacket tmp = new EmoteDataPacket();
-        defaultVersions.put(tmp.getID(), tmp.getVer());
-        tmp = new PlayerDataPacket();
-        defaultVersions.put(tmp.getID(), tmp.getVer());
-        tmp = new DiscoveryPacket();
-        defaultVersions.put(tmp.getID(), tmp.getVer());
-        tmp = new StopPacket();
-        defaultVersions.put(tmp.getID(), tmp.getVer());
-        tmp = new SongPacket();
-        defaultVersions.put(tmp.getID(), tmp.getVer());
-        tmp = new EmoteHeaderPacket();
-        defaultVersions.put(tmp.getID(), tmp.getVer());
-        tmp = new EmoteIconPacket();
-        defaultVersions.put(tmp.getID(), tmp.getVer());
-    }
-
-    public final NetHashMap subPackets = new NetHashMap();
+    public static final VersionTable defaultVersions = EmotePacketCodec.INSTANCE.createDefaultVersions();
 
     public final NetData data;
 
-    int version;
-
     protected EmotePacket(@Nullable NetData data) {
-        //Make sure every packet has a version...
-        if(data.versions == null)data.versions = new HashMap<>();
-        defaultVersions.forEach((aByte, bByte) -> {
-            if(!data.versions.containsKey(aByte)){
-                data.versions.put(aByte, bByte);
-            }
-        });
-
         this.data = data;
-        subPackets.put(new EmoteDataPacket());
-        subPackets.put(new PlayerDataPacket());
-        subPackets.put(new StopPacket());
-        subPackets.put(new DiscoveryPacket());
-        subPackets.put(new SongPacket());
-        subPackets.put(new EmoteHeaderPacket());
-        subPackets.put(new EmoteIconPacket());
     }
 
     //Write packet to a new ByteBuf
+    //If the other side supports it, big packets are compressed and the size limit applies to the compressed packet
     public ByteBuffer write() throws IOException {
-        if(data.purpose == PacketTask.UNKNOWN)throw new IllegalArgumentException("Can't send packet without any purpose...");
-        AtomicReference<Byte> partCount = new AtomicReference<>((byte) 0);
-        AtomicInteger sizeSum = new AtomicInteger(6); //5 bytes is the header
-        subPackets.forEach((aByte, packet) -> {
-            if(packet.doWrite(this.data)){
-                if(!(packet instanceof SongPacket)){
-                    partCount.getAndSet((byte) (partCount.get() + 1));
-                    sizeSum.addAndGet(packet.calculateSize(this.data) + 6); //it's size + the header
-                }
-            }
-        });
-        if(sizeSum.get() > data.sizeLimit)throw new IOException("Can't send emote, packet's size is bigger than max allowed");
-        SongPacket songPacket = (SongPacket) subPackets.get((byte)3);
-        int songSize = songPacket.calculateSize(this.data) + 6;
-        if(songPacket.doWrite(this.data) && sizeSum.get() + songSize <= data.sizeLimit){
-            partCount.getAndSet((byte) (partCount.get() + 1));
-            sizeSum.addAndGet(songSize);
-        }
-        else data.writeSong = false;
-
-        ByteBuffer buf = ByteBuffer.allocate(sizeSum.get());
+        return EmotePacketCodec.INSTANCE.write(this.data);
+    }
 
-        buf.putInt(subPackets.get((byte)8).getVer(data.versions));
-        buf.put(data.purpose.id);
-        buf.put(partCount.get());
+    /**
+     * Write packet into a caller-supplied heap or direct buffer at its position
+     * @param target destination buffer
+     * @return size of the written packet
+     * @throws IOException if the packet doesn't fit into the buffer or the writing has failed
+     */
+    public int write(ByteBuffer target) throws IOException {
+        int start = target.position();
+        EmotePacketCodec.INSTANCE.write(this.data, new PacketSink() {
+            @Override
+            public ByteBuffer allocate(int size) throws IOException {
+                if (target.remaining() < size) throw new IOException("Packet doesn't fit into the buffer: " + size + " bytes");
+                return target;
+            }
 
-        AtomicBoolean ex = new AtomicBoolean(false);
-        subPackets.forEach((aByte, packet) -> {
-            try {
-                writeSubPacket(buf, packet);
-            } catch (IOException exception) {
-                exception.printStackTrace();
-                ex.set(true);
+            @Override
+            public void send(ByteBuffer frame) {
             }
-        });
-        if(ex.get())throw new IOException("Exception while writing sub-packages");
-        return buf;
+        }, Integer.MAX_VALUE, false);
+        return target.position() - start;
     }
 
-    void writeSubPacket(ByteBuffer byteBuffer, AbstractNetworkPacket packetSender) throws IOException {
-        if(packetSender.doWrite(this.data)){
-            //This is not time critical task, HeapByteBuf is more secure and I can wrap it again.
-            int len = packetSender.calculateSize(this.data);
-            byteBuffer.put(packetSender.getID());
-            byteBuffer.put(packetSender.getVer(data.versions));
-            byteBuffer.putInt(len);
-            int currentIndex = byteBuffer.position();
-            packetSender.write(byteBuffer, this.data);
-            if(byteBuffer.position() != currentIndex + len){
-                throw new IOException("Incorrect size calculator");
-            }
-        }
+    /**
+     * Write packet into buffers supplied by the sink, like the platform's own pooled buffers.
+     * The packet is split into frames if it is bigger than maxDataSize and the other side can reassemble it.
+     * @param sink destination of the frames
+     * @param maxDataSize max size of one frame
+     * @param remoteVersions versions of the other side, see {@link PacketFragment#isSupported(VersionTable)}
+     * @return count of the sent frames
+     * @throws IOException if the packet is too big, the writing or the sink has failed
+     */
+    public int write(PacketSink sink, int maxDataSize, @Nullable VersionTable remoteVersions) throws IOException {
+        return EmotePacketCodec.INSTANCE.write(this.data, sink, maxDataSize, PacketFragment.isSupported(remoteVersions));
     }
 
     @Nullable
     public NetData read(ByteBuffer byteBuffer) throws IOException {
-
-        try {
-            this.version = byteBuffer.getInt();
-            if (this.version > CommonData.networkingVersion) throw new IOException("Can't read newer version");
-            data.purpose = PacketTask.getTaskFromID(byteBuffer.get());
-
-            byte count = byteBuffer.get();
-
-            for (int i = 0; i < count; i++) {
-                byte id = byteBuffer.get();
-                byte sub_version = byteBuffer.get();
-                int size = byteBuffer.getInt();
-                int currentPos = byteBuffer.position();
-                if (subPackets.containsKey(id)) {
-                    if(!subPackets.get(id).read(byteBuffer, this.data, sub_version)){
-                        throw new IOException("Invalid " + subPackets.get(id).getClass().getName() + " sub-packet received");
-                    }
-                    if (byteBuffer.position() != size + currentPos) {
-                        ((Buffer)byteBuffer).position(currentPos + size);
-                    }
-                }
-                else {
-                    ((Buffer)byteBuffer).position(currentPos + size);
-                    //byteBuffer.position(currentPos + size);//Skip unknown sub-packets...
-                }
-            }
-
-            if (data.prepareAndValidate()) return this.data;
-            else return null;
-        }
-        catch (RuntimeException e){
-            e.printStackTrace();
-            throw new IOException(e.getClass().getTypeName() + " has occurred: " + e.getMessage());
-        }
+        return EmotePacketCodec.INSTANCE.read(byteBuffer, this.data);
     }
 
     /**
@@ -165,7 +77,7 @@ public class EmotePacket {
         /**
          * To send an emote
          */
-        public Builder setVersion(HashMap<Byte, Byte> versions){
+        public Builder setVersion(VersionTable versions){
             data.versions = versions;
             return this;
         }
@@ -221,6 +133,20 @@ public class EmotePacket {
             return this;
         }
 
+        /**
+         * Stream only the emote's UUID, use it if the other side knows the emote
+         * see {@link EmoteReferencePacket#isSupported(VersionTable)}
+         */
+        public Builder configureStreamByReference(boolean streamByReference){
+            data.streamByReference = streamByReference;
+            return this;
+        }
+
+        @Nullable
+        public EmoteData getEmoteData(){
+            return data.emoteData;
+        }
+
         public Builder configureEmoteTick(int tick){
             this.data.tick = tick;
             return this;
@@ -250,10 +176,9 @@ public class EmotePacket {
         public Builder configureToConfigExchange(boolean songEnabled){
             if(data.purpose != PacketTask.UNKNOWN)throw new IllegalArgumentException("Can't send config with emote or stop data...");
             data.purpose = PacketTask.CONFIG;
-            HashMap<Byte, Byte> versions = new HashMap<>();
-            EmotePacket.defaultVersions.forEach(versions::put);
+            VersionTable versions = EmotePacket.defaultVersions;
             if(!songEnabled){
-                versions.replace((byte)3, (byte)0);
+                versions = versions.with((byte)3, (byte)0);
             }
             this.data.versions = versions;
             return this;
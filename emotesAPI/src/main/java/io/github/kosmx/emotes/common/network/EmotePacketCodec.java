@@ -0,0 +1,342 @@
+package io.github.kosmx.emotes.common.network;
+
+import io.github.kosmx.emotes.common.CommonData;
+import io.github.kosmx.emotes.common.network.objects.*;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Encoder and decoder of {@link EmotePacket}s.
+ * It doesn't have any per message state, use {@link #INSTANCE} from any thread.
+ * Versions are looked up in the {@link VersionTable} of the message, missing versions are resolved with the fallback versions.
+ */
+@ThreadSafe
+public final class EmotePacketCodec {
+    public static final EmotePacketCodec INSTANCE = new EmotePacketCodec();
+
+    private static final int HEADER_SIZE = 6; //int version, byte purpose, byte count
+    private static final int SUB_HEADER_SIZE = 6; //byte id, byte version, int size
+    private static final byte EMOTE_DATA_ID = 0;
+    private static final byte SONG_ID = 3;
+    private static final byte DISCOVERY_ID = 8;
+
+    /**
+     * Sub-packet handlers in the order of writing
+     */
+    private final AbstractNetworkPacket[] subPackets = {
+            new EmoteDataPacket(),
+            new PlayerDataPacket(),
+            new SongPacket(),
+            new DiscoveryPacket(),
+            new StopPacket(),
+            new EmoteHeaderPacket(),
+            new EmoteIconPacket(),
+            new EmoteReferencePacket()
+    };
+    private final AbstractNetworkPacket[] byId = new AbstractNetworkPacket[256];
+    private final int songIndex;
+    /**
+     * Versions used if the other side didn't tell them.
+     * Older versions can't read emote data version 2, compressed or fragmented packets, these are sent only if the other side supports it.
+     */
+    private final byte[] fallbackVersions = new byte[256];
+
+    private EmotePacketCodec() {
+        int song = -1;
+        for (int i = 0; i < subPackets.length; i++) {
+            AbstractNetworkPacket packet = subPackets[i];
+            byId[packet.getID() & 0xFF] = packet;
+            fallbackVersions[packet.getID() & 0xFF] = packet.getVer();
+            if (packet.getID() == SONG_ID) song = i;
+        }
+        songIndex = song;
+        fallbackVersions[0] = 1;
+    }
+
+    /**
+     * @return versions of every sub-packet what this side can read
+     */
+    VersionTable createDefaultVersions() {
+        VersionTable versions = VersionTable.EMPTY;
+        for (AbstractNetworkPacket packet : subPackets) {
+            versions = versions.with(packet.getID(), packet.getVer());
+        }
+        return versions.with(PacketCompression.ID, PacketCompression.VERSION).with(PacketFragment.ID, PacketFragment.VERSION);
+    }
+
+    /**
+     * Write a message to a new heap buffer.
+     * If the other side supports it, big packets are compressed and the size limit applies to the compressed packet.
+     * {@link NetData#writeSong} is cleared if the song didn't fit.
+     * @param data message
+     * @return exactly sized buffer
+     * @throws IOException if the message is too big or the writing has failed
+     */
+    public ByteBuffer write(NetData data) throws IOException {
+        ByteBuffer[] message = new ByteBuffer[1];
+        write(data, new PacketSink() {
+            @Override
+            public ByteBuffer allocate(int size) {
+                return message[0] = ByteBuffer.allocate(size);
+            }
+
+            @Override
+            public void send(ByteBuffer frame) {
+            }
+        }, Integer.MAX_VALUE, false);
+        return message[0];
+    }
+
+    /**
+     * Write a message into the buffers of a sink.
+     * Uncompressed messages what fit into one frame are written directly into the sink's buffer,
+     * compression and splitting use pooled buffers, only the sent frames are allocated.
+     * @param data message
+     * @param sink destination of the frames
+     * @param maxDataSize max size of one frame
+     * @param fragment the other side can reassemble fragmented messages, see {@link PacketFragment#isSupported(VersionTable)}
+     * @return count of the sent frames
+     * @throws IOException if the message is too big, the writing or the sink has failed
+     */
+    public int write(NetData data, PacketSink sink, int maxDataSize, boolean fragment) throws IOException {
+        if(data.purpose == PacketTask.UNKNOWN)throw new IllegalArgumentException("Can't send packet without any purpose...");
+        VersionTable versions = data.versions != null ? data.versions : VersionTable.EMPTY;
+        boolean compress = getVersion(PacketCompression.ID, versions) >= 1;
+        int[] sizes = new int[subPackets.length];
+        int length = calculateSizes(data, versions, compress, sizes);
+        boolean writeSong = sizes[songIndex] >= 0;
+
+        if (!compress || length < PacketCompression.THRESHOLD) {
+            if (length <= data.sizeLimit && (length <= maxDataSize || !fragment)) {
+                ByteBuffer buf = sink.allocate(length);
+                writeMessage(buf, data, versions, sizes);
+                sink.send(buf);
+                return 1;
+            }
+        }
+        else if (!PacketCompression.canCompress(length)) {
+            //Every receiver would refuse it, try without the song
+            if (!writeSong) throw new IOException("Can't send emote, packet's size is bigger than max allowed");
+            data.writeSong = false;
+            return write(data, sink, maxDataSize, fragment);
+        }
+
+        ByteBuffer raw = BufferPool.HEAP.acquire(length);
+        ByteBuffer compressed = null;
+        try {
+            writeMessage(raw, data, versions, sizes);
+            byte[] message = raw.array();
+            int offset = raw.arrayOffset();
+            if (compress && length >= PacketCompression.THRESHOLD) {
+                compressed = BufferPool.HEAP.acquire(length);
+                int compressedLength = PacketCompression.compress(message, offset, length, compressed);
+                if (compressedLength >= 0) {
+                    message = compressed.array();
+                    offset = compressed.arrayOffset();
+                    length = compressedLength;
+                }
+            }
+            if (length > data.sizeLimit) {
+                //Even the compressed song is too big, try without it
+                if (!writeSong) throw new IOException("Can't send emote, packet's size is bigger than max allowed");
+            }
+            else if (length <= maxDataSize || !fragment) {
+                ByteBuffer buf = sink.allocate(length);
+                buf.put(message, offset, length);
+                sink.send(buf);
+                return 1;
+            }
+            else {
+                return PacketFragment.split(message, offset, length, maxDataSize, sink);
+            }
+        } finally {
+            BufferPool.HEAP.release(raw);
+            if (compressed != null) BufferPool.HEAP.release(compressed);
+        }
+        //Only the retry without the song gets here
+        data.writeSong = false;
+        return write(data, sink, maxDataSize, fragment);
+    }
+
+    /**
+     * Every size is calculated only once, -1 if the sub-packet is not written
+     * @return size of the uncompressed message
+     */
+    private int calculateSizes(NetData data, VersionTable versions, boolean compress, int[] sizes) throws IOException {
+        int sizeSum = HEADER_SIZE;
+        for (int i = 0; i < subPackets.length; i++) {
+            sizes[i] = -1;
+            if (i == songIndex) continue;
+            AbstractNetworkPacket packet = subPackets[i];
+            byte version = getVersion(packet, versions);
+            if (packet.doWrite(data, version)) {
+                sizes[i] = packet.calculateSize(data, version);
+                sizeSum += sizes[i] + SUB_HEADER_SIZE;
+            }
+        }
+        if(!compress && sizeSum > data.sizeLimit)throw new IOException("Can't send emote, packet's size is bigger than max allowed");
+        AbstractNetworkPacket songPacket = subPackets[songIndex];
+        byte songVersion = getVersion(songPacket, versions);
+        if (songPacket.doWrite(data, songVersion)) {
+            int songSize = songPacket.calculateSize(data, songVersion);
+            if (compress || sizeSum + songSize + SUB_HEADER_SIZE <= data.sizeLimit) {
+                sizes[songIndex] = songSize;
+                sizeSum += songSize + SUB_HEADER_SIZE;
+            }
+        }
+        if (sizes[songIndex] < 0) data.writeSong = false;
+        return sizeSum;
+    }
+
+    private void writeMessage(ByteBuffer buf, NetData data, VersionTable versions, int[] sizes) throws IOException {
+        int partCount = 0;
+        for (int size : sizes) {
+            if (size >= 0) partCount++;
+        }
+        buf.putInt(getVersion(byId[DISCOVERY_ID], versions));
+        buf.put(data.purpose.id);
+        buf.put((byte) partCount);
+        for (int i = 0; i < subPackets.length; i++) {
+            if (sizes[i] < 0) continue;
+            AbstractNetworkPacket packet = subPackets[i];
+            byte version = getVersion(packet, versions);
+            buf.put(packet.getID());
+            buf.put(version);
+            buf.putInt(sizes[i]);
+            int currentIndex = buf.position();
+            packet.write(buf, data, version);
+            if (buf.position() != currentIndex + sizes[i]) {
+                throw new IOException("Incorrect size calculator");
+            }
+        }
+    }
+
+    /**
+     * Read a message
+     * Streamed emotes are looked up in {@link DecodedEmoteCache#INSTANCE}, a hit is not decoded again.
+     * @param byteBuffer received message at its start
+     * @param data read the message into this, {@link NetData#threshold} should be set
+     * @return the data or null if it is not valid
+     * @throws IOException if the message can't be read
+     */
+    @Nullable
+    public NetData read(ByteBuffer byteBuffer, NetData data) throws IOException {
+        try {
+            int version = byteBuffer.getInt();
+            if (version > CommonData.networkingVersion) throw new IOException("Can't read newer version");
+            data.purpose = PacketTask.getTaskFromID(byteBuffer.get());
+
+            byte count = byteBuffer.get();
+
+            ReadState state = new ReadState();
+            readSubPackets(byteBuffer, count, data, true, state);
+
+            if (state.cached != null) {
+                if (state.emoteParts) {
+                    //Other parts of the emote are already in the builder, the emote has to be built there
+                    readSubPacket(byId[EMOTE_DATA_ID], state.emoteData, data, state.emoteVersion);
+                }
+                else {
+                    data.emoteData = state.cached.emote;
+                    data.valid = state.cached.valid;
+                    data.wasEmoteData = true;
+                }
+            }
+
+            if (!data.prepareAndValidate()) return null;
+            if (state.cacheKey != null && !state.emoteParts && data.emoteData != null) {
+                DecodedEmoteCache.INSTANCE.put(state.cacheKey, data.emoteData, data.valid);
+            }
+            return data;
+        }
+        catch (RuntimeException e){
+            e.printStackTrace();
+            throw new IOException(e.getClass().getTypeName() + " has occurred: " + e.getMessage());
+        }
+    }
+
+    private void readSubPackets(ByteBuffer byteBuffer, int count, NetData data, boolean canBeCompressed, ReadState state) throws IOException {
+        for (int i = 0; i < count; i++) {
+            byte id = byteBuffer.get();
+            byte sub_version = byteBuffer.get();
+            int size = byteBuffer.getInt();
+            int currentPos = byteBuffer.position();
+            AbstractNetworkPacket packet = byId[id & 0xFF];
+            if (id == PacketCompression.ID) {
+                if (!canBeCompressed || sub_version < 1) throw new IOException("Invalid compressed sub-packet received");
+                byte[] innerCount = new byte[1];
+                ByteBuffer inner = PacketCompression.decompress(byteBuffer, size, innerCount);
+                readSubPackets(inner, innerCount[0], data, false, state);
+                ((Buffer)byteBuffer).position(currentPos + size);
+            }
+            else if (id == EMOTE_DATA_ID && data.purpose == PacketTask.STREAM) {
+                ByteBuffer subPacket = byteBuffer.duplicate();
+                ((Buffer)subPacket).limit(currentPos + size);
+                ByteBuffer payload = subPacket.duplicate();
+                data.tick = EmoteDataPacket.readTick(payload, sub_version);
+                DecodedEmoteCache.Key key = new DecodedEmoteCache.Key(sub_version, data.threshold, payload);
+                DecodedEmoteCache.Entry entry = DecodedEmoteCache.INSTANCE.get(key);
+                if (entry != null) {
+                    state.cached = entry;
+                    state.emoteData = subPacket;
+                    state.emoteVersion = sub_version;
+                }
+                else {
+                    state.cacheKey = key;
+                    readSubPacket(packet, byteBuffer, data, sub_version);
+                }
+                ((Buffer)byteBuffer).position(currentPos + size);
+            }
+            else if (packet != null) {
+                if (packet instanceof SongPacket || packet instanceof EmoteHeaderPacket || packet instanceof EmoteIconPacket) {
+                    state.emoteParts = true;
+                }
+                readSubPacket(packet, byteBuffer, data, sub_version);
+                if (byteBuffer.position() != size + currentPos) {
+                    ((Buffer)byteBuffer).position(currentPos + size);
+                }
+            }
+            else {
+                ((Buffer)byteBuffer).position(currentPos + size);
+                //byteBuffer.position(currentPos + size);//Skip unknown sub-packets...
+            }
+        }
+    }
+
+    private static void readSubPacket(AbstractNetworkPacket packet, ByteBuffer byteBuffer, NetData data, byte version) throws IOException {
+        if(!packet.read(byteBuffer, data, version)){
+            throw new IOException("Invalid " + packet.getClass().getName() + " sub-packet received");
+        }
+    }
+
+    /**
+     * Missing versions are resolved with the fallback versions
+     */
+    private byte getVersion(byte id, VersionTable versions) {
+        return versions.get(id, fallbackVersions[id & 0xFF]);
+    }
+
+    private byte getVersion(AbstractNetworkPacket packet, VersionTable versions) {
+        return (byte) Math.min(packet.getVer(), getVersion(packet.getID(), versions));
+    }
+
+    /**
+     * State of one read, the emote data sub-packet is decoded only at the end if it was cached
+     */
+    private static final class ReadState {
+        @Nullable
+        DecodedEmoteCache.Entry cached;
+        @Nullable
+        DecodedEmoteCache.Key cacheKey;
+        ByteBuffer emoteData;
+        byte emoteVersion;
+        /**
+         * Song, header or icon is in the message, these are not cached
+         */
+        boolean emoteParts = false;
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.kosmx.emotes.common.network;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed envelope around the sub-packets of an {@link EmotePacket}.
+ * It is a sub-packet containing every other sub-packet deflated:
+ * byte sub-packet count, int uncompressed size, deflated sub-packets
+ *
+ * It is used only if the other side has it in its versions.
+ */
+public final class PacketCompression {
+    public static final byte ID = 0x14;
+    public static final byte VERSION = 1;
+
+    /**
+     * Smaller packets are sent uncompressed
+     */
+    public static final int THRESHOLD = 512;
+    /**
+     * Bigger uncompressed size is refused before allocating anything
+     */
+    public static final int MAX_DECOMPRESSED_SIZE = 0x400000; //4 MB
+    /**
+     * DEFLATE can't compress better than this, a bigger declared size is a lie
+     */
+    private static final int MAX_RATIO = 1032;
+
+    private static final int HEADER_SIZE = 6; //int version, byte purpose, byte count
+    private static final int SUB_HEADER_SIZE = 6; //byte id, byte version, int size
+
+    private PacketCompression() {
+    }
+
+    /**
+     * @param length size of the written packet
+     * @return the receivers accept the packet compressed, they refuse too big decompressed sizes
+     */
+    static boolean canCompress(int length) {
+        return length - HEADER_SIZE <= MAX_DECOMPRESSED_SIZE;
+    }
+
+    /**
+     * Compress a written packet
+     * @param packet written packet
+     * @param offset start of the packet in the array
+     * @param length size of the packet
+     * @param target heap buffer at its start, at least length big, the compressed packet is written here
+     * @return size of the compressed packet or -1 if compression doesn't make it smaller
+     */
+    static int compress(byte[] packet, int offset, int length, ByteBuffer target) {
+        int rawLength = length - HEADER_SIZE;
+        int headerLength = HEADER_SIZE + SUB_HEADER_SIZE + 1 + 4;
+        int available = length - 1 - headerLength; //the compressed packet has to be smaller
+        if (available <= 0) return -1;
+        byte[] out = target.array();
+        int outOffset = target.arrayOffset() + target.position() + headerLength;
+        int compressedLength = 0;
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(packet, offset + HEADER_SIZE, rawLength);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (compressedLength == available) return -1; //Not smaller
+                compressedLength += deflater.deflate(out, outOffset + compressedLength, available - compressedLength);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        target.put(packet, offset, 5); //version and purpose
+        target.put((byte) 1);
+        target.put(ID);
+        target.put(VERSION);
+        target.putInt(1 + 4 + compressedLength);
+        target.put(packet[offset + 5]); //the original sub-packet count
+        target.putInt(rawLength);
+        ((Buffer) target).position(target.position() + compressedLength);
+        return headerLength + compressedLength;
+    }
+
+    /**
+     * Decompress the envelope's content
+     * @param buf buffer at the start of the envelope's content
+     * @param size size of the envelope's content
+     * @param subPacketCount the count of the sub-packets in the returned buffer will be set here
+     * @return decompressed sub-packets
+     * @throws IOException if the data is invalid or too big
+     */
+    static ByteBuffer decompress(ByteBuffer buf, int size, byte[] subPacketCount) throws IOException {
+        subPacketCount[0] = buf.get();
+        int rawLength = buf.getInt();
+        if (rawLength < 0 || rawLength > MAX_DECOMPRESSED_SIZE) {
+            throw new IOException("Compressed packet is too big: " + rawLength);
+        }
+        int compressedLength = size - 5;
+        if (compressedLength < 0 || compressedLength > buf.remaining()) throw new IOException("Invalid compressed packet size");
+        if ((long) rawLength > (long) compressedLength * MAX_RATIO) {
+            throw new IOException("Compressed packet's declared size is impossible: " + rawLength);
+        }
+
+        byte[] compressed;
+        int offset;
+        if (buf.hasArray()) {
+            compressed = buf.array();
+            offset = buf.arrayOffset() + buf.position();
+        }
+        else {
+            compressed = new byte[compressedLength];
+            buf.duplicate().get(compressed);
+            offset = 0;
+        }
+        ((Buffer) buf).position(buf.position() + compressedLength);
+
+        byte[] out = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed, offset, compressedLength);
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == rawLength) {
+                    //Only the end of the stream can follow, don't inflate more than the declared size
+                    if (inflater.inflate(new byte[1]) != 0 || !inflater.finished()) {
+                        throw new IOException("Compressed packet is bigger than its declared size");
+                    }
+                    break;
+                }
+                int n = inflater.inflate(out, length, rawLength - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Compressed packet is truncated");
+                }
+                length += n;
+            }
+            if (length != rawLength) {
+                throw new IOException("Compressed packet is smaller than its declared size");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed packet: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(out);
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.kosmx.emotes.common.network;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Split a written {@link EmotePacket} into smaller frames if it is bigger than what the network can send.
+ * Every fragment looks like a packet with only one sub-packet:
+ * int message ID, int message size, int chunk size, int chunk index, chunk
+ *
+ * It is used only if the other side has it in its versions, see {@link #isSupported(VersionTable)}
+ * Use {@link PacketReassembler} to get the original message back.
+ */
+public final class PacketFragment {
+    public static final byte ID = 0x15;
+    public static final byte VERSION = 1;
+
+    /**
+     * Bigger messages are not sent and not reassembled
+     */
+    public static final int MAX_MESSAGE_SIZE = 0x400000; //4 MB
+
+    static final int HEADER_SIZE = 6 + 6 + 16; //packet header, sub-packet header, fragment header
+
+    private static final AtomicInteger nextMessageId = new AtomicInteger();
+
+    private PacketFragment() {
+    }
+
+    /**
+     * Versions filled with the default versions has every packet, only the original remote versions can tell it.
+     * @param remoteVersions versions of the other side
+     * @return the other side can reassemble fragmented messages
+     */
+    public static boolean isSupported(@Nullable VersionTable remoteVersions) {
+        return remoteVersions != null && remoteVersions.get(ID, (byte) 0) >= 1;
+    }
+
+    /**
+     * @param remoteVersions versions of the other side
+     * @param maxDataSize max size of one frame
+     * @return max size of a message, use it as {@link EmotePacket.Builder#setSizeLimit(int)}
+     */
+    public static int getSizeLimit(@Nullable VersionTable remoteVersions, int maxDataSize) {
+        return isSupported(remoteVersions) ? Math.max(MAX_MESSAGE_SIZE, maxDataSize) : maxDataSize;
+    }
+
+    /**
+     * Split a message into frames
+     * @param message packet from {@link EmotePacket#write()}, it has to be a heap buffer
+     * @param maxDataSize max size of one frame
+     * @param remoteVersions versions of the other side
+     * @return the frames to send in order, the message itself if it fits or the other side can't reassemble it
+     * @throws IOException if the message is too big
+     */
+    public static List<byte[]> split(ByteBuffer message, int maxDataSize, @Nullable VersionTable remoteVersions) throws IOException {
+        int length = message.capacity();
+        if (length <= maxDataSize || !isSupported(remoteVersions)) {
+            return Collections.singletonList(message.array());
+        }
+        List<byte[]> frames = new ArrayList<>();
+        split(message.array(), message.arrayOffset(), length, maxDataSize, new PacketSink() {
+            @Override
+            public ByteBuffer allocate(int size) {
+                return ByteBuffer.allocate(size);
+            }
+
+            @Override
+            public void send(ByteBuffer frame) {
+                frames.add(frame.array());
+            }
+        });
+        return frames;
+    }
+
+    /**
+     * Split a message into frames written into the sink
+     * @param message written message
+     * @param offset start of the message in the array
+     * @param length size of the message
+     * @param maxDataSize max size of one frame
+     * @param sink the frames are written here in order
+     * @return count of the frames
+     * @throws IOException if the message is too big or the sink has failed
+     */
+    static int split(byte[] message, int offset, int length, int maxDataSize, PacketSink sink) throws IOException {
+        if (length > MAX_MESSAGE_SIZE) throw new IOException("Can't send emote, packet's size is bigger than max allowed");
+        int chunkSize = maxDataSize - HEADER_SIZE;
+        if (chunkSize <= 0) throw new IllegalArgumentException("Max data size is too small to send fragments");
+
+        int count = (length + chunkSize - 1) / chunkSize;
+        if (count > PacketReassembler.MAX_FRAGMENT_COUNT) throw new IOException("Can't send emote, max data size is too small for its size");
+        int messageId = nextMessageId.getAndIncrement();
+        for (int i = 0; i < count; i++) {
+            int chunkOffset = i * chunkSize;
+            int size = Math.min(chunkSize, length - chunkOffset);
+            ByteBuffer frame = sink.allocate(HEADER_SIZE + size);
+            frame.put(message, offset, 5); //version and purpose
+            frame.put((byte) 1);
+            frame.put(ID);
+            frame.put(VERSION);
+            frame.putInt(16 + size);
+            frame.putInt(messageId);
+            frame.putInt(length);
+            frame.putInt(chunkSize);
+            frame.putInt(i);
+            frame.put(message, offset + chunkOffset, size);
+            sink.send(frame);
+        }
+        return count;
+    }
+
+    /**
+     * @param frame received frame at its start
+     * @return it is a fragment of a bigger message
+     */
+    static boolean isFragment(ByteBuffer frame) {
+        int start = frame.position();
+        return frame.remaining() >= HEADER_SIZE && frame.get(start + 5) == 1 && frame.get(start + 6) == ID;
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.kosmx.emotes.common.network;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reassemble the messages split by {@link PacketFragment}.
+ * Every sender has its own bounded buffer, incomplete messages are dropped after a timeout.
+ * Only the received chunks are buffered, a message's full size is allocated when it is complete.
+ * @param <K> sender key, like the network instance of the player
+ */
+@ThreadSafe
+public final class PacketReassembler<K> {
+    /**
+     * Incomplete messages of one sender, the oldest is dropped if a new one doesn't fit
+     */
+    public static final int MAX_PENDING_MESSAGES = 4;
+    /**
+     * Buffered bytes of one sender
+     */
+    public static final int MAX_BUFFERED_SIZE = PacketFragment.MAX_MESSAGE_SIZE;
+    /**
+     * Fragments of one message, smaller chunks than {@link PacketFragment#MAX_MESSAGE_SIZE} / 4096 are not accepted
+     */
+    public static final int MAX_FRAGMENT_COUNT = 4096;
+
+    private final long timeout;
+    private final HashMap<K, ArrayDeque<Message>> senders = new HashMap<>();
+    private long lastCleanup = System.nanoTime();
+
+    public PacketReassembler() {
+        this(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param timeout incomplete messages are dropped if no fragment arrives in this time
+     * @param unit unit of the timeout
+     */
+    public PacketReassembler(long timeout, TimeUnit unit) {
+        this.timeout = unit.toNanos(timeout);
+    }
+
+    /**
+     * Receive a frame
+     * @param sender the sender of the frame
+     * @param frame received frame at its start
+     * @return the complete message, the frame itself if it is not a fragment or null if more fragments are needed
+     * @throws IOException if the fragment is invalid
+     */
+    @Nullable
+    public ByteBuffer receive(K sender, ByteBuffer frame) throws IOException {
+        if (!PacketFragment.isFragment(frame)) return frame;
+        ((Buffer) frame).position(frame.position() + 6); //packet header
+        frame.get(); //ID
+        byte version = frame.get();
+        int size = frame.getInt();
+        if (version < 1 || size < 16 || size > frame.remaining()) throw new IOException("Invalid fragment received");
+        int messageId = frame.getInt();
+        int length = frame.getInt();
+        int chunkSize = frame.getInt();
+        int index = frame.getInt();
+        if (length <= 0 || length > PacketFragment.MAX_MESSAGE_SIZE || chunkSize <= 0) {
+            throw new IOException("Invalid fragmented message size: " + length);
+        }
+        int count = (int) (((long) length + chunkSize - 1) / chunkSize);
+        if (count > MAX_FRAGMENT_COUNT) throw new IOException("Too many fragments: " + count);
+        if (index < 0 || index >= count || size - 16 != Math.min(chunkSize, length - index * chunkSize)) {
+            throw new IOException("Invalid fragment received");
+        }
+
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (now - lastCleanup > timeout) {
+                removeExpired(now);
+                lastCleanup = now;
+            }
+            ArrayDeque<Message> messages = senders.computeIfAbsent(sender, k -> new ArrayDeque<>());
+            Message message = null;
+            for (Message m : messages) {
+                if (m.id == messageId) {
+                    message = m;
+                    break;
+                }
+            }
+            if (message != null && (message.length != length || message.chunkSize != chunkSize)) {
+                messages.remove(message);
+                if (messages.isEmpty()) senders.remove(sender);
+                throw new IOException("Fragment doesn't match its message");
+            }
+            if (message == null) {
+                while (messages.size() >= MAX_PENDING_MESSAGES) messages.removeFirst();
+                message = new Message(messageId, length, chunkSize, count);
+                messages.addLast(message);
+            }
+            message.lastReceived = now;
+            if (message.chunks[index] == null) {
+                int buffered = size - 16;
+                for (Message m : messages) buffered += m.buffered;
+                //Drop the oldest messages to make space, the current one is the last to drop
+                while (buffered > MAX_BUFFERED_SIZE && messages.peekFirst() != message) {
+                    buffered -= messages.removeFirst().buffered;
+                }
+                if (buffered > MAX_BUFFERED_SIZE) {
+                    messages.remove(message);
+                    if (messages.isEmpty()) senders.remove(sender);
+                    return null;
+                }
+                byte[] chunk = new byte[size - 16];
+                frame.get(chunk);
+                message.chunks[index] = chunk;
+                message.buffered += chunk.length;
+                message.missing--;
+            }
+            if (message.missing == 0) {
+                messages.remove(message);
+                if (messages.isEmpty()) senders.remove(sender);
+                return ByteBuffer.wrap(message.assemble());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Drop every incomplete message of a sender, call it when it disconnects
+     * @param sender the sender
+     */
+    public synchronized void remove(K sender) {
+        senders.remove(sender);
+    }
+
+    /**
+     * Drop the incomplete messages what timed out, it is also done while receiving
+     */
+    public synchronized void removeExpired() {
+        long now = System.nanoTime();
+        removeExpired(now);
+        lastCleanup = now;
+    }
+
+    /**
+     * @return count of the incomplete messages
+     */
+    public synchronized int getPendingCount() {
+        int count = 0;
+        for (ArrayDeque<Message> messages : senders.values()) count += messages.size();
+        return count;
+    }
+
+    private void removeExpired(long now) {
+        Iterator<ArrayDeque<Message>> iterator = senders.values().iterator();
+        while (iterator.hasNext()) {
+            ArrayDeque<Message> messages = iterator.next();
+            messages.removeIf(message -> now - message.lastReceived > timeout);
+            if (messages.isEmpty()) iterator.remove();
+        }
+    }
+
+    private static final class Message {
+        final int id;
+        final int length;
+        final int chunkSize;
+        final byte[][] chunks;
+        int buffered = 0;
+        int missing;
+        long lastReceived;
+
+        Message(int id, int length, int chunkSize, int count) {
+            this.id = id;
+            this.length = length;
+            this.chunkSize = chunkSize;
+            this.chunks = new byte[count][];
+            this.missing = count;
+        }
+
+        byte[] assemble() {
+            if (chunks.length == 1) return chunks[0];
+            byte[] data = new byte[length];
+            for (int i = 0; i < chunks.length; i++) {
+                System.arraycopy(chunks[i], 0, data, i * chunkSize, chunks[i].length);
+            }
+            return data;
+        }
+    }
+}
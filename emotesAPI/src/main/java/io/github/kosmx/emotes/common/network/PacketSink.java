@@ -0,0 +1,28 @@
+package io.github.kosmx.emotes.common.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Destination of written frames, the platform can supply its own buffers, like a Netty buffer of the outgoing packet.
+ * The codec asks for a buffer only when it knows the exact size of the frame, then writes the frame into it once.
+ *
+ * see {@link EmotePacket#write(PacketSink, int, java.util.HashMap)}
+ */
+public interface PacketSink {
+
+    /**
+     * Get a buffer for the next frame
+     * @param size exact size of the frame
+     * @return heap or direct buffer with at least size bytes remaining, the frame will be written at its position
+     * @throws IOException if the buffer can't be allocated
+     */
+    ByteBuffer allocate(int size) throws IOException;
+
+    /**
+     * The frame is written
+     * @param frame the buffer from {@link #allocate(int)}, its position is after the frame
+     * @throws IOException if the frame can't be sent
+     */
+    void send(ByteBuffer frame) throws IOException;
+}
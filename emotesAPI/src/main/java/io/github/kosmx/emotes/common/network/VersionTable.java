@@ -0,0 +1,138 @@
+package io.github.kosmx.emotes.common.network;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Sub-packet versions of one side, indexed by the sub-packet ID.
+ * It is negotiated once per connection and shared by every message, lookups don't allocate.
+ * The IDs are kept in the order of adding, this is the order of the discovery sub-packet.
+ */
+@Immutable
+public final class VersionTable {
+    public static final VersionTable EMPTY = new VersionTable(new byte[0], new byte[0]);
+
+    private final byte[] ids;
+    private final byte[] values;
+    /**
+     * Version indexed by the unsigned ID, valid only if the ID is {@link #present}
+     */
+    private final byte[] table = new byte[256];
+    private final long[] present = new long[4];
+    private final int hash;
+
+    private VersionTable(byte[] ids, byte[] values) {
+        this.ids = ids;
+        this.values = values;
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i] & 0xFF;
+            table[id] = values[i];
+            present[id >>> 6] |= 1L << id;
+        }
+        hash = 31 * Arrays.hashCode(present) + Arrays.hashCode(table);
+    }
+
+    /**
+     * @param versions versions map, maybe null
+     * @return table of the versions, {@link #EMPTY} if null or empty
+     */
+    public static VersionTable of(@Nullable Map<Byte, Byte> versions) {
+        if (versions == null || versions.isEmpty()) return EMPTY;
+        byte[] ids = new byte[versions.size()];
+        byte[] values = new byte[versions.size()];
+        int i = 0;
+        for (Map.Entry<Byte, Byte> entry : versions.entrySet()) {
+            ids[i] = entry.getKey();
+            values[i++] = entry.getValue();
+        }
+        return new VersionTable(ids, values);
+    }
+
+    /**
+     * @param ids sub-packet IDs, the last version is used if an ID is repeated
+     * @param versions versions of the IDs, same length as the IDs
+     * @return table of the versions
+     */
+    public static VersionTable of(byte[] ids, byte[] versions) {
+        if (ids.length != versions.length) throw new IllegalArgumentException("IDs and versions must have the same length");
+        byte[] uniqueIds = new byte[ids.length];
+        byte[] uniqueValues = new byte[ids.length];
+        int[] index = new int[256];
+        int size = 0;
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i] & 0xFF;
+            if (index[id] == 0) {
+                uniqueIds[size] = ids[i];
+                index[id] = ++size;
+            }
+            uniqueValues[index[id] - 1] = versions[i];
+        }
+        if (size == 0) return EMPTY;
+        return new VersionTable(Arrays.copyOf(uniqueIds, size), Arrays.copyOf(uniqueValues, size));
+    }
+
+    public boolean contains(byte id) {
+        int i = id & 0xFF;
+        return (present[i >>> 6] & 1L << i) != 0;
+    }
+
+    /**
+     * @param id sub-packet ID
+     * @param fallback used if the other side didn't tell the version
+     * @return version of the sub-packet
+     */
+    public byte get(byte id, byte fallback) {
+        return contains(id) ? table[id & 0xFF] : fallback;
+    }
+
+    /**
+     * @param id sub-packet ID
+     * @param version new version
+     * @return a copy with the version added or replaced
+     */
+    public VersionTable with(byte id, byte version) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                if (values[i] == version) return this;
+                byte[] newValues = values.clone();
+                newValues[i] = version;
+                return new VersionTable(ids, newValues);
+            }
+        }
+        byte[] newIds = Arrays.copyOf(ids, ids.length + 1);
+        byte[] newValues = Arrays.copyOf(values, values.length + 1);
+        newIds[ids.length] = id;
+        newValues[values.length] = version;
+        return new VersionTable(newIds, newValues);
+    }
+
+    /**
+     * @return count of the IDs
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    public byte getId(int index) {
+        return ids[index];
+    }
+
+    public byte getVersion(int index) {
+        return values[index];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof VersionTable)) return false;
+        VersionTable other = (VersionTable) o;
+        return hash == other.hash && Arrays.equals(present, other.present) && Arrays.equals(table, other.table);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -2,30 +2,30 @@ package io.github.kosmx.emotes.common.network.objects;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.HashMap;
 
+/**
+ * Sub-packet handler.
+ * Handlers are shared between every packet and thread, don't store anything about a message in them.
+ * The negotiated version is passed to every function, it is the smaller of {@link #getVer()} and the other side's version.
+ */
 public abstract class AbstractNetworkPacket {
 
 
     public abstract byte getID();
     public abstract byte getVer();
 
-    public byte getVer(HashMap<Byte, Byte> versions){
-        if(!versions.containsKey(this.getID()))throw new IllegalArgumentException("Versions should contain it's id");
-        return (byte) Math.min(this.getVer(), versions.get(this.getID()));
-    }
-
     /**
      * Read byte buf to T type
      * @param byteBuffer ByteBuffer
      * @param config Reader config
+     * @param version version of the received sub-packet
      * @return success
      */
     public abstract boolean read(ByteBuffer byteBuffer, NetData config, int version) throws IOException;
 
-    public abstract void write(ByteBuffer byteBuffer, NetData config) throws IOException;
+    public abstract void write(ByteBuffer byteBuffer, NetData config, int version) throws IOException;
 
-    public abstract boolean doWrite(NetData config);
+    public abstract boolean doWrite(NetData config, int version);
 
     protected boolean getBoolean(ByteBuffer byteBuffer){
         return byteBuffer.get() != 0;
@@ -38,7 +38,8 @@ public abstract class AbstractNetworkPacket {
     /**
      * Estimated size to create buffers
      * @param config some input data
+     * @param version negotiated version
      * @return the packet's size (estimated)
      */
-    public abstract int calculateSize(NetData config);
+    public abstract int calculateSize(NetData config, int version);
 }
@@ -3,9 +3,9 @@ package io.github.kosmx.emotes.common.network.objects;
 
 import io.github.kosmx.emotes.common.CommonData;
 import io.github.kosmx.emotes.common.network.PacketTask;
+import io.github.kosmx.emotes.common.network.VersionTable;
 
 import java.nio.ByteBuffer;
-import java.util.HashMap;
 
 
 public class DiscoveryPacket extends AbstractNetworkPacket{
@@ -18,29 +18,31 @@ public class DiscoveryPacket extends AbstractNetworkPacket{
 
         //Read these into versions
         int size = buf.getInt();
-        HashMap<Byte, Byte> map = new HashMap<>();
+        if(size < 0 || size > buf.remaining() / 2)return false;
+        byte[] ids = new byte[size];
+        byte[] versions = new byte[size];
 
         for(int i = 0; i < size; i++){
-            byte id = buf.get();
-            byte ver = buf.get();
-            map.put(id, ver);
+            ids[i] = buf.get();
+            versions[i] = buf.get();
         }
 
         //check if every is exists, if not, return false
         //That is done somewhere else
         //apply changes
-        data.versions = map;
+        data.versions = VersionTable.of(ids, versions);
         data.versionsUpdated = true;
         return true;
     }
 
-    public void write(ByteBuffer buf, NetData data){
+    @Override
+    public void write(ByteBuffer buf, NetData data, int version){
         //buf.putInt(this.version);
         buf.putInt(data.versions.size());
-        data.versions.forEach((aByte, integer) -> {
-            buf.put(aByte);
-            buf.put(integer);
-        });
+        for(int i = 0; i < data.versions.size(); i++){
+            buf.put(data.versions.getId(i));
+            buf.put(data.versions.getVersion(i));
+        }
     }
 
     @Override
@@ -54,12 +56,12 @@ public class DiscoveryPacket extends AbstractNetworkPacket{
     }
 
     @Override
-    public boolean doWrite(NetData config) {
+    public boolean doWrite(NetData config, int version) {
         return config.purpose == PacketTask.CONFIG;
     }
 
     @Override
-    public int calculateSize(NetData config) {
+    public int calculateSize(NetData config, int version) {
         //every keypair contains 2 bytes + the length
         return config.versions.size()*2 + 4;
     }
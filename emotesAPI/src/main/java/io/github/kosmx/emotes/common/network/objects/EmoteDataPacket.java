@@ -1,31 +1,55 @@
 package io.github.kosmx.emotes.common.network.objects;
 
-import io.github.kosmx.emotes.common.CommonData;
 import io.github.kosmx.emotes.common.emote.EmoteData;
+import io.github.kosmx.emotes.common.network.CommonNetwork;
+import io.github.kosmx.emotes.common.network.PacketTask;
 import io.github.kosmx.emotes.common.tools.Ease;
+import io.github.kosmx.emotes.common.tools.Easing;
 
 import java.io.IOException;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * It should be placed into emotecraftCommon but it has too many references to minecraft codes...
  */
 public class EmoteDataPacket extends AbstractNetworkPacket {
-    protected boolean valid = true;
-    private int version;
-    public int tick = 0;
+    /**
+     * Parts known by every receiver, version 2 sends their index instead of their name
+     */
+    private static final String[] COMMON_PARTS = {"head", "body", "rightArm", "leftArm", "rightLeg", "leftLeg", "rightItem", "leftItem", "torso"};
+    private static final byte CUSTOM_PART = -1;
+    /**
+     * Limits of the received custom parts, their names are kept while the emote is stored
+     */
+    public static final int MAX_CUSTOM_PARTS = 32;
+    public static final int MAX_PART_NAME_LENGTH = 64;
+
+    private static final byte FLOAT_VALUES = 0;
+    private static final byte QUANTIZED_VALUES = 1;
+    /**
+     * Max error of a quantized value, far below the validation threshold and what can be seen
+     */
+    public static final float QUANTIZATION_MAX_ERROR = 1f / 1024;
+    private static final int QUANTIZATION_STEPS = 0xFFFF;
 
-    byte keyframeSize = 9;
+    /**
+     * Size of a version 1 keyframe, IFB
+     */
+    private static final byte KEYFRAME_SIZE = 9;
 
     public EmoteDataPacket(){
     }
 
     @Override
-    public void write(ByteBuffer buf, NetData config){
-        this.version = Math.min(config.versions.get(getVer()), CommonData.networkingVersion);
+    public void write(ByteBuffer buf, NetData config, int version){
+        if (version >= 2) {
+            writeCompact(buf, config);
+            return;
+        }
         EmoteData emote = config.emoteData;
         buf.putInt(config.tick);
         buf.putInt(emote.beginTick);
@@ -35,7 +59,7 @@ public class EmoteDataPacket extends AbstractNetworkPacket {
         buf.putInt(emote.returnToTick);
         putBoolean(buf, emote.isEasingBefore);
         putBoolean(buf, emote.nsfw);
-        buf.put(keyframeSize);
+        buf.put(KEYFRAME_SIZE);
         writeBodyPartInfo(buf, emote.head);
         writeBodyPartInfo(buf, emote.body);
         writeBodyPartInfo(buf, emote.rightArm);
@@ -60,22 +84,103 @@ public class EmoteDataPacket extends AbstractNetworkPacket {
     }
 
     private void writePartInfo(ByteBuffer buf, EmoteData.StateCollection.State part){
-        List<EmoteData.KeyFrame> list = part.keyFrames;
-        buf.putInt(part.isEnabled ? list.size() : -1);
+        buf.putInt(part.isEnabled ? part.length() : -1);
         if(part.isEnabled) {
-            for (EmoteData.KeyFrame move : list) {
-                buf.putInt(move.tick);
-                buf.putFloat(move.value);
-                buf.put(move.ease.getId());
+            for (int i = 0; i < part.length(); i++) {
+                buf.putInt(part.getTick(i));
+                buf.putFloat(part.getValue(i));
+                buf.put(part.getEaseId(i));
+            }
+        }
+    }
+
+    /**
+     * Version 2, every field is optional or variable length:
+     * var int ticks, presence bitmask of the axes, delta encoded keyframe ticks, run-length encoded eases
+     * and 16-bit quantized values when the precision allows it.
+     * Every part is sent, not only the vanilla ones.
+     */
+    private void writeCompact(ByteBuffer buf, NetData config) {
+        EmoteData emote = config.emoteData;
+        boolean quantize = config.purpose == PacketTask.STREAM;
+        CommonNetwork.writeVarInt(buf, CommonNetwork.zigZag(config.tick));
+        CommonNetwork.writeVarInt(buf, CommonNetwork.zigZag(emote.beginTick));
+        CommonNetwork.writeVarInt(buf, CommonNetwork.zigZag(emote.endTick));
+        CommonNetwork.writeVarInt(buf, CommonNetwork.zigZag(emote.stopTick));
+        CommonNetwork.writeVarInt(buf, CommonNetwork.zigZag(emote.returnToTick));
+        buf.put((byte) ((emote.isInfinite ? 1 : 0) | (emote.isEasingBefore ? 2 : 0) | (emote.nsfw ? 4 : 0)));
+        CommonNetwork.writeUUID(buf, emote.getUuid());
+
+        CommonNetwork.writeVarInt(buf, countSentParts(emote));
+        for (Map.Entry<String, EmoteData.StateCollection> entry : emote.bodyParts.entrySet()) {
+            EmoteData.StateCollection part = entry.getValue();
+            int index = commonPartIndex(entry.getKey());
+            byte axes = axesMask(part);
+            if (index < 0) {
+                buf.put(CUSTOM_PART);
+                CommonNetwork.writeVarString(buf, entry.getKey());
+                putBoolean(buf, part.isBendable);
+                buf.putFloat(part.x.defaultValue);
+                buf.putFloat(part.y.defaultValue);
+                buf.putFloat(part.z.defaultValue);
+                buf.putFloat(part.pitch.defaultValue);
+                buf.putFloat(part.yaw.defaultValue);
+                buf.putFloat(part.roll.defaultValue);
+            }
+            else if (axes == 0) continue;
+            else buf.put((byte) index);
+            buf.put(axes);
+            for (EmoteData.StateCollection.State axis : getAxes(part)) {
+                if (axis != null && axis.isEnabled) writeCompactAxis(buf, axis, quantize);
+            }
+        }
+    }
+
+    private void writeCompactAxis(ByteBuffer buf, EmoteData.StateCollection.State axis, boolean quantize) {
+        int length = axis.length();
+        CommonNetwork.writeVarInt(buf, length);
+        if (length == 0) return;
+
+        int lastTick = 0;
+        for (int i = 0; i < length; i++) {
+            int tick = axis.getTick(i);
+            CommonNetwork.writeVarInt(buf, i == 0 ? CommonNetwork.zigZag(tick) : tick - lastTick);
+            lastTick = tick;
+        }
+
+        for (int i = 0; i < length; ) {
+            byte ease = axis.getEaseId(i);
+            int run = 1;
+            while (i + run < length && axis.getEaseId(i + run) == ease) run++;
+            CommonNetwork.writeVarInt(buf, run);
+            buf.put(ease);
+            i += run;
+        }
+
+        float step = quantize ? quantizationStep(axis) : Float.NaN;
+        if (Float.isNaN(step)) {
+            buf.put(FLOAT_VALUES);
+            for (int i = 0; i < length; i++) {
+                buf.putFloat(axis.getValue(i));
+            }
+        }
+        else {
+            float offset = minValue(axis);
+            buf.put(QUANTIZED_VALUES);
+            buf.putFloat(offset);
+            buf.putFloat(step);
+            for (int i = 0; i < length; i++) {
+                int q = step == 0 ? 0 : Math.round((axis.getValue(i) - offset) / step);
+                buf.putShort((short) Math.max(0, Math.min(QUANTIZATION_STEPS, q)));
             }
         }
     }
 
     @Override
     public boolean read(ByteBuffer buf, NetData config, int version) throws IOException {
-        this.version = version;
+        if (version >= 2) return readCompact(buf, config);
         EmoteData.EmoteBuilder builder = config.getEmoteBuilder();
-        config.tick = buf.getInt();
+        config.tick = readTick(buf, version);
         builder.beginTick = buf.getInt();
         builder.endTick = buf.getInt();
         builder.stopTick = buf.getInt();
@@ -83,14 +188,14 @@ public class EmoteDataPacket extends AbstractNetworkPacket {
         builder.returnTick = buf.getInt();
         builder.isEasingBefore = getBoolean(buf);
         builder.nsfw = getBoolean(buf);
-        keyframeSize = buf.get();
+        byte keyframeSize = buf.get();
         if(!(keyframeSize > 0)) throw new IOException("keyframe size must be greater than 0, current: " + keyframeSize);
-        getBodyPartInfo(buf, builder.head, false);
-        getBodyPartInfo(buf, builder.body, true);
-        getBodyPartInfo(buf, builder.rightArm, true);
-        getBodyPartInfo(buf, builder.leftArm, true);
-        getBodyPartInfo(buf, builder.rightLeg, true);
-        getBodyPartInfo(buf, builder.leftLeg, true);
+        boolean valid = getBodyPartInfo(buf, builder.head, false, keyframeSize);
+        valid &= getBodyPartInfo(buf, builder.body, true, keyframeSize);
+        valid &= getBodyPartInfo(buf, builder.rightArm, true, keyframeSize);
+        valid &= getBodyPartInfo(buf, builder.leftArm, true, keyframeSize);
+        valid &= getBodyPartInfo(buf, builder.rightLeg, true, keyframeSize);
+        valid &= getBodyPartInfo(buf, builder.leftLeg, true, keyframeSize);
         if(version >= 1){
             long msb = buf.getLong();
             long lsb = buf.getLong();
@@ -99,39 +204,166 @@ public class EmoteDataPacket extends AbstractNetworkPacket {
 
         //EmoteData emote = builder.build();
         boolean correct = builder.beginTick >= 0 && builder.beginTick < builder.endTick && (! builder.isLooped || builder.returnTick <= builder.endTick && builder.returnTick >= 0);
-        valid = valid && correct;
 
-        config.valid = valid;
+        config.valid = valid && correct;
 
         config.wasEmoteData = true;
         return correct;
     }
 
-    private void getBodyPartInfo(ByteBuffer buf, EmoteData.StateCollection part, boolean bending){
-        getPartInfo(buf, part.x);
-        getPartInfo(buf, part.y);
-        getPartInfo(buf, part.z);
-        getPartInfo(buf, part.pitch);
-        getPartInfo(buf, part.yaw);
-        getPartInfo(buf, part.roll);
+    /**
+     * Read only the start tick, the rest of the sub-packet doesn't depend on when the emote was started
+     * @param buf buffer at the start of the sub-packet
+     * @param version version of the sub-packet
+     * @return the start tick
+     */
+    public static int readTick(ByteBuffer buf, int version) {
+        return version >= 2 ? CommonNetwork.unZigZag(CommonNetwork.readVarInt(buf)) : buf.getInt();
+    }
+
+    private boolean readCompact(ByteBuffer buf, NetData config) throws IOException {
+        EmoteData.EmoteBuilder builder = config.getEmoteBuilder();
+        config.tick = readTick(buf, 2);
+        builder.beginTick = CommonNetwork.unZigZag(CommonNetwork.readVarInt(buf));
+        builder.endTick = CommonNetwork.unZigZag(CommonNetwork.readVarInt(buf));
+        builder.stopTick = CommonNetwork.unZigZag(CommonNetwork.readVarInt(buf));
+        builder.returnTick = CommonNetwork.unZigZag(CommonNetwork.readVarInt(buf));
+        byte flags = buf.get();
+        builder.isLooped = (flags & 1) != 0;
+        builder.isEasingBefore = (flags & 2) != 0;
+        builder.nsfw = (flags & 4) != 0;
+        builder.uuid = CommonNetwork.readUUID(buf);
+
+        boolean valid = true;
+        int partCount = readCount(buf);
+        int customParts = 0;
+        for (int i = 0; i < partCount; i++) {
+            byte index = buf.get();
+            EmoteData.StateCollection part;
+            String name;
+            if (index == CUSTOM_PART) {
+                if (++customParts > MAX_CUSTOM_PARTS) throw new IOException("Too many custom parts");
+                name = CommonNetwork.readVarString(buf, MAX_PART_NAME_LENGTH);
+                boolean bendable = getBoolean(buf);
+                part = builder.getOrCreateNewPart(name, buf.getFloat(), buf.getFloat(), buf.getFloat(), buf.getFloat(), buf.getFloat(), buf.getFloat(), bendable);
+            }
+            else if (index >= 0 && index < COMMON_PARTS.length) {
+                name = COMMON_PARTS[index];
+                part = builder.getPart(name);
+            }
+            else throw new IOException("Unknown part index: " + index);
+            if (part == null) throw new IOException("Missing part: " + name);
+
+            byte axes = buf.get();
+            EmoteData.StateCollection.State[] states = getAxes(part);
+            for (int a = 0; a < states.length; a++) {
+                if ((axes & 1 << a) == 0) continue;
+                if (states[a] == null) throw new IOException("Part " + name + " can not bend");
+                valid &= readCompactAxis(buf, states[a]);
+            }
+        }
+
+        boolean correct = builder.beginTick >= 0 && builder.beginTick < builder.endTick && (! builder.isLooped || builder.returnTick <= builder.endTick && builder.returnTick >= 0);
+
+        config.valid = valid && correct;
+
+        config.wasEmoteData = true;
+        return correct;
+    }
+
+    /**
+     * @return every keyframe was valid
+     */
+    private boolean readCompactAxis(ByteBuffer buf, EmoteData.StateCollection.State axis) throws IOException {
+        int length = readCount(buf);
+        axis.isEnabled = true;
+        if (length == 0) return true;
+
+        int[] ticks = new int[length];
+        int tick = 0;
+        for (int i = 0; i < length; i++) {
+            int t = CommonNetwork.readVarInt(buf);
+            tick = i == 0 ? CommonNetwork.unZigZag(t) : tick + t;
+            ticks[i] = tick;
+        }
+
+        byte[] eases = new byte[length];
+        for (int i = 0; i < length; ) {
+            int run = CommonNetwork.readVarInt(buf);
+            if (run <= 0 || run > length - i) throw new IOException("Invalid ease run length: " + run);
+            byte ease = buf.get();
+            //Unknown easings are linear, registered custom easings are kept
+            if (!Easing.isRegistered(ease)) ease = Ease.LINEAR.getId();
+            for (int j = 0; j < run; j++) {
+                eases[i++] = ease;
+            }
+        }
+
+        float[] values = new float[length];
+        byte mode = buf.get();
+        if (mode == FLOAT_VALUES) {
+            for (int i = 0; i < length; i++) {
+                values[i] = buf.getFloat();
+            }
+        }
+        else if (mode == QUANTIZED_VALUES) {
+            float offset = buf.getFloat();
+            float step = buf.getFloat();
+            for (int i = 0; i < length; i++) {
+                values[i] = offset + (buf.getShort() & 0xFFFF) * step;
+            }
+        }
+        else throw new IOException("Unknown value encoding: " + mode);
+        //Ticks are sent sorted, the decoded arrays become the track without copying or insertion
+        return axis.addKeyFrames(ticks, values, eases, length);
+    }
+
+    /**
+     * Every element takes at least one byte, a bigger count can't be valid
+     */
+    private static int readCount(ByteBuffer buf) throws IOException {
+        int count = CommonNetwork.readVarInt(buf);
+        if (count < 0 || count > buf.remaining()) throw new IOException("Invalid element count: " + count);
+        return count;
+    }
+
+    /**
+     * @return every keyframe was valid
+     */
+    private boolean getBodyPartInfo(ByteBuffer buf, EmoteData.StateCollection part, boolean bending, byte keyframeSize) throws IOException {
+        boolean valid = getPartInfo(buf, part.x, keyframeSize);
+        valid &= getPartInfo(buf, part.y, keyframeSize);
+        valid &= getPartInfo(buf, part.z, keyframeSize);
+        valid &= getPartInfo(buf, part.pitch, keyframeSize);
+        valid &= getPartInfo(buf, part.yaw, keyframeSize);
+        valid &= getPartInfo(buf, part.roll, keyframeSize);
         if(bending) {
-            getPartInfo(buf, part.bendDirection);
-            getPartInfo(buf, part.bend);
+            valid &= getPartInfo(buf, part.bendDirection, keyframeSize);
+            valid &= getPartInfo(buf, part.bend, keyframeSize);
         }
+        return valid;
     }
 
-    private void getPartInfo(ByteBuffer buf, EmoteData.StateCollection.State part){
+    private boolean getPartInfo(ByteBuffer buf, EmoteData.StateCollection.State part, byte keyframeSize) throws IOException {
         int len = buf.getInt();
         part.isEnabled = len != -1;
+        if(len <= 0) return true;
+        if(len > buf.remaining() / keyframeSize) throw new IOException("Invalid keyframe count: " + len);
+        int[] ticks = new int[len];
+        float[] values = new float[len];
+        byte[] eases = new byte[len];
         for(int i = 0; i < len; i++){
             int currentPos = buf.position();
-            if(! part.addKeyFrame(buf.getInt(), buf.getFloat(), Ease.getEase(buf.get()))){
-                this.valid = false;
-            }
+            ticks[i] = buf.getInt();
+            values[i] = buf.getFloat();
+            byte easeId = buf.get();
+            //Unknown easings are linear, registered custom easings are kept
+            eases[i] = Easing.isRegistered(easeId) ? easeId : Ease.LINEAR.getId();
             ((Buffer)buf).position(currentPos + keyframeSize);
             //ByteBuffer#position(I)V;Buffer in Java 1.8 but
             //ByteBuffer#position(I)V;ByteBuffer in later versions
         }
+        return part.addKeyFrames(ticks, values, eases, len);
     }
 
     @Override
@@ -143,13 +375,14 @@ public class EmoteDataPacket extends AbstractNetworkPacket {
     public byte getVer() {
         /**
          * version 1: 2.1 features, extended parts, UUID emote ID
+         * version 2: compact encoding, every part
          */
-        return 1;
+        return 2;
     }
 
     @Override
-    public boolean doWrite(NetData data) {
-        return data.emoteData != null && data.stopEmoteID == null;
+    public boolean doWrite(NetData data, int version) {
+        return data.emoteData != null && data.stopEmoteID == null && !data.streamByReference;
     }
 
     /*
@@ -160,8 +393,9 @@ public class EmoteDataPacket extends AbstractNetworkPacket {
     F float, 4 bytes
      */
     @Override
-    public int calculateSize(NetData config) {
+    public int calculateSize(NetData config, int version) {
         if(config.emoteData == null)return 0;
+        if(version >= 2)return compactSize(config);
         //I will create less efficient loops but these will be more easily fixable
         int size = 40;//The header makes xx bytes IIIIBIBBBLL
         size += partSize(config.emoteData.head);
@@ -191,6 +425,109 @@ public class EmoteDataPacket extends AbstractNetworkPacket {
         return size;
     }
     int axisSize(EmoteData.StateCollection.State axis){
-        return axis.keyFrames.size()*keyframeSize + 4;// count*IFB + I (for count)
+        return axis.length()*KEYFRAME_SIZE + 4;// count*IFB + I (for count)
+    }
+
+    int compactSize(NetData config) {
+        EmoteData emote = config.emoteData;
+        boolean quantize = config.purpose == PacketTask.STREAM;
+        int size = CommonNetwork.varIntSize(CommonNetwork.zigZag(config.tick));
+        size += CommonNetwork.varIntSize(CommonNetwork.zigZag(emote.beginTick));
+        size += CommonNetwork.varIntSize(CommonNetwork.zigZag(emote.endTick));
+        size += CommonNetwork.varIntSize(CommonNetwork.zigZag(emote.stopTick));
+        size += CommonNetwork.varIntSize(CommonNetwork.zigZag(emote.returnToTick));
+        size += 1 + 16; //flags and UUID
+        size += CommonNetwork.varIntSize(countSentParts(emote));
+        for (Map.Entry<String, EmoteData.StateCollection> entry : emote.bodyParts.entrySet()) {
+            EmoteData.StateCollection part = entry.getValue();
+            if (commonPartIndex(entry.getKey()) < 0) {
+                int nameLength = entry.getKey().getBytes(StandardCharsets.UTF_8).length;
+                size += CommonNetwork.varIntSize(nameLength) + nameLength + 1 + 6*4; //name, bendable, default values
+            }
+            else if (axesMask(part) == 0) continue;
+            size += 2; //index and axes mask
+            for (EmoteData.StateCollection.State axis : getAxes(part)) {
+                if (axis != null && axis.isEnabled) size += compactAxisSize(axis, quantize);
+            }
+        }
+        return size;
+    }
+
+    int compactAxisSize(EmoteData.StateCollection.State axis, boolean quantize) {
+        int length = axis.length();
+        int size = CommonNetwork.varIntSize(length);
+        if (length == 0) return size;
+        int lastTick = 0;
+        for (int i = 0; i < length; i++) {
+            int tick = axis.getTick(i);
+            size += CommonNetwork.varIntSize(i == 0 ? CommonNetwork.zigZag(tick) : tick - lastTick);
+            lastTick = tick;
+        }
+        for (int i = 0; i < length; ) {
+            byte ease = axis.getEaseId(i);
+            int run = 1;
+            while (i + run < length && axis.getEaseId(i + run) == ease) run++;
+            size += CommonNetwork.varIntSize(run) + 1;
+            i += run;
+        }
+        size += 1; //value encoding
+        if (quantize && !Float.isNaN(quantizationStep(axis))) size += 8 + length*2;
+        else size += length*4;
+        return size;
+    }
+
+    private static int countSentParts(EmoteData emote) {
+        int count = 0;
+        for (Map.Entry<String, EmoteData.StateCollection> entry : emote.bodyParts.entrySet()) {
+            if (commonPartIndex(entry.getKey()) < 0 || axesMask(entry.getValue()) != 0) count++;
+        }
+        return count;
+    }
+
+    private static int commonPartIndex(String name) {
+        for (int i = 0; i < COMMON_PARTS.length; i++) {
+            if (COMMON_PARTS[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Axes in the order of the presence bitmask, bend axes are null if the part can't bend
+     */
+    private static EmoteData.StateCollection.State[] getAxes(EmoteData.StateCollection part) {
+        return new EmoteData.StateCollection.State[]{part.x, part.y, part.z, part.pitch, part.yaw, part.roll, part.bendDirection, part.bend};
+    }
+
+    private static byte axesMask(EmoteData.StateCollection part) {
+        EmoteData.StateCollection.State[] axes = getAxes(part);
+        int mask = 0;
+        for (int i = 0; i < axes.length; i++) {
+            if (axes[i] != null && axes[i].isEnabled) mask |= 1 << i;
+        }
+        return (byte) mask;
+    }
+
+    /**
+     * @return quantization step of the axis or NaN if the values can't be quantized precisely enough
+     */
+    private static float quantizationStep(EmoteData.StateCollection.State axis) {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < axis.length(); i++) {
+            float value = axis.getValue(i);
+            if (Float.isInfinite(value)) return Float.NaN;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        float step = (max - min) / QUANTIZATION_STEPS;
+        return step / 2 <= QUANTIZATION_MAX_ERROR && !Float.isInfinite(step) ? step : Float.NaN;
+    }
+
+    private static float minValue(EmoteData.StateCollection.State axis) {
+        float min = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < axis.length(); i++) {
+            min = Math.min(min, axis.getValue(i));
+        }
+        return min;
     }
 }
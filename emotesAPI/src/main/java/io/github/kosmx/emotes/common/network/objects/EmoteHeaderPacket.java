@@ -27,19 +27,19 @@ public class EmoteHeaderPacket extends AbstractNetworkPacket{
     }
 
     @Override
-    public void write(ByteBuffer byteBuffer, NetData config) throws IOException {
+    public void write(ByteBuffer byteBuffer, NetData config, int version) throws IOException {
         writeString(byteBuffer, config.emoteData.name);
         writeString(byteBuffer, config.emoteData.description);
         writeString(byteBuffer, config.emoteData.author);
     }
 
     @Override
-    public boolean doWrite(NetData config) {
+    public boolean doWrite(NetData config, int version) {
         return config.emoteData != null && config.purpose.exchangeHeader;
     }
 
     @Override
-    public int calculateSize(NetData config) {
+    public int calculateSize(NetData config, int version) {
         EmoteData emote = config.emoteData;
         return sumStrings(emote.name, emote.author, emote.description);
     }
@@ -29,7 +29,7 @@ public class EmoteIconPacket extends AbstractNetworkPacket{
     }
 
     @Override
-    public void write(ByteBuffer byteBuffer, NetData config) throws IOException {
+    public void write(ByteBuffer byteBuffer, NetData config, int version) throws IOException {
         byteBuffer.putInt(config.emoteData.iconData.remaining());
         ByteBuffer icon = config.emoteData.iconData;
         byteBuffer.put(icon);
@@ -37,12 +37,12 @@ public class EmoteIconPacket extends AbstractNetworkPacket{
     }
 
     @Override
-    public boolean doWrite(NetData config) {
+    public boolean doWrite(NetData config, int version) {
         return config.purpose == PacketTask.FILE && config.emoteData.iconData != null;
     }
 
     @Override
-    public int calculateSize(NetData config) {
+    public int calculateSize(NetData config, int version) {
         return config.emoteData.iconData.remaining() + 4;
     }
 }
@@ -0,0 +1,60 @@
+package io.github.kosmx.emotes.common.network.objects;
+
+import io.github.kosmx.emotes.common.network.CommonNetwork;
+import io.github.kosmx.emotes.common.network.PacketTask;
+import io.github.kosmx.emotes.common.network.VersionTable;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+
+/**
+ * Stream an emote only by its UUID.
+ * The receiver has to know the emote already, like the server emotes sent on join.
+ * Send it only if the other side has it in its versions, see {@link #isSupported(VersionTable)}
+ */
+public class EmoteReferencePacket extends AbstractNetworkPacket {
+    public static final byte ID = 0x13;
+
+    @Override
+    public byte getID() {
+        return ID;
+    }
+
+    @Override
+    public byte getVer() {
+        return 1;
+    }
+
+    @Override
+    public boolean read(ByteBuffer byteBuffer, NetData config, int version) {
+        if (version < 1) return false;
+        config.tick = byteBuffer.getInt();
+        config.emoteReference = CommonNetwork.readUUID(byteBuffer);
+        return true;
+    }
+
+    @Override
+    public void write(ByteBuffer byteBuffer, NetData config, int version) {
+        byteBuffer.putInt(config.tick);
+        CommonNetwork.writeUUID(byteBuffer, config.emoteData.getUuid());
+    }
+
+    @Override
+    public boolean doWrite(NetData config, int version) {
+        return config.streamByReference && config.emoteData != null && config.purpose == PacketTask.STREAM;
+    }
+
+    @Override
+    public int calculateSize(NetData config, int version) {
+        return 20; //tick + UUID
+    }
+
+    /**
+     * Versions filled with the default versions has every packet, only the original remote versions can tell it.
+     * @param remoteVersions versions of the other side
+     * @return the other side can read emote references
+     */
+    public static boolean isSupported(@Nullable VersionTable remoteVersions) {
+        return remoteVersions != null && remoteVersions.get(ID, (byte) 0) >= 1;
+    }
+}
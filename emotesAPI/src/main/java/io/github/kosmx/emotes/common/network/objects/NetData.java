@@ -3,9 +3,9 @@ package io.github.kosmx.emotes.common.network.objects;
 import io.github.kosmx.emotes.common.emote.EmoteData;
 import io.github.kosmx.emotes.common.emote.EmoteFormat;
 import io.github.kosmx.emotes.common.network.PacketTask;
+import io.github.kosmx.emotes.common.network.VersionTable;
 
 import javax.annotation.Nullable;
-import java.util.HashMap;
 import java.util.UUID;
 
 /*
@@ -25,6 +25,15 @@ public final class NetData {
     public UUID stopEmoteID = null;
     @Nullable
     public EmoteData emoteData = null;
+    /**
+     * UUID of a streamed emote what the receiver should already know, {@link #emoteData} is null in this case
+     */
+    @Nullable
+    public UUID emoteReference = null;
+    /**
+     * Send only the reference of {@link #emoteData}, set it only if the other side knows the emote
+     */
+    public boolean streamByReference = false;
     private EmoteData.EmoteBuilder emoteBuilder = null;
     public int tick = 0;
     /**
@@ -37,7 +46,10 @@ public final class NetData {
     public boolean writeSong = true;
 
     public boolean versionsUpdated = false;
-    public HashMap<Byte, Byte> versions;
+    /**
+     * Versions of the other side or the sent config, shared between messages, never modify it
+     */
+    public VersionTable versions;
 
     //Set it to non-null if sending via MC Plugin channel
     //left it null when using Collar
@@ -66,7 +78,7 @@ public final class NetData {
 
         if(purpose == PacketTask.UNKNOWN)return false;
         if(purpose == PacketTask.STOP && stopEmoteID == null)return false;
-        if(purpose == PacketTask.STREAM && emoteData == null)return false;
+        if(purpose == PacketTask.STREAM && emoteData == null && emoteReference == null)return false;
         if(purpose == PacketTask.CONFIG && !versionsUpdated)return false;
         if(emoteData != null && stopEmoteID != null)return false;
         //I won't simplify it because of readability
@@ -79,6 +91,8 @@ public final class NetData {
         data.threshold = threshold;
         data.stopEmoteID = stopEmoteID;
         data.emoteData = emoteData;
+        data.emoteReference = emoteReference;
+        data.streamByReference = streamByReference;
         data.tick = tick;
         data.valid = valid;
         data.versionsUpdated = versionsUpdated;
@@ -96,6 +110,7 @@ public final class NetData {
                 ", threshold=" + threshold +
                 ", stopEmoteID=" + stopEmoteID +
                 ", emoteData=" + emoteData +
+                ", emoteReference=" + emoteReference +
                 ", startingAt=" + tick +
                 ", player=" + player +
                 '}';
@@ -24,18 +24,18 @@ public class PlayerDataPacket extends AbstractNetworkPacket{
     }
 
     @Override
-    public void write(ByteBuffer byteBuffer, NetData config) throws IOException {
+    public void write(ByteBuffer byteBuffer, NetData config, int version) throws IOException {
         CommonNetwork.writeUUID(byteBuffer, config.player);
         byteBuffer.put(config.isForced ? (byte) 0x01 : (byte) 0x00);
     }
 
     @Override
-    public boolean doWrite(NetData config) {
+    public boolean doWrite(NetData config, int version) {
         return config.player != null;
     }
 
     @Override
-    public int calculateSize(NetData config) {
+    public int calculateSize(NetData config, int version) {
         return 17;//1 UUID = 2 Long = 2*8 bytes = 16 bytes + 1 byte for forced flag
     }
 }
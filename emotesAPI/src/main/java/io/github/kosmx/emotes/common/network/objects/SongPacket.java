@@ -25,8 +25,8 @@ public class SongPacket extends AbstractNetworkPacket{
     }
 
     @Override
-    public void write(ByteBuffer byteBuffer, NetData config) throws IOException {
-        if(!doWrite(config)){
+    public void write(ByteBuffer byteBuffer, NetData config, int version) throws IOException {
+        if(!doWrite(config, version)){
             throw new IOException("You can't write disabled or not existing NBS data");
         }
         NBSPacket writer = new NBSPacket(config.emoteData.song);
@@ -34,12 +34,12 @@ public class SongPacket extends AbstractNetworkPacket{
     }
 
     @Override
-    public boolean doWrite(NetData config) {
-        return config.versions.get(this.getID()) != 0 && config.emoteData != null && config.emoteData.song != null && config.writeSong;
+    public boolean doWrite(NetData config, int version) {
+        return version != 0 && config.emoteData != null && config.emoteData.song != null && config.writeSong && !config.streamByReference;
     }
 
     @Override
-    public int calculateSize(NetData config) {
+    public int calculateSize(NetData config, int version) {
         if(config.emoteData == null || config.emoteData.song == null)return 0;
         return NBSPacket.calculateMessageSize(config.emoteData.song);
     }
@@ -30,18 +30,18 @@ public class StopPacket extends AbstractNetworkPacket {
     }
 
     @Override
-    public void write(ByteBuffer buf, NetData config){
+    public void write(ByteBuffer buf, NetData config, int version){
         buf.putLong(config.stopEmoteID.getMostSignificantBits());
         buf.putLong(config.stopEmoteID.getLeastSignificantBits());
     }
 
     @Override
-    public boolean doWrite(NetData config) {
+    public boolean doWrite(NetData config, int version) {
         return config.stopEmoteID != null; //Write only if config has true stop value
     }
 
     @Override
-    public int calculateSize(NetData config) {
+    public int calculateSize(NetData config, int version) {
         return Long.BYTES*2; //16
     }
 }
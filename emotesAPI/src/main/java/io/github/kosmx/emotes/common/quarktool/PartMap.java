@@ -34,7 +34,7 @@ public class PartMap {
         public void addValue(int tickFrom, int tickTo, float value, Ease ease) throws QuarkParsingError{
             if(tickFrom < this.lastTick){
                 throw new QuarkParsingError();
-            }else if(tickFrom == this.lastTick && timeline.keyFrames.size() != 0){
+            }else if(tickFrom == this.lastTick && timeline.length() != 0){
                 timeline.replaceEase(timeline.findAtTick(tickFrom), ease);
                 //timeline.keyFrames.get(timeline.findAtTick(tickFrom)).ease =ease;
             }else{
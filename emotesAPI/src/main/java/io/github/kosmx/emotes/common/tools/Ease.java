@@ -4,38 +4,60 @@ package io.github.kosmx.emotes.common.tools;
  * Easings form https://easings.net
  */
 public enum Ease {
-    LINEAR(0), CONSTANT(1),
-    INSINE(6), OUTSINE(7), INOUTSINE(8), INCUBIC(9), OUTCUBIC(10), INOUTCUBIC(11),
-    INQUAD(12), OUTQUAD(13), INOUTQUAD(14), INQUART(15), OUTQUART(16), INOUTQUART(17),
-    INQUINT(18), OUTQUINT(19), INOUTQUINT(20), INEXPO(21), OUTEXPO(22), INOUTEXPO(23),
-    INCIRC(24), OUTCIRC(25), INOUTCIRC(26), INBACK(27), OUTBACK(28), INOUTBACK(29),
-    INELASTIC(30), OUTELASTIC(31), INOUTELASTIC(32), INBOUNCE(33), OUTBOUNCE(34), INOUTBOUNCE(35);
+    LINEAR(0, f -> f), CONSTANT(1, f -> 0),
+    INSINE(6, Easing::inSine), OUTSINE(7, Easing::outSine), INOUTSINE(8, Easing::inOutSine),
+    INCUBIC(9, Easing::inCubic), OUTCUBIC(10, Easing::outCubic), INOUTCUBIC(11, Easing::inOutCubic),
+    INQUAD(12, Easing::inQuad), OUTQUAD(13, Easing::outQuad), INOUTQUAD(14, Easing::inOutQuad),
+    INQUART(15, Easing::inQuart), OUTQUART(16, Easing::outQuart), INOUTQUART(17, Easing::inOutQuart),
+    INQUINT(18, Easing::inQuint), OUTQUINT(19, Easing::outQuint), INOUTQUINT(20, Easing::inOutQuint),
+    INEXPO(21, Easing::inExpo), OUTEXPO(22, Easing::outExpo), INOUTEXPO(23, Easing::inOutExpo),
+    INCIRC(24, Easing::inCirc), OUTCIRC(25, Easing::outCirc), INOUTCIRC(26, Easing::inOutCirc),
+    INBACK(27, Easing::inBack), OUTBACK(28, Easing::outBack), INOUTBACK(29, Easing::inOutBack),
+    INELASTIC(30, Easing::inElastic), OUTELASTIC(31, Easing::outElastic), INOUTELASTIC(32, Easing::inOutElastic),
+    INBOUNCE(33, Easing::inBounce), OUTBOUNCE(34, Easing::outBounce), INOUTBOUNCE(35, Easing::inOutBounce);
 
     final byte id;
+    private final EasingFunction function;
 
     /**
      * @param id id
+     * @param function easing curve
      */
-    Ease(byte id){
+    Ease(byte id, EasingFunction function){
         this.id = id;
+        this.function = function;
     }
 
     /**
      * @param id id
+     * @param function easing curve
      */
-    Ease(int id) {
-        this((byte) id);
+    Ease(int id, EasingFunction function) {
+        this((byte) id, function);
     }
 
     public byte getId() {
         return id;
     }
 
-    //To be able to send these as bytes instead of String names.
-    public static Ease getEase(byte b){
+    /**
+     * @return the exact easing curve, {@link Easing#easingFromEnum(Ease, float)} may use a lookup table instead
+     */
+    public EasingFunction getFunction() {
+        return function;
+    }
+
+    private static final Ease[] byId = new Ease[256];
+
+    static {
         for(Ease ease:Ease.values()){
-            if(ease.id == b) return ease;
+            byId[ease.id & 0xFF] = ease;
         }
-        return LINEAR;
+    }
+
+    //To be able to send these as bytes instead of String names.
+    public static Ease getEase(byte b){
+        Ease ease = byId[b & 0xFF];
+        return ease == null ? LINEAR : ease;
     }
 }
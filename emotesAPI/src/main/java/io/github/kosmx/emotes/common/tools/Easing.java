@@ -1,8 +1,26 @@
 package io.github.kosmx.emotes.common.tools;
 
+import java.util.EnumSet;
 
 public class Easing {
 
+    private static final EasingFunction[] exactFunctions = new EasingFunction[256];
+    /**
+     * Functions used for evaluation, the exact ones or their lookup tables
+     */
+    private static volatile EasingFunction[] functions;
+    private static final EnumSet<Ease> lookupEasings = EnumSet.complementOf(EnumSet.of(
+            Ease.LINEAR, Ease.CONSTANT, Ease.INCUBIC, Ease.INQUAD, Ease.OUTQUAD, Ease.INQUART, Ease.INQUINT, Ease.INBACK));
+    private static boolean useLookupTables = false;
+    private static float lookupTableMaxError = 0;
+
+    static {
+        for (Ease ease : Ease.values()) {
+            exactFunctions[ease.id & 0xFF] = ease.getFunction();
+        }
+        functions = exactFunctions.clone();
+    }
+
     /*
      * Easing functions from easings.net
      * All function have a string codename
@@ -12,75 +30,64 @@ public class Easing {
      * except
      */
     public static float easingFromEnum(Ease type, float f){
-        switch(type){
-            case INOUTSINE:
-                return inOutSine(f);
-            case INSINE:
-                return inSine(f);
-            case OUTSINE:
-                return outSine(f);
-            case INCUBIC:
-                return inCubic(f);
-            case OUTCUBIC:
-                return outCubic(f);
-            case LINEAR:
-                return f;
-            case INOUTCUBIC:
-                return inOutCubic(f);
-            case INQUAD:
-                return inQuad(f);
-            case INQUART:
-                return inQuart(f);
-            case OUTQUAD:
-                return outQuad(f);
-            case OUTQUART:
-                return outQuart(f);
-            case INOUTQUAD:
-                return inOutQuad(f);
-            case INOUTQUART:
-                return inOutQuart(f);
-            case INBACK:
-                return inBack(f);
-            case INCIRC:
-                return inCirc(f);
-            case INEXPO:
-                return inExpo(f);
-            case INQUINT:
-                return inQuint(f);
-            case OUTBACK:
-                return outBack(f);
-            case OUTCIRC:
-                return outCirc(f);
-            case OUTEXPO:
-                return outExpo(f);
-            case INBOUNCE:
-                return inBounce(f);
-            case OUTQUINT:
-                return outQuint(f);
-            case INELASTIC:
-                return inElastic(f);
-            case INOUTBACK:
-                return inOutBack(f);
-            case INOUTCIRC:
-                return inOutCirc(f);
-            case INOUTEXPO:
-                return inOutExpo(f);
-            case OUTBOUNCE:
-                return outBounce(f);
-            case INOUTQUINT:
-                return inOutQuint(f);
-            case OUTELASTIC:
-                return outElastic(f);
-            case INOUTBOUNCE:
-                return inOutBounce(f);
-            case INOUTELASTIC:
-                return inOutElastic(f);
-            case CONSTANT:
-                return 0;
-            default:
-                //CommonData.logger.warn("easing function unknown: " + type);
-                return f;
+        return functions[type.id & 0xFF].ease(f);
+    }
+
+    /**
+     * Evaluate a built-in or a registered custom easing
+     * @param id ease ID
+     * @param f  progress
+     * @return eased progress, linear if the ID is unknown
+     */
+    public static float easingFromId(byte id, float f) {
+        EasingFunction function = functions[id & 0xFF];
+        return function == null ? f : function.ease(f);
+    }
+
+    /**
+     * @param id ease ID
+     * @return true if the ID is a built-in or a registered easing
+     */
+    public static boolean isRegistered(byte id) {
+        return exactFunctions[id & 0xFF] != null;
+    }
+
+    /**
+     * Register a custom easing.
+     * Custom easings only have an ID, they are kept in the binary emote format, text formats store them as linear.
+     * Every client has to register it to play it correctly.
+     *
+     * @param id       ease ID, not used by {@link Ease} or other custom easings
+     * @param function easing curve
+     * @throws IllegalArgumentException if the ID is already used
+     */
+    public static synchronized void registerEasing(byte id, EasingFunction function) {
+        if (exactFunctions[id & 0xFF] != null) throw new IllegalArgumentException("Ease ID " + id + " is already registered");
+        exactFunctions[id & 0xFF] = function;
+        EasingFunction[] newFunctions = functions.clone();
+        newFunctions[id & 0xFF] = function;
+        functions = newFunctions;
+    }
+
+    /**
+     * Evaluate the expensive built-in easings from precomputed tables (at least {@value EasingLookupTable#DEFAULT_SAMPLES} samples).
+     * An easing is only tabulated if the table can stay in the error bound, the others remain exact.
+     *
+     * @param enabled  use lookup tables
+     * @param maxError largest allowed difference from the exact curve
+     */
+    public static synchronized void setLookupTables(boolean enabled, float maxError) {
+        if (enabled == useLookupTables && (!enabled || maxError == lookupTableMaxError)) return;
+        EasingFunction[] newFunctions = exactFunctions.clone();
+        if (enabled) {
+            for (Ease ease : lookupEasings) {
+                EasingLookupTable table = EasingLookupTable.create(ease.getFunction(), maxError);
+                if (table != null) newFunctions[ease.id & 0xFF] = table;
+            }
         }
+        functions = newFunctions;
+        useLookupTables = enabled;
+        lookupTableMaxError = maxError;
     }
 
     /**
@@ -0,0 +1,15 @@
+package io.github.kosmx.emotes.common.tools;
+
+/**
+ * An easing curve, maps the progress between two keyframes to the interpolation weight.
+ * Register custom ones with {@link Easing#registerEasing(byte, EasingFunction)}
+ */
+@FunctionalInterface
+public interface EasingFunction {
+
+    /**
+     * @param f progress, usually between 0 and 1
+     * @return eased progress, 0 at 0 and 1 at 1
+     */
+    float ease(float f);
+}
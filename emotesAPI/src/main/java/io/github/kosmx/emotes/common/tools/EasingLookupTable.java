@@ -0,0 +1,69 @@
+package io.github.kosmx.emotes.common.tools;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Precomputed samples of an easing curve, interpolated linearly.
+ * Inputs outside of (0; 1) are evaluated with the original function,
+ * some curves are defined separately at exactly 0 and 1, the tables store the limits there.
+ */
+@Immutable
+final class EasingLookupTable implements EasingFunction {
+    static final int DEFAULT_SAMPLES = 1024;
+    private static final int MAX_SAMPLES = 1 << 16;
+
+    private final EasingFunction function;
+    private final float[] table;
+    private final int samples;
+
+    private EasingLookupTable(EasingFunction function, float[] table) {
+        this.function = function;
+        this.table = table;
+        this.samples = table.length - 1;
+    }
+
+    /**
+     * Sample the function, the sample count is doubled until the error is in the bound.
+     * @param function function to sample
+     * @param maxError allowed difference from the function
+     * @return lookup table or null if the function can't be sampled accurately enough
+     */
+    @Nullable
+    static EasingLookupTable create(EasingFunction function, float maxError) {
+        for (int samples = DEFAULT_SAMPLES; samples <= MAX_SAMPLES; samples *= 2) {
+            float[] table = new float[samples + 1];
+            for (int i = 0; i <= samples; i++) {
+                table[i] = function.ease((float) i / samples);
+            }
+            table[0] = function.ease(Math.nextUp(0f));
+            table[samples] = function.ease(Math.nextDown(1f));
+            EasingLookupTable lookupTable = new EasingLookupTable(function, table);
+            if (lookupTable.maxError() <= maxError) return lookupTable;
+        }
+        return null;
+    }
+
+    /**
+     * Check the quarter points of every interval, the largest error of a smooth curve is around the middle.
+     */
+    private float maxError() {
+        float error = 0;
+        for (int i = 0; i < samples; i++) {
+            for (int j = 1; j < 4; j++) {
+                float f = (i + j / 4f) / samples;
+                error = Math.max(error, Math.abs(ease(f) - function.ease(f)));
+            }
+        }
+        return error;
+    }
+
+    @Override
+    public float ease(float f) {
+        if (!(f > 0 && f < 1)) return function.ease(f);
+        float pos = f * samples;
+        int i = (int) pos;
+        if (i >= samples) return table[samples];
+        return MathHelper.lerp(pos - i, table[i], table[i + 1]);
+    }
+}
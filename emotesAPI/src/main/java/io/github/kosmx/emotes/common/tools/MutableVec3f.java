@@ -0,0 +1,63 @@
+package io.github.kosmx.emotes.common.tools;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Mutable float vector, a reusable target for transforms.
+ * Use {@link Vec3f} if you need to store the value.
+ */
+@NotThreadSafe
+public class MutableVec3f {
+    public float x;
+    public float y;
+    public float z;
+
+    public MutableVec3f() {
+        this(0, 0, 0);
+    }
+
+    public MutableVec3f(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public MutableVec3f(Vector3<Float> vec) {
+        this(vec.getX(), vec.getY(), vec.getZ());
+    }
+
+    public MutableVec3f set(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    public MutableVec3f set(Vector3<Float> vec) {
+        return this.set(vec.getX(), vec.getY(), vec.getZ());
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getZ() {
+        return z;
+    }
+
+    /**
+     * @return immutable copy
+     */
+    public Vec3f toVec3f() {
+        return new Vec3f(x, y, z);
+    }
+
+    @Override
+    public String toString() {
+        return "MutableVec3f[" + this.getX() + "; " + this.getY() + "; " + this.getZ() + "]";
+    }
+}
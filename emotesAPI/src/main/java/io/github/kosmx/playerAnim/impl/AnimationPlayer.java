@@ -1,6 +1,8 @@
 package io.github.kosmx.playerAnim.impl;
 
 import io.github.kosmx.emotes.api.Pair;
+import io.github.kosmx.emotes.common.emote.PartRegistry;
+import io.github.kosmx.emotes.common.tools.MutableVec3f;
 import io.github.kosmx.emotes.common.tools.Vec3f;
 import io.github.kosmx.playerAnim.TransformType;
 import io.github.kosmx.playerAnim.layered.IAnimation;
@@ -11,6 +13,13 @@ import io.github.kosmx.playerAnim.layered.IAnimation;
 public class AnimationPlayer {
     private final IAnimation animation;
     private float tickDelta = 0f;
+    private int levelOfDetail = 1;
+    //Starts from a different frame for every player to not update every far player in the same frame
+    private int frameCounter = System.identityHashCode(this);
+    private boolean isPrepared = false;
+    private float preparedTickDelta;
+    //The prepared frame isn't skipped by the level of detail
+    private boolean isPreparedFrameSetUp;
 
     public AnimationPlayer(IAnimation animation) {
         this.animation = animation;
@@ -28,14 +37,103 @@ public class AnimationPlayer {
         return animation.get3DTransform(modelName, type, this.tickDelta, value0);
     }
 
+    /**
+     * Transform the value in place, without allocating
+     * @param modelName model part
+     * @param type      transform type
+     * @param value     value before the transform, will be set to the transformed value
+     */
+    public void get3DTransform(String modelName, TransformType type, MutableVec3f value) {
+        animation.get3DTransform(modelName, type, this.tickDelta, value);
+    }
+
+    /**
+     * Transform the value in place, without allocating and without looking up the part name
+     * @param partId    {@link PartRegistry} ID of the model part
+     * @param type      transform type
+     * @param value     value before the transform, will be set to the transformed value
+     */
+    public void get3DTransform(int partId, TransformType type, MutableVec3f value) {
+        animation.get3DTransform(partId, type, this.tickDelta, value);
+    }
+
+    /**
+     * Set the tick delta of the frame and set up the animation.
+     * With a level of detail, the animation is only set up in every n-th frame and the last pose is reused in between.
+     * Don't call it if the player isn't rendered, the animation will still tick.
+     * @param tickDelta Time since the last tick. 0-1
+     */
     public void setTickDelta(float tickDelta) {
-        this.tickDelta = tickDelta;
-        this.animation.setupAnim(tickDelta);
+        if (isPrepared) {
+            isPrepared = false;
+            if (tickDelta == preparedTickDelta) {
+                //Only the thread safe layers were set up
+                if (isPreparedFrameSetUp) this.animation.setupAnim(tickDelta, false);
+                return;
+            }
+        }
+        if (nextFrame()) {
+            this.tickDelta = tickDelta;
+            this.animation.setupAnim(tickDelta);
+        }
+    }
+
+    /**
+     * Set up the {@link IAnimation#isThreadSafe()} layers of the frame before rendering,
+     * the next {@link AnimationPlayer#setTickDelta(float)} with the same tick delta sets up only the other layers.
+     * Can be called from a worker thread, but not concurrently with the render thread.
+     * @param tickDelta Time since the last tick. 0-1
+     */
+    public void prepare(float tickDelta) {
+        this.isPreparedFrameSetUp = nextFrame();
+        if (isPreparedFrameSetUp) {
+            this.tickDelta = tickDelta;
+            this.animation.setupAnim(tickDelta, true);
+        }
+        this.preparedTickDelta = tickDelta;
+        this.isPrepared = true;
+    }
+
+    /**
+     * @return the frame isn't skipped by the level of detail
+     */
+    private boolean nextFrame() {
+        return ++frameCounter % levelOfDetail == 0;
+    }
+
+    /**
+     * @param levelOfDetail set up the pose in every n-th frame, 1 updates it in every frame
+     */
+    public void setLevelOfDetail(int levelOfDetail) {
+        this.levelOfDetail = Math.max(levelOfDetail, 1);
+    }
+
+    public int getLevelOfDetail() {
+        return levelOfDetail;
     }
 
     public Pair<Float, Float> getBend(String modelName) {
-        Vec3f bendVec = this.get3DTransform(modelName, TransformType.BEND, Vec3f.ZERO);
+        MutableVec3f bendVec = new MutableVec3f();
+        this.getBend(modelName, bendVec);
         return new Pair<>(bendVec.getX(), bendVec.getY());
     }
 
+    /**
+     * Get the bend without allocating
+     * @param modelName model part
+     * @param value     x will be set to the bend axis, y to the bend value
+     */
+    public void getBend(String modelName, MutableVec3f value) {
+        this.get3DTransform(modelName, TransformType.BEND, value.set(0, 0, 0));
+    }
+
+    /**
+     * Get the bend without allocating
+     * @param partId {@link PartRegistry} ID of the model part
+     * @param value  x will be set to the bend axis, y to the bend value
+     */
+    public void getBend(int partId, MutableVec3f value) {
+        this.get3DTransform(partId, TransformType.BEND, value.set(0, 0, 0));
+    }
+
 }
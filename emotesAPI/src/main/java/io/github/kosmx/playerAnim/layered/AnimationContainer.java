@@ -1,5 +1,6 @@
 package io.github.kosmx.playerAnim.layered;
 
+import io.github.kosmx.emotes.common.tools.MutableVec3f;
 import io.github.kosmx.emotes.common.tools.Vec3f;
 import io.github.kosmx.playerAnim.TransformType;
 
@@ -41,8 +42,28 @@ public class AnimationContainer<T extends IAnimation> implements IAnimation {
         return anim == null ? value0 : anim.get3DTransform(modelName, type, tickDelta, value0);
     }
 
+    @Override
+    public void get3DTransform(String modelName, TransformType type, float tickDelta, MutableVec3f value) {
+        if (anim != null) anim.get3DTransform(modelName, type, tickDelta, value);
+    }
+
+    @Override
+    public void get3DTransform(int partId, TransformType type, float tickDelta, MutableVec3f value) {
+        if (anim != null) anim.get3DTransform(partId, type, tickDelta, value);
+    }
+
     @Override
     public void setupAnim(float tickDelta) {
         if (this.anim != null) this.anim.setupAnim(tickDelta);
     }
+
+    @Override
+    public boolean isThreadSafe() {
+        return anim == null || anim.isThreadSafe();
+    }
+
+    @Override
+    public void setupAnim(float tickDelta, boolean threadSafe) {
+        if (this.anim != null) this.anim.setupAnim(tickDelta, threadSafe);
+    }
 }
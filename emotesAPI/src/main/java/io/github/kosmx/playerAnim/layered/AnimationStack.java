@@ -1,6 +1,7 @@
 package io.github.kosmx.playerAnim.layered;
 
 import io.github.kosmx.emotes.api.Pair;
+import io.github.kosmx.emotes.common.tools.MutableVec3f;
 import io.github.kosmx.emotes.common.tools.Vec3f;
 import io.github.kosmx.playerAnim.TransformType;
 
@@ -46,6 +47,24 @@ public class AnimationStack implements IAnimation {
         return value0;
     }
 
+    @Override
+    public void get3DTransform(String modelName, TransformType type, float tickDelta, MutableVec3f value) {
+        for (Pair<Integer, IAnimation> layer : layers) {
+            if (layer.getRight().isActive()) {
+                layer.getRight().get3DTransform(modelName, type, tickDelta, value);
+            }
+        }
+    }
+
+    @Override
+    public void get3DTransform(int partId, TransformType type, float tickDelta, MutableVec3f value) {
+        for (Pair<Integer, IAnimation> layer : layers) {
+            if (layer.getRight().isActive()) {
+                layer.getRight().get3DTransform(partId, type, tickDelta, value);
+            }
+        }
+    }
+
     @Override
     public void setupAnim(float tickDelta) {
         for (Pair<Integer, IAnimation> layer : layers) {
@@ -53,6 +72,24 @@ public class AnimationStack implements IAnimation {
         }
     }
 
+    /**
+     * @return true if every layer is thread safe
+     */
+    @Override
+    public boolean isThreadSafe() {
+        for (Pair<Integer, IAnimation> layer : layers) {
+            if (!layer.getRight().isThreadSafe()) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void setupAnim(float tickDelta, boolean threadSafe) {
+        for (Pair<Integer, IAnimation> layer : layers) {
+            layer.getRight().setupAnim(tickDelta, threadSafe);
+        }
+    }
+
 
     /**
      * Add an animation layer.
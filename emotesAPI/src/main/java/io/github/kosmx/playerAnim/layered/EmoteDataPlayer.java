@@ -2,15 +2,22 @@ package io.github.kosmx.playerAnim.layered;
 
 import io.github.kosmx.emotes.api.Pair;
 import io.github.kosmx.emotes.common.emote.EmoteData;
+import io.github.kosmx.emotes.common.emote.PartRegistry;
+import io.github.kosmx.emotes.common.tools.Ease;
 import io.github.kosmx.emotes.common.tools.Easing;
 import io.github.kosmx.emotes.common.tools.MathHelper;
+import io.github.kosmx.emotes.common.tools.MutableVec3f;
 import io.github.kosmx.emotes.common.tools.Vec3f;
-import io.github.kosmx.emotes.common.tools.Vector3;
 import io.github.kosmx.playerAnim.TransformType;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Animation player for EmoteX emote format,
@@ -24,6 +31,8 @@ public class EmoteDataPlayer implements IAnimation {
     private boolean isRunning = true;
     private int currentTick = 0;
     private boolean isLoopStarted = false;
+    private final boolean isBaked;
+    private final boolean sharePoses;
 
     protected float tickDelta;
 
@@ -31,20 +40,87 @@ public class EmoteDataPlayer implements IAnimation {
      * Will be removed when I give up the 1.16- support
      */
     public final HashMap<String, BodyPart> bodyParts;
+    /**
+     * Same parts as {@link EmoteDataPlayer#bodyParts}, indexed by {@link PartRegistry} ID, missing parts are null
+     * The parts registered later are looked up by their name.
+     */
+    private final BodyPart[] partsById;
+    @Nullable
+    private BodyPart emptyPart = null;
     public int perspective = 0;
 
+    private final List<Axis> axes = new ArrayList<>();
+    /**
+     * Pose of the current frame, evaluated once for every axis.
+     * 3 floats per axis: eased progress, value before, value after, the mode tells which value is the axis' current value.
+     */
+    private float[] pose = new float[0];
+    private byte[] poseModes = new byte[0];
+    //The player's own pose buffer, pose and poseModes may point to a shared pose instead
+    private float[] ownPose = new float[0];
+    private byte[] ownPoseModes = new byte[0];
+    //The pose is kept until the next setupAnim, also after ticks: the frames skipped by a level of detail reuse it
+    private boolean isPoseEvaluated = false;
+    //Tick delta of the evaluated pose, quantized if the pose is shared
+    private float poseTickDelta;
+    //Key of the last shared pose lookup and the last pose published by this player
+    private long lastPoseKey = SharedPoses.NO_KEY;
+    @Nullable
+    private SharedPoses.Pose lastPublished = null;
+
     /**
      *
      * @param emote emote to play
      * @param t begin playing from tick
      */
     public EmoteDataPlayer(EmoteData emote, int t) {
+        this(emote, t, false);
+    }
+
+    /**
+     * Baked playback samples every axis once per tick (the tables are shared between the players of the same emote)
+     * and interpolates linearly between the samples. Cheaper, but the easing curves are only followed at whole ticks.
+     *
+     * @param emote emote to play
+     * @param t begin playing from tick
+     * @param baked use baked sample tables
+     */
+    public EmoteDataPlayer(EmoteData emote, int t, boolean baked) {
+        this(emote, t, baked, false);
+    }
+
+    /**
+     * Shared poses are evaluated once for every player playing the emote at the same tick and tick delta.
+     * The tick delta is quantized to {@link SharedPoses#TICK_DELTA_STEPS} steps to be able to share the pose.
+     * A player evaluates into its own buffer, a copy is published only if another player is in sync with it.
+     *
+     * @param emote emote to play
+     * @param t begin playing from tick
+     * @param baked use baked sample tables
+     * @param sharePoses share the evaluated pose with the in-sync players of the emote
+     */
+    public EmoteDataPlayer(EmoteData emote, int t, boolean baked, boolean sharePoses) {
         this.data = emote;
+        this.isBaked = baked;
+        this.sharePoses = sharePoses;
 
         this.bodyParts = new HashMap<>(emote.bodyParts.size());
         for(Map.Entry<String, EmoteData.StateCollection> part:emote.bodyParts.entrySet()){
             this.bodyParts.put(part.getKey(), new BodyPart(part.getValue()));
         }
+        //Only the registered parts get an ID, the emote's names aren't registered
+        this.partsById = new BodyPart[PartRegistry.size()];
+        for (Map.Entry<String, BodyPart> part : this.bodyParts.entrySet()) {
+            int id = PartRegistry.findId(part.getKey());
+            if (id >= 0 && id < partsById.length) this.partsById[id] = part.getValue();
+        }
+
+        if (baked) {
+            BakedEmote bakedEmote = emote.getDerivedData(BakedEmote.class, BakedEmote::new);
+            for (BodyPart part : this.bodyParts.values()) {
+                part.setBakedTables(bakedEmote);
+            }
+        }
 
         this.currentTick = t;
         if(isInfinite() && t > data.returnToTick){
@@ -59,6 +135,9 @@ public class EmoteDataPlayer implements IAnimation {
             if (data.isInfinite && this.currentTick > data.endTick) {
                 this.currentTick = data.returnToTick;
                 this.isLoopStarted = true;
+                for (BodyPart part : bodyParts.values()) {
+                    part.resetCursors();
+                }
             }
             if (currentTick >= data.stopTick) {
                 this.stop();
@@ -84,25 +163,109 @@ public class EmoteDataPlayer implements IAnimation {
 
     @Override
     public Vec3f get3DTransform(String modelName, TransformType type, float tickDelta, Vec3f value0) {
-        BodyPart part = bodyParts.get(modelName);
-        if (part == null) return value0;
+        MutableVec3f value = new MutableVec3f(value0);
+        get3DTransform(modelName, type, tickDelta, value);
+        return value.toVec3f();
+    }
+
+    @Override
+    public void get3DTransform(String modelName, TransformType type, float tickDelta, MutableVec3f value) {
+        applyTransform(bodyParts.get(modelName), type, value);
+    }
+
+    @Override
+    public void get3DTransform(int partId, TransformType type, float tickDelta, MutableVec3f value) {
+        applyTransform(findPart(partId), type, value);
+    }
+
+    private void applyTransform(@Nullable BodyPart part, TransformType type, MutableVec3f value) {
+        if (part == null || part.part == null) return;
         switch (type) {
             case POSITION:
-                return part.getBodyOffset(value0);
+                part.applyBodyOffset(value);
+                break;
             case ROTATION:
-                Vector3<Float> rot = part.getBodyRotation(value0);
-                return new Vec3f(rot.getX(), rot.getY(), rot.getZ());
+                part.applyBodyRotation(value);
+                break;
             case BEND:
-                Pair<Float, Float> bend = part.getBend(new Pair<>(value0.getX(), value0.getY()));
-                return new Vec3f(bend.getLeft(), bend.getRight(), 0f);
-            default:
-                return value0;
+                part.applyBend(value);
+                break;
         }
     }
 
     @Override
     public void setupAnim(float tickDelta) {
         this.tickDelta = tickDelta;
+        evaluatePose();
+    }
+
+    /**
+     * The pose is evaluated into the player's own buffer, the emote data is only read, the shared poses are thread safe.
+     * Override it if a subclass does more in {@link EmoteDataPlayer#setupAnim(float)}.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * Evaluate every axis for the current tick and tick delta, the transforms will only read the result.
+     */
+    private void evaluatePose() {
+        int count = axes.size();
+        if (sharePoses) {
+            SharedPoses sharedPoses = data.getDerivedData(SharedPoses.class, SharedPoses::new);
+            int quantizedDelta = Math.round(tickDelta * SharedPoses.TICK_DELTA_STEPS);
+            long key = SharedPoses.key(currentTick, isLoopStarted, isBaked, quantizedDelta);
+            SharedPoses.Pose shared = sharedPoses.get(key, count);
+            if (shared == null) {
+                //Someone else published the last pose or used the published one: this player is not alone
+                SharedPoses.Pose last = sharedPoses.get(lastPoseKey, count);
+                boolean inSync = last != null && last != lastPublished || lastPublished != null && lastPublished.used;
+                useOwnPose(count);
+                poseTickDelta = (float) quantizedDelta / SharedPoses.TICK_DELTA_STEPS;
+                evaluateAxes(count);
+                //A second player missed the same pose, or the player was in sync last time
+                if (sharedPoses.markMissed(key) || inSync) {
+                    lastPublished = new SharedPoses.Pose(key, pose.clone(), poseModes.clone());
+                    sharedPoses.put(lastPublished);
+                } else {
+                    lastPublished = null;
+                }
+            } else {
+                if (!shared.used) shared.used = true;
+                pose = shared.pose;
+                poseModes = shared.modes;
+            }
+            lastPoseKey = key;
+        } else {
+            useOwnPose(count);
+            poseTickDelta = tickDelta;
+            evaluateAxes(count);
+        }
+        isPoseEvaluated = true;
+    }
+
+    private void useOwnPose(int count) {
+        if (ownPoseModes.length < count) {
+            ownPose = new float[count * 3];
+            ownPoseModes = new byte[count];
+        }
+        pose = ownPose;
+        poseModes = ownPoseModes;
+    }
+
+    private void evaluateAxes(int count) {
+        for (int i = 0; i < count; i++) {
+            axes.get(i).evaluatePose();
+        }
+    }
+
+    /**
+     * Evaluate the pose if it wasn't set up yet, otherwise the last set up pose is read.
+     */
+    private void ensurePose() {
+        if (!isPoseEvaluated) evaluatePose();
     }
 
     /**
@@ -120,8 +283,29 @@ public class EmoteDataPlayer implements IAnimation {
     }
 
     public BodyPart getPart(String string){
-        BodyPart part = bodyParts.get(string);
-        return part == null ? new BodyPart(null) : part;
+        return orEmptyPart(bodyParts.get(string));
+    }
+
+    /**
+     * @param partId {@link PartRegistry} ID of the part
+     * @return the part or an empty part if the emote doesn't have it
+     */
+    public BodyPart getPart(int partId) {
+        return orEmptyPart(findPart(partId));
+    }
+
+    @Nullable
+    private BodyPart findPart(int partId) {
+        if (partId < 0) return null;
+        if (partId < partsById.length) return partsById[partId];
+        //Registered after this player was created
+        return partId < PartRegistry.size() ? bodyParts.get(PartRegistry.getName(partId)) : null;
+    }
+
+    private BodyPart orEmptyPart(@Nullable BodyPart part) {
+        if (part != null) return part;
+        if (emptyPart == null) emptyPart = new BodyPart(null);
+        return emptyPart;
     }
 
 
@@ -137,7 +321,19 @@ public class EmoteDataPlayer implements IAnimation {
         return data.isInfinite;
     }
 
+    public boolean isBaked() {
+        return isBaked;
+    }
+
+    public boolean isSharingPoses() {
+        return sharePoses;
+    }
+
 
+    private static final byte POSE_BEFORE_IS_CURRENT = 1;
+    private static final byte POSE_AFTER_IS_CURRENT = 2;
+    private static final byte POSE_HOLD = 4;
+    private static final byte POSE_IDENTITY = 8;
     public class BodyPart {
         @Nullable
         public final EmoteData.StateCollection part;
@@ -176,11 +372,57 @@ public class EmoteDataPlayer implements IAnimation {
         }
 
 
+        private void setBakedTables(BakedEmote bakedEmote) {
+            if (this.part == null) return;
+            this.x.setBakedTables(bakedEmote);
+            this.y.setBakedTables(bakedEmote);
+            this.z.setBakedTables(bakedEmote);
+            this.pitch.setBakedTables(bakedEmote);
+            this.yaw.setBakedTables(bakedEmote);
+            this.roll.setBakedTables(bakedEmote);
+            this.bendAxis.setBakedTables(bakedEmote);
+            this.bend.setBakedTables(bakedEmote);
+        }
+
+        private void resetCursors() {
+            if (this.part == null) return;
+            this.x.resetCursor();
+            this.y.resetCursor();
+            this.z.resetCursor();
+            this.pitch.resetCursor();
+            this.yaw.resetCursor();
+            this.roll.resetCursor();
+            this.bendAxis.resetCursor();
+            this.bend.resetCursor();
+        }
+
         public Pair<Float, Float> getBend(Pair<Float, Float> value0) {
             if(bend == null) return value0;
             return new Pair<>(this.bendAxis.getValueAtCurrentTick(value0.getLeft()), this.bend.getValueAtCurrentTick(value0.getRight()));
         }
 
+        /**
+         * Apply the transforms in place
+         * @param value current value, will be set to the transformed value
+         */
+        public void applyBodyOffset(MutableVec3f value) {
+            if(this.part == null) return;
+            value.set(this.x.getValueAtCurrentTick(value.x), this.y.getValueAtCurrentTick(value.y), this.z.getValueAtCurrentTick(value.z));
+        }
+
+        public void applyBodyRotation(MutableVec3f value) {
+            if(this.part == null) return;
+            value.set(this.pitch.getValueAtCurrentTick(value.x), this.yaw.getValueAtCurrentTick(value.y), this.roll.getValueAtCurrentTick(value.z));
+        }
+
+        /**
+         * x is the bend axis, y is the bend value
+         */
+        public void applyBend(MutableVec3f value) {
+            if(bend == null || bend.keyframes == null) return;
+            value.set(this.bendAxis.getValueAtCurrentTick(value.x), this.bend.getValueAtCurrentTick(value.y), 0f);
+        }
+
         public Vec3f getBodyOffset(Vec3f value0) {
             if(this.part == null) return value0;
             float x = this.x.getValueAtCurrentTick(value0.getX());
@@ -202,46 +444,98 @@ public class EmoteDataPlayer implements IAnimation {
 
     public class Axis {
         protected final EmoteData.StateCollection.State keyframes;
+        //Samples from beginTick to endTick
+        @Nullable
+        private float[] bakedTable = null;
+        //Samples of the looped part, from returnToTick to endTick
+        @Nullable
+        private float[] bakedLoopTable = null;
+        //Keyframe position of the last lookup
+        private int cursor = -1;
+        //Keyframe positions of endTick and returnToTick, valid for the keyframes' modification count
+        private int endTickPos;
+        private int returnTickPos;
+        private int loopPosModCount = -1;
+        //Keyframes around the evaluated tick, stored here to not allocate
+        private int beforeTick;
+        private float beforeValue;
+        private byte beforeEase;
+        private int afterTick;
+        private float afterValue;
+        private byte afterEase;
+        //The keyframe is the axis' current value, not a keyframe value
+        private boolean isBeforeCurrent;
+        private boolean isAfterCurrent;
+        //The keyframes are on the same tick, the value before is held
+        private boolean isHeld;
+        private final int poseIndex;
 
 
         public Axis(EmoteData.StateCollection.State keyframes) {
             this.keyframes = keyframes;
+            this.poseIndex = axes.size();
+            axes.add(this);
+        }
+
+        void setBakedTables(BakedEmote bakedEmote) {
+            if (keyframes == null) return;
+            this.bakedTable = bakedEmote.tables.get(keyframes);
+            this.bakedLoopTable = bakedEmote.loopTables.get(keyframes);
         }
 
-        private EmoteData.KeyFrame findBefore(int pos, float currentState) {
+        private void findBefore(int tick, int pos) {
             if (pos == -1) {
-                return (currentTick < data.beginTick) ?
-                        new EmoteData.KeyFrame(0, currentState) :
-                        (currentTick < data.endTick) ?
-                                new EmoteData.KeyFrame(data.beginTick, keyframes.defaultValue) :
-                                new EmoteData.KeyFrame(data.endTick, keyframes.defaultValue);
+                if (tick < data.beginTick) {
+                    setBeforeCurrent(0);
+                } else {
+                    setBefore(tick < data.endTick ? data.beginTick : data.endTick, keyframes.defaultValue, Ease.INOUTSINE.getId());
+                }
+                return;
             }
-            EmoteData.KeyFrame frame = this.keyframes.keyFrames.get(pos);
-            if (!isInfinite() && currentTick >= getData().endTick && pos == keyframes.length() - 1 && frame.tick < getData().endTick) {
-                return new EmoteData.KeyFrame(getData().endTick, frame.value, frame.ease);
+            if (!isInfinite() && tick >= getData().endTick && pos == keyframes.length() - 1 && keyframes.getTick(pos) < getData().endTick) {
+                setBefore(getData().endTick, keyframes.getValue(pos), keyframes.getEaseId(pos));
+            } else {
+                setBefore(keyframes.getTick(pos), keyframes.getValue(pos), keyframes.getEaseId(pos));
             }
-            return frame;
         }
 
-        private EmoteData.KeyFrame findAfter(int pos, float currentState) {
+        private void findAfter(int tick, int pos) {
             if (this.keyframes.length() > pos + 1) {
-                return this.keyframes.keyFrames.get(pos + 1);
+                setAfter(keyframes.getTick(pos + 1), keyframes.getValue(pos + 1), keyframes.getEaseId(pos + 1));
+            } else if (isInfinite()) {
+                setAfter(getData().endTick + 1, keyframes.defaultValue, Ease.INOUTSINE.getId());
+            } else if (tick < getData().endTick && this.keyframes.length() > 0) {
+                int last = this.keyframes.length() - 1;
+                setAfter(getData().endTick, keyframes.getValue(last), keyframes.getEaseId(last));
+            } else if (tick >= data.endTick) {
+                setAfterCurrent(data.stopTick);
+            } else {
+                setAfter(tick >= getData().beginTick ? getData().endTick : getData().beginTick, keyframes.defaultValue, Ease.INOUTSINE.getId());
             }
+        }
 
-            if (isInfinite()) {
-                return new EmoteData.KeyFrame(getData().endTick + 1, keyframes.defaultValue);
-            }
+        private void setBefore(int tick, float value, byte ease) {
+            this.beforeTick = tick;
+            this.beforeValue = value;
+            this.beforeEase = ease;
+            this.isBeforeCurrent = false;
+        }
 
-            if (currentTick < getData().endTick && this.keyframes.length() > 0) {
-                EmoteData.KeyFrame lastFrame = this.keyframes.keyFrames.get(this.keyframes.length() - 1);
-                return new EmoteData.KeyFrame(getData().endTick, lastFrame.value, lastFrame.ease);
-            }
+        private void setBeforeCurrent(int tick) {
+            setBefore(tick, 0, Ease.INOUTSINE.getId());
+            this.isBeforeCurrent = true;
+        }
 
-            return currentTick >= data.endTick ?
-                    new EmoteData.KeyFrame(data.stopTick, currentState) :
-                    currentTick >= getData().beginTick ?
-                            new EmoteData.KeyFrame(getData().endTick, keyframes.defaultValue) :
-                            new EmoteData.KeyFrame(getData().beginTick, keyframes.defaultValue);
+        private void setAfter(int tick, float value, byte ease) {
+            this.afterTick = tick;
+            this.afterValue = value;
+            this.afterEase = ease;
+            this.isAfterCurrent = false;
+        }
+
+        private void setAfterCurrent(int tick) {
+            setAfter(tick, 0, Ease.INOUTSINE.getId());
+            this.isAfterCurrent = true;
         }
 
 
@@ -252,19 +546,92 @@ public class EmoteDataPlayer implements IAnimation {
          * @return value
          */
         public float getValueAtCurrentTick(float currentValue) {
-            if(keyframes.isEnabled) {
-                int pos = keyframes.findAtTick(currentTick);
-                EmoteData.KeyFrame keyBefore = findBefore(pos, currentValue);
-                if (isLoopStarted && keyBefore.tick < data.returnToTick) {
-                    keyBefore = findBefore(keyframes.findAtTick(data.endTick), currentValue);
-                }
-                EmoteData.KeyFrame keyAfter = findAfter(pos, currentValue);
-                if (data.isInfinite && keyAfter.tick > data.endTick) {
-                    keyAfter = findAfter(keyframes.findAtTick(data.returnToTick), currentValue);
+            ensurePose();
+            byte mode = poseModes[poseIndex];
+            if ((mode & POSE_IDENTITY) != 0) return currentValue;
+            int i = poseIndex * 3;
+            float before = (mode & POSE_BEFORE_IS_CURRENT) != 0 ? currentValue : pose[i + 1];
+            if ((mode & POSE_HOLD) != 0) return before;
+            float after = (mode & POSE_AFTER_IS_CURRENT) != 0 ? currentValue : pose[i + 2];
+            return MathHelper.lerp(pose[i], before, after);
+        }
+
+        /**
+         * Evaluate the axis at the current tick into the pose buffer.
+         * The result doesn't depend on the current value, it is only substituted when reading the pose.
+         */
+        private void evaluatePose() {
+            int index = poseIndex * 3;
+            if (keyframes == null || !keyframes.isEnabled) {
+                poseModes[poseIndex] = POSE_IDENTITY;
+                return;
+            }
+            if (bakedTable != null) {
+                int i = isLoopStarted ? currentTick - data.returnToTick : currentTick - data.beginTick;
+                float[] table = isLoopStarted ? bakedLoopTable : bakedTable;
+                if (table != null && i >= 0 && i < table.length) {
+                    //The sample after the last one is the loop's first sample
+                    float next = i + 1 < table.length ? table[i + 1] : bakedLoopTable != null ? bakedLoopTable[0] : Float.NaN;
+                    if (!Float.isNaN(next)) {
+                        pose[index] = poseTickDelta;
+                        pose[index + 1] = table[i];
+                        pose[index + 2] = next;
+                        poseModes[poseIndex] = 0;
+                        return;
+                    }
                 }
-                return getValueFromKeyframes(keyBefore, keyAfter);
             }
-            return currentValue;
+            findKeyframes(currentTick, isLoopStarted);
+            byte mode = 0;
+            if (isBeforeCurrent) mode |= POSE_BEFORE_IS_CURRENT;
+            if (isAfterCurrent) mode |= POSE_AFTER_IS_CURRENT;
+            pose[index] = progress(beforeTick, beforeEase, afterTick, afterEase, currentTick, poseTickDelta);
+            if (isHeld) mode |= POSE_HOLD;
+            pose[index + 1] = beforeValue;
+            pose[index + 2] = afterValue;
+            poseModes[poseIndex] = mode;
+        }
+
+        /**
+         * Evaluate the keyframes at any tick, without the enabled check
+         *
+         * @param tick          tick
+         * @param tickDelta     tick delta
+         * @param loopStarted   is the emote looping already
+         * @param currentValue  the Current value of the axis
+         * @return value
+         */
+        protected float getValueAtTick(int tick, float tickDelta, boolean loopStarted, float currentValue) {
+            findKeyframes(tick, loopStarted);
+            return interpolate(beforeTick, isBeforeCurrent ? currentValue : beforeValue, beforeEase,
+                    afterTick, isAfterCurrent ? currentValue : afterValue, afterEase, tick, tickDelta);
+        }
+
+        private void findKeyframes(int tick, boolean loopStarted) {
+            int pos = keyframes.findAtTick(tick, cursor);
+            cursor = pos;
+            findBefore(tick, pos);
+            if (loopStarted && beforeTick < data.returnToTick) {
+                updateLoopPositions();
+                findBefore(tick, endTickPos);
+            }
+            findAfter(tick, pos);
+            if (data.isInfinite && afterTick > data.endTick) {
+                updateLoopPositions();
+                findAfter(tick, returnTickPos);
+            }
+        }
+
+        void resetCursor() {
+            this.cursor = -1;
+        }
+
+        private void updateLoopPositions() {
+            if (loopPosModCount != keyframes.getModificationCount()) {
+                endTickPos = keyframes.findAtTick(data.endTick);
+                returnTickPos = keyframes.findAtTick(data.returnToTick);
+                loopPosModCount = keyframes.getModificationCount();
+            }
         }
 
         /**
@@ -275,15 +642,27 @@ public class EmoteDataPlayer implements IAnimation {
          * @return value
          */
         protected final float getValueFromKeyframes(EmoteData.KeyFrame before, EmoteData.KeyFrame after) {
-            int tickBefore = before.tick;
-            int tickAfter = after.tick;
+            return interpolate(before.tick, before.value, before.ease.getId(), after.tick, after.value, after.ease.getId(), currentTick, tickDelta);
+        }
+
+        private float interpolate(int tickBefore, float valueBefore, byte easeBefore, int tickAfter, float valueAfter, byte easeAfter, int tick, float tickDelta) {
+            float progress = progress(tickBefore, easeBefore, tickAfter, easeAfter, tick, tickDelta);
+            if (isHeld) return valueBefore;
+            return MathHelper.lerp(progress, valueBefore, valueAfter);
+        }
+
+        /**
+         * @return eased progress between the keyframes, sets {@link Axis#isHeld}
+         */
+        private float progress(int tickBefore, byte easeBefore, int tickAfter, byte easeAfter, int tick, float tickDelta) {
             if (tickBefore >= tickAfter) {
-                if (currentTick < tickBefore) tickBefore -= data.endTick - data.returnToTick + 1;
+                if (tick < tickBefore) tickBefore -= data.endTick - data.returnToTick + 1;
                 else tickAfter += data.endTick - data.returnToTick + 1;
             }
-            if (tickBefore == tickAfter) return before.value;
-            float f = (currentTick + tickDelta - (float) tickBefore) / (tickAfter - tickBefore);
-            return MathHelper.lerp(Easing.easingFromEnum(data.isEasingBefore ? after.ease : before.ease, f), before.value, after.value);
+            isHeld = tickBefore == tickAfter;
+            if (isHeld) return 0;
+            float f = (tick + tickDelta - (float) tickBefore) / (tickAfter - tickBefore);
+            return Easing.easingFromId(data.isEasingBefore ? easeAfter : easeBefore, f);
         }
 
     }
@@ -299,4 +678,110 @@ public class EmoteDataPlayer implements IAnimation {
             return MathHelper.clampToRadian(super.getValueAtCurrentTick(MathHelper.clampToRadian(currentValue)));
         }
     }
+
+    /**
+     * Recently evaluated poses of an emote, shared between the players.
+     * The pose only depends on the emote and the players' tick, the players' current values are applied when reading it.
+     * Direct mapped, a colliding pose replaces the older one. Published poses are never modified.
+     *
+     * A player alone with the emote doesn't publish, it only marks the missed key.
+     * If another player misses the same key, that one publishes its pose, then both publish until no one uses them.
+     */
+    private static final class SharedPoses {
+        static final int TICK_DELTA_STEPS = 256;
+        static final long NO_KEY = Long.MIN_VALUE;
+        private static final int SIZE = 64;
+
+        private final AtomicReferenceArray<Pose> poses = new AtomicReferenceArray<>(SIZE);
+        private final AtomicLongArray missed = new AtomicLongArray(SIZE);
+
+        SharedPoses(EmoteData emote) {
+            for (int i = 0; i < SIZE; i++) missed.set(i, NO_KEY);
+        }
+
+        static long key(int tick, boolean loopStarted, boolean baked, int quantizedDelta) {
+            return (long) tick << 11 | (long) quantizedDelta << 2 | (loopStarted ? 2 : 0) | (baked ? 1 : 0);
+        }
+
+        @Nullable
+        Pose get(long key, int axisCount) {
+            if (key == NO_KEY) return null;
+            Pose pose = poses.get(slot(key));
+            if (pose != null && pose.key == key && pose.modes.length == axisCount) {
+                return pose;
+            }
+            return null;
+        }
+
+        /**
+         * @return another player has missed the same key
+         */
+        boolean markMissed(long key) {
+            return missed.getAndSet(slot(key), key) == key;
+        }
+
+        void put(Pose pose) {
+            poses.set(slot(pose.key), pose);
+        }
+
+        private static int slot(long key) {
+            int hash = (int) (key ^ key >>> 32);
+            return (hash ^ (hash >>> 16) ^ (hash >>> 8)) & (SIZE - 1);
+        }
+
+        static final class Pose {
+            final long key;
+            final float[] pose;
+            final byte[] modes;
+            //Another player has read it
+            volatile boolean used = false;
+
+            Pose(long key, float[] pose, byte[] modes) {
+                this.key = key;
+                this.pose = pose;
+                this.modes = modes;
+            }
+        }
+    }
+
+    /**
+     * Per-tick samples of every axis of an emote.
+     * Only the ticks where the value does not depend on the player's current pose are sampled,
+     * values are not clamped.
+     */
+    private static final class BakedEmote {
+        final Map<EmoteData.StateCollection.State, float[]> tables = new IdentityHashMap<>();
+        final Map<EmoteData.StateCollection.State, float[]> loopTables = new IdentityHashMap<>();
+
+        BakedEmote(EmoteData emote) {
+            EmoteDataPlayer sampler = new EmoteDataPlayer(emote, 0);
+            boolean bakeLoop = emote.isInfinite && emote.returnToTick >= emote.beginTick && emote.returnToTick <= emote.endTick;
+            for (BodyPart part : sampler.bodyParts.values()) {
+                bake(part.x, emote, bakeLoop);
+                bake(part.y, emote, bakeLoop);
+                bake(part.z, emote, bakeLoop);
+                bake(part.pitch, emote, bakeLoop);
+                bake(part.yaw, emote, bakeLoop);
+                bake(part.roll, emote, bakeLoop);
+                bake(part.bendAxis, emote, bakeLoop);
+                bake(part.bend, emote, bakeLoop);
+            }
+        }
+
+        private void bake(Axis axis, EmoteData emote, boolean bakeLoop) {
+            if (axis.keyframes == null) return;
+            float[] table = new float[emote.endTick - emote.beginTick + 1];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = axis.getValueAtTick(emote.beginTick + i, 0, false, axis.keyframes.defaultValue);
+            }
+            tables.put(axis.keyframes, table);
+            if (bakeLoop) {
+                float[] loopTable = new float[emote.endTick - emote.returnToTick + 1];
+                for (int i = 0; i < loopTable.length; i++) {
+                    loopTable[i] = axis.getValueAtTick(emote.returnToTick + i, 0, true, axis.keyframes.defaultValue);
+                }
+                loopTables.put(axis.keyframes, loopTable);
+            }
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package io.github.kosmx.playerAnim.layered;
 
+import io.github.kosmx.emotes.common.emote.PartRegistry;
+import io.github.kosmx.emotes.common.tools.MutableVec3f;
 import io.github.kosmx.emotes.common.tools.Vec3f;
 import io.github.kosmx.playerAnim.TransformType;
 
@@ -23,6 +25,7 @@ public interface IAnimation {
 
     /**
      * Get the transformed value to a model part, transform type.
+     * Allocates a new vector, use {@link IAnimation#get3DTransform(String, TransformType, float, MutableVec3f)} on hot paths.
      * @param modelName The questionable model part
      * @param type      Transform type
      * @param tickDelta Time since the last tick. 0-1
@@ -31,10 +34,54 @@ public interface IAnimation {
      */
     Vec3f get3DTransform(String modelName, TransformType type, float tickDelta, Vec3f value0);
 
+    /**
+     * Transform a model part's value in place, without allocating.
+     * By default it uses {@link IAnimation#get3DTransform(String, TransformType, float, Vec3f)}, override it to not allocate.
+     * @param modelName The questionable model part
+     * @param type      Transform type
+     * @param tickDelta Time since the last tick. 0-1
+     * @param value     The value before the transform, set it to the new value. For identity transform leave it.
+     */
+    default void get3DTransform(String modelName, TransformType type, float tickDelta, MutableVec3f value) {
+        value.set(get3DTransform(modelName, type, tickDelta, value.toVec3f()));
+    }
+
+    /**
+     * Transform a model part's value in place, the part is identified by its {@link PartRegistry} ID.
+     * Resolve the ID once and use this on hot paths, override it if you can look up parts without the name.
+     * @param partId    The questionable model part's ID
+     * @param type      Transform type
+     * @param tickDelta Time since the last tick. 0-1
+     * @param value     The value before the transform, set it to the new value. For identity transform leave it.
+     */
+    default void get3DTransform(int partId, TransformType type, float tickDelta, MutableVec3f value) {
+        get3DTransform(PartRegistry.getName(partId), type, tickDelta, value);
+    }
+
     /**
      * Called before rendering a character
      * @param tickDelta Time since the last tick. 0-1
      */
     void setupAnim(float tickDelta);
 
+    /**
+     * Can {@link IAnimation#setupAnim(float)} run on a worker thread, while other players' animations are set up.
+     * It may only modify the animation's own state, shared state has to be read only or thread safe.
+     * The render thread doesn't use the animation meanwhile.
+     * @return false if it has to be set up on the render thread
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Set up only the thread safe or only the other parts of the animation, the two together is {@link IAnimation#setupAnim(float)}.
+     * Override it if the animation contains other animations.
+     * @param tickDelta  Time since the last tick. 0-1
+     * @param threadSafe set up the {@link IAnimation#isThreadSafe()} parts or the others
+     */
+    default void setupAnim(float tickDelta, boolean threadSafe) {
+        if (isThreadSafe() == threadSafe) setupAnim(tickDelta);
+    }
+
 }
@@ -1,6 +1,8 @@
 package io.github.kosmx.playerAnim.layered;
 
 import io.github.kosmx.emotes.api.Pair;
+import io.github.kosmx.emotes.common.emote.PartRegistry;
+import io.github.kosmx.emotes.common.tools.MutableVec3f;
 import io.github.kosmx.emotes.common.tools.Vec3f;
 import io.github.kosmx.playerAnim.TransformType;
 
@@ -26,16 +28,22 @@ public abstract class PlayerAnimationFrame implements IAnimation {
     protected PlayerPart leftItem = new PlayerPart();
 
     HashMap<String, PlayerPart> parts = new HashMap<>();
+    private final PlayerPart[] partsById = new PlayerPart[PartRegistry.LEFT_ITEM + 1];
 
     public PlayerAnimationFrame() {
-        parts.put("head", head);
-        parts.put("body", body);
-        parts.put("rightArm", rightArm);
-        parts.put("leftArm", leftArm);
-        parts.put("rightLeg", rightLeg);
-        parts.put("leftLeg", leftLeg);
-        parts.put("rightItem", rightItem);
-        parts.put("leftItem", leftItem);
+        addPart(PartRegistry.HEAD, head);
+        addPart(PartRegistry.BODY, body);
+        addPart(PartRegistry.RIGHT_ARM, rightArm);
+        addPart(PartRegistry.LEFT_ARM, leftArm);
+        addPart(PartRegistry.RIGHT_LEG, rightLeg);
+        addPart(PartRegistry.LEFT_LEG, leftLeg);
+        addPart(PartRegistry.RIGHT_ITEM, rightItem);
+        addPart(PartRegistry.LEFT_ITEM, leftItem);
+    }
+
+    private void addPart(int id, PlayerPart part) {
+        parts.put(PartRegistry.getName(id), part);
+        partsById[id] = part;
     }
 
 
@@ -66,17 +74,30 @@ public abstract class PlayerAnimationFrame implements IAnimation {
 
     @Override
     public Vec3f get3DTransform(String modelName, TransformType type, float tickDelta, Vec3f value0) {
-        PlayerPart part = parts.get(modelName);
-        if (part == null) return value0;
+        MutableVec3f value = new MutableVec3f(value0);
+        get3DTransform(modelName, type, tickDelta, value);
+        return value.toVec3f();
+    }
+
+    @Override
+    public void get3DTransform(String modelName, TransformType type, float tickDelta, MutableVec3f value) {
+        get3DTransform(PartRegistry.findId(modelName), type, tickDelta, value);
+    }
+
+    @Override
+    public void get3DTransform(int partId, TransformType type, float tickDelta, MutableVec3f value) {
+        if (partId < 0 || partId >= partsById.length) return;
+        PlayerPart part = partsById[partId];
         switch (type) {
             case POSITION:
-                return part.pos == null ? value0 : part.pos;
+                if (part.pos != null) value.set(part.pos);
+                break;
             case ROTATION:
-                return part.rot == null ? value0 : part.rot;
+                if (part.rot != null) value.set(part.rot);
+                break;
             case BEND:
-                return part.bend == null ? value0 : new Vec3f(part.bend.getLeft(), part.bend.getRight(), 0f);
-            default:
-                return value0;
+                if (part.bend != null) value.set(part.bend.getLeft(), part.bend.getRight(), 0f);
+                break;
         }
     }
 
@@ -0,0 +1,104 @@
+package io.github.kosmx.emotes.testing.common;
+
+import io.github.kosmx.emotes.common.emote.EmoteData;
+import io.github.kosmx.emotes.common.emote.EmoteFormat;
+import io.github.kosmx.emotes.common.tools.Ease;
+import io.github.kosmx.emotes.common.tools.MutableVec3f;
+import io.github.kosmx.emotes.common.tools.Vec3f;
+import io.github.kosmx.playerAnim.TransformType;
+import io.github.kosmx.playerAnim.impl.AnimationPlayer;
+import io.github.kosmx.playerAnim.layered.AnimationStack;
+import io.github.kosmx.playerAnim.layered.EmoteDataPlayer;
+import io.github.kosmx.playerAnim.layered.IAnimation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class AnimationPlayerTest {
+    @Test
+    @DisplayName("Frames skipped by the level of detail keep the last pose")
+    public void levelOfDetailTest() {
+        EmoteData.EmoteBuilder builder = new EmoteData.EmoteBuilder(EmoteFormat.UNKNOWN);
+        builder.endTick = 100;
+        builder.rightArm.x.addKeyFrame(0, 0, Ease.LINEAR);
+        builder.rightArm.x.addKeyFrame(100, 100, Ease.LINEAR);
+        CountingAnimation animation = new CountingAnimation(new EmoteDataPlayer(builder.build(), 0));
+        AnimationPlayer player = new AnimationPlayer(animation);
+        player.setLevelOfDetail(2);
+
+        //The first evaluated frame depends on the player
+        for (int i = 0; i < 2 && animation.setupCount == 0; i++) player.setTickDelta(0.5f);
+        Assertions.assertEquals(1, animation.setupCount);
+        float pose = getX(player);
+
+        player.tick();
+        player.setTickDelta(0.5f);
+        Assertions.assertEquals(1, animation.setupCount, "skipped frame is not set up");
+        Assertions.assertEquals(pose, getX(player), 0f, "skipped frame doesn't move the pose");
+
+        player.setTickDelta(0.5f);
+        Assertions.assertEquals(2, animation.setupCount);
+        Assertions.assertEquals(pose + 1, getX(player), 1e-4f, "next frame is evaluated at the new tick");
+    }
+
+    @Test
+    @DisplayName("Preparing sets up only the thread safe layers")
+    public void prepareTest() {
+        EmoteData.EmoteBuilder builder = new EmoteData.EmoteBuilder(EmoteFormat.UNKNOWN);
+        builder.endTick = 100;
+        AnimationStack stack = new AnimationStack();
+        CountingAnimation animation = new CountingAnimation(new EmoteDataPlayer(builder.build(), 0));
+        stack.addAnimLayer(0, animation);
+        stack.addAnimLayer(1, new EmoteDataPlayer(builder.build(), 0));
+        AnimationPlayer player = new AnimationPlayer(stack);
+
+        Assertions.assertFalse(stack.isThreadSafe());
+        player.prepare(0.5f);
+        Assertions.assertEquals(0, animation.setupCount, "not thread safe layer is not set up by prepare");
+        player.setTickDelta(0.5f);
+        Assertions.assertEquals(1, animation.setupCount, "it is set up on the render thread");
+        player.setTickDelta(0.5f);
+        Assertions.assertEquals(2, animation.setupCount);
+    }
+
+    private static float getX(AnimationPlayer player) {
+        MutableVec3f value = new MutableVec3f();
+        player.get3DTransform("rightArm", TransformType.POSITION, value);
+        return value.getX();
+    }
+
+    private static final class CountingAnimation implements IAnimation {
+        final EmoteDataPlayer player;
+        int setupCount = 0;
+
+        CountingAnimation(EmoteDataPlayer player) {
+            this.player = player;
+        }
+
+        @Override
+        public void tick() {
+            player.tick();
+        }
+
+        @Override
+        public boolean isActive() {
+            return player.isActive();
+        }
+
+        @Override
+        public Vec3f get3DTransform(String modelName, TransformType type, float tickDelta, Vec3f value0) {
+            return player.get3DTransform(modelName, type, tickDelta, value0);
+        }
+
+        @Override
+        public void get3DTransform(String modelName, TransformType type, float tickDelta, MutableVec3f value) {
+            player.get3DTransform(modelName, type, tickDelta, value);
+        }
+
+        @Override
+        public void setupAnim(float tickDelta) {
+            setupCount++;
+            player.setupAnim(tickDelta);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.kosmx.emotes.testing.common;
+
+import io.github.kosmx.emotes.common.tools.Ease;
+import io.github.kosmx.emotes.common.tools.Easing;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class EasingTest {
+    @Test
+    @DisplayName("Easing lookup tables stay in the error bound")
+    public void lookupTableTest() {
+        float maxError = 1e-4f;
+        Easing.setLookupTables(true, maxError);
+        try {
+            for (Ease ease : Ease.values()) {
+                for (int i = 0; i <= 10000; i++) {
+                    float f = i / 10000f;
+                    Assertions.assertEquals(ease.getFunction().ease(f), Easing.easingFromEnum(ease, f), maxError, ease + " at " + f);
+                }
+                Assertions.assertEquals(ease.getFunction().ease(1.5f), Easing.easingFromEnum(ease, 1.5f), 0f, ease + " out of range");
+            }
+        } finally {
+            Easing.setLookupTables(false, 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Custom easing registration")
+    public void registryTest() {
+        byte id = (byte) 200;
+        Assertions.assertFalse(Easing.isRegistered(id));
+        Assertions.assertEquals(0.5f, Easing.easingFromId(id, 0.5f), 0f, "unknown easings are linear");
+
+        Easing.registerEasing(id, f -> f * f);
+        Assertions.assertTrue(Easing.isRegistered(id));
+        Assertions.assertEquals(0.25f, Easing.easingFromId(id, 0.5f), 0f);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Easing.registerEasing(Ease.INOUTSINE.getId(), f -> f));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Easing.registerEasing(id, f -> f));
+    }
+}
@@ -2,11 +2,14 @@ package io.github.kosmx.emotes.testing.common;
 
 import io.github.kosmx.emotes.api.Pair;
 import io.github.kosmx.emotes.common.emote.EmoteData;
+import io.github.kosmx.emotes.common.emote.EmoteFormat;
 import io.github.kosmx.emotes.common.tools.Ease;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.Random;
 
 public class EmoteDataHashingTest {
@@ -30,4 +33,46 @@ public class EmoteDataHashingTest {
         Assertions.assertNotEquals(emote1.hashCode(), emote2.hashCode(), "After any change these should have different hash");
 
     }
+
+    @RepeatedTest(10)
+    @DisplayName("bulk added keyframes test")
+    public void bulkKeyFramesTest(){
+        Random random = new Random();
+        int length = 50;
+        int[] ticks = new int[length];
+        float[] values = new float[length];
+        byte[] eases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            ticks[i] = random.nextInt(20);
+            values[i] = random.nextFloat();
+            eases[i] = Ease.LINEAR.getId();
+        }
+        boolean sorted = random.nextBoolean();
+        if (sorted) Arrays.sort(ticks);
+
+        EmoteData.StateCollection.State one = new EmoteData.EmoteBuilder(EmoteFormat.UNKNOWN).head.x;
+        EmoteData.StateCollection.State bulk = new EmoteData.EmoteBuilder(EmoteFormat.UNKNOWN).head.x;
+        boolean valid = true;
+        for (int i = 0; i < length; i++) {
+            valid &= one.addKeyFrame(ticks[i], values[i], eases[i]);
+        }
+        Assertions.assertEquals(valid, bulk.addKeyFrames(ticks, values, eases, length), "Validation should be the same");
+        Assertions.assertEquals(one, bulk, "Bulk added keyframes should be the same as added one by one, sorted: " + sorted);
+    }
+
+    @Test
+    @DisplayName("modification count test")
+    public void modificationCountTest(){
+        EmoteData.EmoteBuilder builder = new EmoteData.EmoteBuilder(EmoteFormat.UNKNOWN);
+        builder.endTick = 20;
+        builder.head.x.addKeyFrame(0, 1, Ease.LINEAR);
+        EmoteData emote = builder.build();
+        int count = emote.getModificationCount();
+        Assertions.assertEquals(1, count, "Modifications before building should be counted");
+
+        emote.head.x.addKeyFrame(10, 2, Ease.LINEAR);
+        Assertions.assertEquals(count + 1, emote.getModificationCount());
+        builder.getOrCreateNewPart("tail", 0, 0, 0, 0, 0, 0, false).x.addKeyFrame(5, 1, Ease.LINEAR);
+        Assertions.assertEquals(count + 2, emote.getModificationCount(), "Parts added by the builder should be counted");
+    }
 }
@@ -1,17 +1,39 @@
 package io.github.kosmx.emotes.testing.common;
 
 import io.github.kosmx.emotes.api.Pair;
+import io.github.kosmx.emotes.common.CommonData;
 import io.github.kosmx.emotes.common.emote.EmoteData;
+import io.github.kosmx.emotes.common.emote.PartRegistry;
+import io.github.kosmx.emotes.common.network.BufferPool;
+import io.github.kosmx.emotes.common.network.CommonNetwork;
+import io.github.kosmx.emotes.common.network.DecodedEmoteCache;
+import io.github.kosmx.emotes.common.network.EmoteInternTable;
 import io.github.kosmx.emotes.common.network.EmotePacket;
+import io.github.kosmx.emotes.common.network.PacketCompression;
+import io.github.kosmx.emotes.common.network.PacketConfig;
+import io.github.kosmx.emotes.common.network.PacketFragment;
+import io.github.kosmx.emotes.common.network.PacketReassembler;
+import io.github.kosmx.emotes.common.network.PacketSink;
+import io.github.kosmx.emotes.common.network.PacketTask;
+import io.github.kosmx.emotes.common.network.VersionTable;
+import io.github.kosmx.emotes.common.network.objects.EmoteDataPacket;
 import io.github.kosmx.emotes.common.network.objects.NetData;
+import io.github.kosmx.emotes.common.opennbs.NBS;
+import io.github.kosmx.emotes.common.opennbs.format.Layer;
+import io.github.kosmx.emotes.common.tools.Ease;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Test network data sending and receiving
@@ -68,4 +90,337 @@ public class NetworkPacketTest {
         Assertions.assertFalse(shouldRemainFalse, "Writer didn't thrown exception");
 
     }
+
+    @Test
+    @DisplayName("Emote reference test")
+    public void referenceTest() throws IOException {
+        EmoteData emote = RandomEmoteData.generateEmotes().getLeft().build();
+        UUID player = UUID.randomUUID();
+        byte[] bytes = new EmotePacket.Builder().configureToStreamEmote(emote, player).configureEmoteTick(42).configureStreamByReference(true).build().write().array();
+
+        NetData data = new EmotePacket.Builder().build().read(ByteBuffer.wrap(bytes));
+        Assertions.assertNotNull(data, "Data should be not null");
+        Assertions.assertNull(data.emoteData, "Referenced emote data should not be sent");
+        Assertions.assertEquals(emote.getUuid(), data.emoteReference);
+        Assertions.assertEquals(42, data.tick);
+        Assertions.assertEquals(player, data.player);
+        Assertions.assertTrue(bytes.length < 64, "Reference packet should be small");
+    }
+
+    @Test
+    @DisplayName("Received custom part limits")
+    public void customPartLimitTest() throws IOException {
+        VersionTable versions = VersionTable.EMPTY.with((byte) 0, (byte) 2);
+
+        EmoteData.EmoteBuilder builder = RandomEmoteData.generateEmotes().getLeft();
+        String name = "part" + UUID.randomUUID();
+        builder.getOrCreateNewPart(name, 0, 0, 0, 0, 0, 0, false).x.addKeyFrame(1, 1, Ease.LINEAR);
+        byte[] bytes = new EmotePacket.Builder().configureToSaveEmote(builder.build()).setVersion(versions).build().write().array();
+        NetData data = new EmotePacket.Builder().build().read(ByteBuffer.wrap(bytes));
+        Assertions.assertNotNull(data.emoteData.bodyParts.get(name));
+        Assertions.assertEquals(-1, PartRegistry.findId(name), "Received part names should not be registered");
+
+        builder = RandomEmoteData.generateEmotes().getLeft();
+        builder.getOrCreateNewPart(String.join("", Collections.nCopies(EmoteDataPacket.MAX_PART_NAME_LENGTH + 1, "a")), 0, 0, 0, 0, 0, 0, false);
+        byte[] longName = new EmotePacket.Builder().configureToSaveEmote(builder.build()).setVersion(versions).build().write().array();
+        Assertions.assertThrows(IOException.class, () -> new EmotePacket.Builder().build().read(ByteBuffer.wrap(longName)), "Long part name");
+
+        builder = RandomEmoteData.generateEmotes().getLeft();
+        for (int i = 0; i <= EmoteDataPacket.MAX_CUSTOM_PARTS; i++) builder.getOrCreateNewPart("part" + i, 0, 0, 0, 0, 0, 0, false);
+        byte[] manyParts = new EmotePacket.Builder().configureToSaveEmote(builder.build()).setVersion(versions).build().write().array();
+        Assertions.assertThrows(IOException.class, () -> new EmotePacket.Builder().build().read(ByteBuffer.wrap(manyParts)), "Too many custom parts");
+
+        ByteBuffer truncated = ByteBuffer.allocate(8);
+        CommonNetwork.writeVarInt(truncated, 1000);
+        ((Buffer) truncated).flip();
+        Assertions.assertThrows(IOException.class, () -> CommonNetwork.readVarString(truncated), "String longer than the buffer");
+    }
+
+    @Test
+    @DisplayName("Compact emote data test")
+    public void compactTest() throws IOException {
+        Random random = new Random();
+        EmoteData.EmoteBuilder builder = RandomEmoteData.generateEmotes().getLeft();
+        EmoteData.StateCollection custom = builder.getOrCreateNewPart("tail", 1, 2, 3, 0, 0, 0, true);
+        for (int i = 0; i < 200; i++) {
+            builder.head.pitch.addKeyFrame(i * 5, random.nextFloat() * 3 - 1.5f, Ease.INOUTSINE);
+            builder.rightItem.y.addKeyFrame(i * 7, random.nextFloat(), Ease.LINEAR);
+            custom.bend.addKeyFrame(i * 3, random.nextFloat() * 2, Ease.getEase((byte) (i / 10)));
+        }
+        builder.leftLeg.z.isEnabled = true;
+        EmoteData emote = builder.build();
+
+        VersionTable versions = VersionTable.EMPTY.with((byte) 0, (byte) 2);
+        byte[] compact = new EmotePacket.Builder().configureToSaveEmote(emote).setVersion(versions).build().write().array();
+
+        NetData data = new EmotePacket.Builder().build().read(ByteBuffer.wrap(compact));
+        Assertions.assertNotNull(data, "Data should be not null");
+        Assertions.assertEquals(emote, data.emoteData, "File data should be lossless");
+        Assertions.assertNotNull(data.emoteData.bodyParts.get("tail"), "Custom parts should be sent");
+
+        versions = VersionTable.EMPTY.with((byte) 0, (byte) 2);
+        byte[] quantized = new EmotePacket.Builder().configureToStreamEmote(emote).setVersion(versions).build().write().array();
+        Assertions.assertTrue(quantized.length < compact.length, "Streamed data should be quantized");
+        data = new EmotePacket.Builder().build().read(ByteBuffer.wrap(quantized));
+        Assertions.assertNotNull(data, "Data should be not null");
+        EmoteData.StateCollection.State sent = emote.head.pitch;
+        EmoteData.StateCollection.State received = data.emoteData.head.pitch;
+        Assertions.assertEquals(sent.length(), received.length());
+        for (int i = 0; i < sent.length(); i++) {
+            Assertions.assertEquals(sent.getTick(i), received.getTick(i));
+            Assertions.assertEquals(sent.getEaseId(i), received.getEaseId(i));
+            Assertions.assertEquals(sent.getValue(i), received.getValue(i), EmoteDataPacket.QUANTIZATION_MAX_ERROR * 1.01f);
+        }
+        Assertions.assertEquals(emote.rightArm.x, data.emoteData.rightArm.x, "Wide range axis should not be quantized");
+
+        //Compare only with the parts of the old format
+        emote.bodyParts.remove("tail");
+        emote.rightItem.y.isEnabled = false;
+        versions = VersionTable.EMPTY.with((byte) 0, (byte) 2);
+        compact = new EmotePacket.Builder().configureToSaveEmote(emote).setVersion(versions).build().write().array();
+        byte[] legacy = new EmotePacket.Builder().configureToSaveEmote(emote).build().write().array();
+        Assertions.assertTrue(compact.length * 3 < legacy.length * 2, "Compact data should be smaller");
+    }
+
+    @Test
+    @DisplayName("Compressed packet test")
+    public void compressionTest() throws IOException {
+        EmoteData.EmoteBuilder builder = RandomEmoteData.generateEmotes().getLeft();
+        for (int i = 0; i < 300; i++) {
+            builder.body.y.addKeyFrame(i * 2, i % 4, Ease.LINEAR);
+        }
+        EmoteData emote = builder.build();
+        int size = new EmotePacket.Builder().configureToStreamEmote(emote).build().write().capacity();
+
+        VersionTable versions = VersionTable.EMPTY.with(PacketCompression.ID, (byte) 1);
+        byte[] compressed = new EmotePacket.Builder().configureToStreamEmote(emote).setVersion(versions).setSizeLimit(size - 1).build().write().array();
+        Assertions.assertTrue(compressed.length < size, "Packet should be compressed");
+
+        NetData data = new EmotePacket.Builder().build().read(ByteBuffer.wrap(compressed));
+        Assertions.assertNotNull(data, "Data should be not null");
+        Assertions.assertEquals(emote, data.emoteData, "Compressed data should be lossless");
+
+        //Declared size over the limit
+        ByteBuffer invalid = ByteBuffer.wrap(compressed.clone());
+        invalid.putInt(13, PacketCompression.MAX_DECOMPRESSED_SIZE + 1);
+        Assertions.assertThrows(IOException.class, () -> new EmotePacket.Builder().build().read(invalid));
+
+        //Declared size more than what DEFLATE can produce from the data
+        int impossible = compressed.length * 1032 + 1;
+        Assertions.assertTrue(impossible <= PacketCompression.MAX_DECOMPRESSED_SIZE);
+        ByteBuffer amplified = ByteBuffer.wrap(compressed.clone());
+        amplified.putInt(13, impossible);
+        Assertions.assertThrows(IOException.class, () -> new EmotePacket.Builder().build().read(amplified));
+    }
+
+    @Test
+    @DisplayName("Fragmented packet test")
+    public void fragmentTest() throws IOException {
+        EmoteData.EmoteBuilder builder = RandomEmoteData.generateEmotes().getLeft();
+        Random random = new Random();
+        for (int i = 0; i < 2000; i++) {
+            builder.head.yaw.addKeyFrame(i, random.nextFloat(), Ease.LINEAR);
+        }
+        EmoteData emote = builder.build();
+        VersionTable remoteVersions = VersionTable.EMPTY.with(PacketFragment.ID, (byte) 1);
+        ByteBuffer message = new EmotePacket.Builder().configureToStreamEmote(emote).setSizeLimit(PacketFragment.getSizeLimit(remoteVersions, 1024)).build().write();
+
+        Assertions.assertEquals(1, PacketFragment.split(message, 1024, VersionTable.EMPTY).size(), "Not supported, don't split");
+        List<byte[]> frames = new ArrayList<>(PacketFragment.split(message, 1024, remoteVersions));
+        Assertions.assertTrue(frames.size() > 1, "Message should be split");
+        for (byte[] frame : frames) {
+            Assertions.assertTrue(frame.length <= 1024, "Frame is too big");
+        }
+
+        PacketReassembler<String> reassembler = new PacketReassembler<>();
+        Collections.reverse(frames);
+        ByteBuffer received = null;
+        for (int i = 0; i < frames.size(); i++) {
+            Assertions.assertNull(received, "Message shouldn't be complete before the last fragment");
+            received = reassembler.receive("player", ByteBuffer.wrap(frames.get(i)));
+            if (i == 0) {
+                Assertions.assertNull(reassembler.receive("player", ByteBuffer.wrap(frames.get(i))), "Duplicate fragment");
+                Assertions.assertNull(reassembler.receive("other", ByteBuffer.wrap(frames.get(i))), "Senders are separated");
+            }
+        }
+        Assertions.assertNotNull(received, "Message should be reassembled");
+        Assertions.assertEquals(1, reassembler.getPendingCount(), "Only the other sender's message should be pending");
+        NetData data = new EmotePacket.Builder().build().read(received);
+        Assertions.assertNotNull(data, "Data should be not null");
+        Assertions.assertEquals(emote, data.emoteData, "Reassembled data should be the same");
+
+        //Not fragmented messages are passed through
+        ByteBuffer small = ByteBuffer.wrap(new EmotePacket.Builder().configureToSendStop(UUID.randomUUID()).build().write().array());
+        Assertions.assertSame(small, reassembler.receive("player", small));
+    }
+
+    @Test
+    @DisplayName("Fragment reassembler limits test")
+    public void reassemblerLimitTest() throws IOException {
+        PacketReassembler<String> reassembler = new PacketReassembler<>();
+        //A tiny fragment of a big message is buffered without the message's full size
+        Assertions.assertNull(reassembler.receive("player", fragment(1, PacketFragment.MAX_MESSAGE_SIZE, 1024, 0, 1024)));
+        Assertions.assertEquals(1, reassembler.getPendingCount());
+        reassembler.remove("player");
+        Assertions.assertEquals(0, reassembler.getPendingCount(), "Leaving sender's messages should be dropped");
+
+        Assertions.assertThrows(IOException.class, () -> reassembler.receive("player", fragment(2, PacketFragment.MAX_MESSAGE_SIZE, 512, 0, 512)), "Too many fragments");
+
+        PacketReassembler<String> expiring = new PacketReassembler<>(0, TimeUnit.NANOSECONDS);
+        Assertions.assertNull(expiring.receive("player", fragment(3, 4096, 1024, 0, 1024)));
+        expiring.removeExpired();
+        Assertions.assertEquals(0, expiring.getPendingCount(), "Expired messages should be dropped");
+    }
+
+    private static ByteBuffer fragment(int messageId, int length, int chunkSize, int index, int size) {
+        ByteBuffer frame = ByteBuffer.allocate(6 + 6 + 16 + size);
+        frame.putInt(CommonData.networkingVersion);
+        frame.put(PacketTask.STREAM.id);
+        frame.put((byte) 1);
+        frame.put(PacketFragment.ID);
+        frame.put((byte) 1);
+        frame.putInt(16 + size);
+        frame.putInt(messageId);
+        frame.putInt(length);
+        frame.putInt(chunkSize);
+        frame.putInt(index);
+        ((Buffer) frame).position(0);
+        return frame;
+    }
+
+    @Test
+    @DisplayName("Packet sink and caller-supplied buffer test")
+    public void sinkTest() throws IOException {
+        EmoteData.EmoteBuilder builder = RandomEmoteData.generateEmotes().getLeft();
+        Random random = new Random();
+        for (int i = 0; i < 2000; i++) {
+            builder.head.yaw.addKeyFrame(i, random.nextFloat(), Ease.LINEAR);
+        }
+        EmoteData emote = builder.build();
+        byte[] heap = new EmotePacket.Builder().configureToStreamEmote(emote).setSizeLimit(PacketFragment.MAX_MESSAGE_SIZE).build().write().array();
+
+        //Direct buffer with some data before the packet
+        ByteBuffer direct = ByteBuffer.allocateDirect(heap.length + 8);
+        direct.putInt(42);
+        int size = new EmotePacket.Builder().configureToStreamEmote(emote).setSizeLimit(PacketFragment.MAX_MESSAGE_SIZE).build().write(direct);
+        Assertions.assertEquals(heap.length, size, "The same packet should be written");
+        byte[] written = new byte[size];
+        ((Buffer) direct).position(4);
+        direct.get(written);
+        Assertions.assertArrayEquals(heap, written, "The same packet should be written");
+        Assertions.assertThrows(IOException.class, () -> new EmotePacket.Builder().configureToStreamEmote(emote).build().write(ByteBuffer.allocate(16)));
+
+        //Frames written into the sink, reassembled
+        VersionTable remoteVersions = VersionTable.EMPTY.with(PacketFragment.ID, (byte) 1).with(PacketCompression.ID, (byte) 1);
+        PacketReassembler<String> reassembler = new PacketReassembler<>();
+        ByteBuffer[] received = new ByteBuffer[1];
+        int count = new EmotePacket.Builder().configureToStreamEmote(emote).setVersion(remoteVersions)
+                .setSizeLimit(PacketFragment.getSizeLimit(remoteVersions, 1024)).build().write(new PacketSink() {
+            @Override
+            public ByteBuffer allocate(int size) {
+                Assertions.assertTrue(size <= 1024, "Frame is too big");
+                return ByteBuffer.allocateDirect(size);
+            }
+
+            @Override
+            public void send(ByteBuffer frame) throws IOException {
+                ((Buffer) frame).flip();
+                Assertions.assertNull(received[0], "Message shouldn't be complete before the last fragment");
+                received[0] = reassembler.receive("player", frame);
+            }
+        }, 1024, remoteVersions);
+        Assertions.assertTrue(count > 1, "Message should be split");
+        Assertions.assertNotNull(received[0], "Message should be reassembled");
+        NetData data = new EmotePacket.Builder().build().read(received[0]);
+        Assertions.assertNotNull(data, "Data should be not null");
+        Assertions.assertEquals(emote, data.emoteData, "Data written into the sink should be the same");
+
+        //Pooled buffers are reused
+        BufferPool pool = new BufferPool(false, 1);
+        ByteBuffer buffer = pool.acquire(1500);
+        Assertions.assertEquals(1500, buffer.limit());
+        pool.release(buffer);
+        Assertions.assertSame(buffer, pool.acquire(2000));
+        Assertions.assertThrows(IllegalStateException.class, () -> {
+            ByteBuffer b = pool.acquire(100);
+            pool.release(b);
+            pool.release(b);
+        });
+    }
+
+    @Test
+    @DisplayName("Decoded emote cache test")
+    public void decodedEmoteCacheTest() throws IOException {
+        EmoteData emote = RandomEmoteData.generateEmotes().getLeft().build();
+        VersionTable versions = VersionTable.EMPTY.with((byte) 0, (byte) 2);
+        byte[] first = new EmotePacket.Builder().configureToStreamEmote(emote).setVersion(versions).configureEmoteTick(3).build().write().array();
+        byte[] second = new EmotePacket.Builder().configureToStreamEmote(emote).setVersion(versions).configureEmoteTick(7).build().write().array();
+
+        long hits = DecodedEmoteCache.INSTANCE.getHits();
+        NetData firstData = new EmotePacket.Builder().build().read(ByteBuffer.wrap(first));
+        NetData secondData = new EmotePacket.Builder().build().read(ByteBuffer.wrap(second));
+        Assertions.assertNotNull(firstData, "Data should be not null");
+        Assertions.assertNotNull(secondData, "Data should be not null");
+        Assertions.assertEquals(emote, secondData.emoteData, "Cached emote should be the same");
+        Assertions.assertSame(firstData.emoteData, secondData.emoteData, "The cached instance should be returned");
+        Assertions.assertEquals(firstData.valid, secondData.valid, "Validation result should be cached");
+        Assertions.assertEquals(7, secondData.tick, "The start tick is not part of the cached emote");
+        Assertions.assertEquals(hits + 1, DecodedEmoteCache.INSTANCE.getHits());
+
+        //Different threshold, validation has to run again
+        NetData otherThreshold = new EmotePacket.Builder().setThreshold(0.5f).build().read(ByteBuffer.wrap(second));
+        Assertions.assertNotNull(otherThreshold, "Data should be not null");
+        Assertions.assertNotSame(firstData.emoteData, otherThreshold.emoteData, "Different threshold is a different key");
+    }
+
+    @Test
+    @DisplayName("Version table test")
+    public void versionTableTest() throws IOException {
+        VersionTable defaults = EmotePacket.defaultVersions;
+        byte[] bytes = new EmotePacket.Builder().configureToConfigExchange(false).build().write().array();
+        Assertions.assertEquals(defaults, EmotePacket.defaultVersions, "The default versions are not modified");
+
+        NetData data = new EmotePacket.Builder().build().read(ByteBuffer.wrap(bytes));
+        Assertions.assertNotNull(data, "Data should be not null");
+        Assertions.assertEquals(defaults.with((byte) 3, (byte) 0), data.versions, "Versions should survive the config exchange");
+        Assertions.assertEquals((byte) 0, data.versions.get((byte) 3, (byte) 1));
+        Assertions.assertFalse(data.versions.contains(PacketConfig.SERVER_TRACK_EMOTE_PLAY));
+        Assertions.assertEquals((byte) 5, data.versions.get(PacketConfig.SERVER_TRACK_EMOTE_PLAY, (byte) 5), "Missing versions use the fallback");
+
+        VersionTable repeated = VersionTable.of(new byte[]{1, 2, 1}, new byte[]{3, 4, 5});
+        Assertions.assertEquals(2, repeated.size(), "Repeated IDs are stored once");
+        Assertions.assertEquals((byte) 5, repeated.get((byte) 1, (byte) 0), "The last version of a repeated ID is used");
+    }
+
+    @Test
+    @DisplayName("Streamed emote interning test")
+    public void internTest() throws IOException {
+        Random random = new Random();
+        EmoteData.EmoteBuilder builder = RandomEmoteData.generateEmotes().getLeft();
+        for (int i = 0; i < 50; i++) {
+            builder.head.pitch.addKeyFrame(i * 5, random.nextFloat() * 3 - 1.5f, Ease.INOUTSINE);
+        }
+        builder.iconData = ByteBuffer.wrap(new byte[]{1, 2, 3, 4});
+        NBS.Builder song = new NBS.Builder();
+        Layer layer = new Layer();
+        layer.addNote(10).key = 40;
+        song.layers.add(layer);
+        song.header.Layer_count = 1;
+        song.header.Time_signature = 4;
+        builder.song = song.build();
+        EmoteData local = builder.build();
+
+        VersionTable versions = VersionTable.EMPTY.with((byte) 0, (byte) 2);
+        byte[] stream = new EmotePacket.Builder().configureToStreamEmote(local).setVersion(versions).build().write().array();
+        NetData data = new EmotePacket.Builder().build().read(ByteBuffer.wrap(stream));
+        Assertions.assertNotNull(data, "Data should be not null");
+        Assertions.assertNotNull(data.emoteData.song, "Song should be streamed");
+        Assertions.assertNotEquals(local, data.emoteData, "Streamed emote is quantized and has no icon");
+
+        Assertions.assertSame(local, EmoteInternTable.intern(data.emoteData, local), "Streamed local emote should be the local instance");
+        Assertions.assertSame(data.emoteData, EmoteInternTable.intern(data.emoteData, null));
+
+        layer.addNote(20).key = 41;
+        Assertions.assertFalse(EmoteInternTable.isSameAnimation(local, data.emoteData), "Different song is a different emote");
+    }
 }
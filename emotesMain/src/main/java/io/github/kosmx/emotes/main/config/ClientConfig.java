@@ -2,8 +2,10 @@ package io.github.kosmx.emotes.main.config;
 
 import io.github.kosmx.emotes.common.SerializableConfig;
 import io.github.kosmx.emotes.common.tools.BiMap;
+import io.github.kosmx.emotes.common.tools.Easing;
 import io.github.kosmx.emotes.executor.dataTypes.InputKey;
 
+import java.util.List;
 import java.util.UUID;
 
 public class ClientConfig extends SerializableConfig {
@@ -49,9 +51,18 @@ public class ClientConfig extends SerializableConfig {
     public final ConfigEntry<Boolean> showHiddenConfig = new BooleanConfigEntry("showHiddenConfig", false, true, expert, false);
     public final ConfigEntry<Boolean> neverRemoveBadIcon = new BooleanConfigEntry("neverRemoveBadIcon", false, expert, true);
     public final ConfigEntry<Boolean> exportBuiltin = new BooleanConfigEntry("exportBuiltin", false, expert, true);
+    public final ConfigEntry<Boolean> bakeEmotes = new BooleanConfigEntry("bakeEmotes", false, true, expert);
+    public final ConfigEntry<Boolean> easingLookupTables = new BooleanConfigEntry("easingLookupTables", false, true, expert);
+    public final ConfigEntry<Boolean> sharePoses = new BooleanConfigEntry("sharePoses", false, true, expert);
+    public final ConfigEntry<Boolean> parallelPoses = new BooleanConfigEntry("parallelPoses", false, true, expert);
+    public final ConfigEntry<Float> halfRateDistance = new DistanceConfigEntry("halfRateDistance", 32f, expert);
+    public final ConfigEntry<Float> quarterRateDistance = new DistanceConfigEntry("quarterRateDistance", 64f, expert);
 
 
 
+    //Lookup tables are close enough to the exact curve to be invisible
+    public static final float EASING_MAX_ERROR = 1e-4f;
+
     //------------------------ Client-only overrides ------------------------//
 
     //This will override default values before loading the config file.
@@ -59,6 +70,14 @@ public class ClientConfig extends SerializableConfig {
         loadEmotesServerSide.set(false);
     }
 
+    /**
+     * Apply the options what are global state, like the easing lookup tables.
+     * It is done when the config is loaded or saved, not when an emote starts.
+     */
+    public void apply(){
+        Easing.setLookupTables(easingLookupTables.get(), EASING_MAX_ERROR);
+    }
+
     //------------------------ Advanced config stuff ------------------------//
     //public List<EmoteHolder> emotesWithKey = new ArrayList<>();
     //public final EmoteHolder[] fastMenuEmotes = new EmoteHolder[8];
@@ -69,4 +88,28 @@ public class ClientConfig extends SerializableConfig {
     //------------------------ Random tweak stuff ------------------------//
 
     public final ConfigEntry<Boolean> hideWarningMessage = new BooleanConfigEntry("hideWarning", false, expert, true);
+
+    /**
+     * Distance in blocks, with a linear slider
+     */
+    private static class DistanceConfigEntry extends FloatConfigEntry {
+        DistanceConfigEntry(String name, float defVal, List<ConfigEntry<?>> collection) {
+            super(name, null, defVal, true, collection, "options.generic_value", 0, 256, 1);
+        }
+
+        @Override
+        public double getConfigVal() {
+            return this.get();
+        }
+
+        @Override
+        public void setConfigVal(double newVal) {
+            this.set((float) newVal);
+        }
+
+        @Override
+        public double getTextVal() {
+            return this.get();
+        }
+    }
 }
@@ -5,6 +5,7 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
 import io.github.kosmx.emotes.common.SerializableConfig;
+import io.github.kosmx.emotes.executor.EmoteInstance;
 import io.github.kosmx.emotes.server.config.Serializer;
 
 import java.io.BufferedReader;
@@ -20,8 +21,17 @@ public class ClientSerializer extends Serializer {
 
     @Override
     protected SerializableConfig readConfig(BufferedReader reader) throws JsonSyntaxException, JsonIOException {
-        if(reader != null) return serializer.fromJson(reader, ClientConfig.class);
-        return new ClientConfig();
+        ClientConfig config = reader != null ? serializer.fromJson(reader, ClientConfig.class) : new ClientConfig();
+        config.apply();
+        return config;
+    }
+
+    /**
+     * Save the config and apply the changed options
+     */
+    public static void saveConfig(){
+        Serializer.saveConfig();
+        if(EmoteInstance.config instanceof ClientConfig) ((ClientConfig) EmoteInstance.config).apply();
     }
 
 
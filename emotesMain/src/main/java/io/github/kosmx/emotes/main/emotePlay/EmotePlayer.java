@@ -3,7 +3,9 @@ package io.github.kosmx.emotes.main.emotePlay;
 import io.github.kosmx.emotes.common.emote.EmoteData;
 import io.github.kosmx.emotes.common.opennbs.SoundPlayer;
 import io.github.kosmx.emotes.common.opennbs.format.Layer;
+import io.github.kosmx.emotes.executor.EmoteInstance;
 import io.github.kosmx.emotes.executor.emotePlayer.IEmotePlayer;
+import io.github.kosmx.emotes.main.config.ClientConfig;
 import io.github.kosmx.playerAnim.layered.EmoteDataPlayer;
 
 import javax.annotation.Nullable;
@@ -21,7 +23,7 @@ public abstract class EmotePlayer<T> extends EmoteDataPlayer implements IEmotePl
      * @param t begin playing from tick
      */
     public EmotePlayer(EmoteData emote, Consumer<Layer.Note> noteConsumer, int t) {
-        super(emote, t);
+        super(emote, t, ((ClientConfig) EmoteInstance.config).bakeEmotes.get(), ((ClientConfig) EmoteInstance.config).sharePoses.get());
         if (emote.song != null) {
             this.song = new SoundPlayer(emote.song, noteConsumer, 0);
         }
@@ -0,0 +1,89 @@
+package io.github.kosmx.emotes.main.emotePlay;
+
+import io.github.kosmx.emotes.executor.EmoteInstance;
+import io.github.kosmx.emotes.executor.emotePlayer.IEmotePlayerEntity;
+import io.github.kosmx.emotes.main.config.ClientConfig;
+import io.github.kosmx.playerAnim.impl.AnimationPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+/**
+ * Sets up the emoting players' poses in parallel before the world is rendered.
+ * The renderer only reads the finished poses.
+ * Every player owns its playback state, the shared emote data is only read.
+ *
+ * Only the {@link io.github.kosmx.playerAnim.layered.IAnimation#isThreadSafe()} layers are set up on the workers,
+ * other mods' layers are set up on the render thread when the player is rendered.
+ * Players who won't be rendered are skipped.
+ */
+public final class ParallelPoseEvaluator {
+    //Not worth forking for less
+    private static final int MIN_PLAYERS = 8;
+    private static final int PLAYERS_PER_TASK = 4;
+
+    private static final List<AnimationPlayer> animations = new ArrayList<>();
+    private static ForkJoinPool pool = null;
+
+    private ParallelPoseEvaluator() {
+    }
+
+    /**
+     * Call it from the render thread, before rendering the players
+     * @param players    players of the world, the non-emoting ones are skipped
+     * @param isRendered the player is in the render distance and in the frustum
+     * @param tickDelta  Time since the last tick. 0-1
+     */
+    public static <P> void preparePoses(Iterable<? extends P> players, Predicate<? super P> isRendered, float tickDelta) {
+        if (!((ClientConfig) EmoteInstance.config).parallelPoses.get()) return;
+        for (P player : players) {
+            if (player instanceof IEmotePlayerEntity) {
+                AnimationPlayer animation = ((IEmotePlayerEntity<?>) player).getAnimation();
+                if (animation.isActive() && isRendered.test(player)) animations.add(animation);
+            }
+        }
+        try {
+            if (animations.size() >= MIN_PLAYERS) {
+                getPool().invoke(new PrepareTask(animations, 0, animations.size(), tickDelta));
+            }
+        } finally {
+            animations.clear();
+        }
+    }
+
+    private static ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(Math.max(Runtime.getRuntime().availableProcessors() - 1, 1));
+        }
+        return pool;
+    }
+
+    private static class PrepareTask extends RecursiveAction {
+        private final List<AnimationPlayer> animations;
+        private final int from;
+        private final int to;
+        private final float tickDelta;
+
+        PrepareTask(List<AnimationPlayer> animations, int from, int to, float tickDelta) {
+            this.animations = animations;
+            this.from = from;
+            this.to = to;
+            this.tickDelta = tickDelta;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PLAYERS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    animations.get(i).prepare(tickDelta);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PrepareTask(animations, from, middle, tickDelta), new PrepareTask(animations, middle, to, tickDelta));
+            }
+        }
+    }
+}
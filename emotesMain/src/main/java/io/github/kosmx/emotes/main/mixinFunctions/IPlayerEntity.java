@@ -68,9 +68,25 @@ public interface IPlayerEntity<T> extends IEmotePlayerEntity<EmotePlayer<T>> {
                 this.getEmote().stop();
                 ClientEmotePlay.clientStopLocalEmote(this.getEmote().getData());
             }
+            updateLevelOfDetail();
         }
     }
 
+    /**
+     * Far players' pose is updated less frequently, players who aren't rendered don't set up their pose at all
+     */
+    default void updateLevelOfDetail(){
+        IEmotePlayerEntity<?> mainPlayer = EmoteInstance.instance.getClientMethods().getMainPlayer();
+        int levelOfDetail = 1;
+        if(!this.isMainPlayer() && mainPlayer != null){
+            ClientConfig config = (ClientConfig) EmoteInstance.config;
+            double distance = this.emotesGetPos().distanceTo(mainPlayer.emotesGetPos());
+            if(distance > config.quarterRateDistance.get()) levelOfDetail = 4;
+            else if(distance > config.halfRateDistance.get()) levelOfDetail = 2;
+        }
+        this.getAnimation().setLevelOfDetail(levelOfDetail);
+    }
+
     @Override
     default void stopEmote(){
         if(getEmote() != null) {
@@ -3,6 +3,7 @@ package io.github.kosmx.emotes.main.network;
 import io.github.kosmx.emotes.api.Pair;
 import io.github.kosmx.emotes.api.proxy.INetworkInstance;
 import io.github.kosmx.emotes.common.emote.EmoteData;
+import io.github.kosmx.emotes.common.network.EmoteInternTable;
 import io.github.kosmx.emotes.common.network.EmotePacket;
 import io.github.kosmx.emotes.common.network.objects.NetData;
 import io.github.kosmx.emotes.executor.EmoteInstance;
@@ -71,7 +72,18 @@ public class ClientEmotePlay {
         }
         switch (Objects.requireNonNull(data.purpose)) {
             case STREAM:
-                assert data.emoteData != null;
+                if (data.emoteData == null) {
+                    if (!resolveEmoteReference(data, networkInstance)) {
+                        if (EmoteInstance.config.showDebug.get()) {
+                            EmoteInstance.instance.getLogger().log(Level.INFO, "Received reference of an unknown emote: " + data.emoteReference);
+                        }
+                        break;
+                    }
+                }
+                else {
+                    EmoteHolder local = EmoteHolder.getEmoteFromUuid(data.emoteData.getUuid());
+                    data.emoteData = EmoteInternTable.intern(data.emoteData, local != null ? local.getEmote() : null);
+                }
                 if(data.valid || !(((ClientConfig)EmoteInstance.config).alwaysValidate.get() || !networkInstance.safeProxy())) {
                     receivePlayPacket(data.emoteData, data.player, data.tick, data.isForced);
                 }
@@ -102,6 +114,18 @@ public class ClientEmotePlay {
         }
     }
 
+    /**
+     * Find a referenced emote in the emotes what the same network instance sent earlier
+     * @return true if the emote is found
+     */
+    static boolean resolveEmoteReference(NetData data, INetworkInstance networkInstance) {
+        EmoteHolder holder = data.emoteReference != null ? EmoteHolder.getEmoteFromUuid(data.emoteReference) : null;
+        if (holder == null || holder.fromInstance != networkInstance) return false;
+        data.emoteData = holder.getEmote();
+        data.valid = true;
+        return true;
+    }
+
     static void receivePlayPacket(EmoteData emoteData, UUID player, int tick, boolean isForced) {
         IEmotePlayerEntity playerEntity = EmoteInstance.instance.getGetters().getPlayerFromUUID(player);
         if(isEmoteAllowed(emoteData, player)) {
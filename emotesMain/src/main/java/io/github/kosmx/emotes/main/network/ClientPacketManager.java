@@ -2,11 +2,17 @@ package io.github.kosmx.emotes.main.network;
 
 import io.github.kosmx.emotes.api.proxy.EmotesProxyManager;
 import io.github.kosmx.emotes.api.proxy.INetworkInstance;
+import io.github.kosmx.emotes.common.emote.EmoteData;
 import io.github.kosmx.emotes.common.network.EmotePacket;
+import io.github.kosmx.emotes.common.network.PacketCompression;
+import io.github.kosmx.emotes.common.network.PacketReassembler;
+import io.github.kosmx.emotes.common.network.VersionTable;
+import io.github.kosmx.emotes.common.network.objects.EmoteReferencePacket;
 import io.github.kosmx.emotes.common.network.objects.NetData;
 import io.github.kosmx.emotes.executor.EmoteInstance;
 import io.github.kosmx.emotes.main.EmoteHolder;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.UUID;
@@ -19,6 +25,16 @@ import java.util.logging.Level;
 public final class ClientPacketManager extends EmotesProxyManager {
 
     private static final INetworkInstance defaultNetwork = EmoteInstance.instance.getClientMethods().getServerNetworkController();
+    /**
+     * Sub-packet versions taken from the remote, emote data format and compression
+     */
+    private static final byte[] negotiatedVersions = {0, PacketCompression.ID};
+    /**
+     * Versions negotiated from the last used remote versions, these change only on config exchange
+     */
+    @Nullable
+    private static volatile NegotiatedVersions lastNegotiated = null;
+    private static final PacketReassembler<INetworkInstance> reassembler = new PacketReassembler<>();
     //that casting should always work
 
     public static void init(){
@@ -43,7 +59,9 @@ public final class ClientPacketManager extends EmotesProxyManager {
                         try {
                             EmotePacket.Builder builder = packetBuilder.copy();
                             if (!network.sendPlayerID()) builder.removePlayerID();
-                            builder.setSizeLimit(network.maxDataSize());
+                            builder.configureStreamByReference(isEmoteKnown(builder.getEmoteData(), network));
+                            setRemoteVersions(builder, network);
+                            builder.setSizeLimit(network.maxMessageSize());
                             network.sendMessage(builder, target);    //everything is happening on the heap, there won't be any memory leak
                         } catch(IOException exception) {
                             EmoteInstance.instance.getLogger().log(Level.WARNING, "Error while sending packet: " + exception.getMessage(), true);
@@ -57,8 +75,10 @@ public final class ClientPacketManager extends EmotesProxyManager {
         }
         if(defaultNetwork.isActive() && (target == null || !defaultNetwork.isServerTrackingPlayState())){
             if(!defaultNetwork.sendPlayerID())packetBuilder.removePlayerID();
+            packetBuilder.configureStreamByReference(isEmoteKnown(packetBuilder.getEmoteData(), defaultNetwork));
+            setRemoteVersions(packetBuilder, defaultNetwork);
             try {
-                packetBuilder.setSizeLimit(defaultNetwork.maxDataSize());
+                packetBuilder.setSizeLimit(defaultNetwork.maxMessageSize());
                 defaultNetwork.sendMessage(packetBuilder, target);
             }
             catch (IOException exception){
@@ -70,8 +90,51 @@ public final class ClientPacketManager extends EmotesProxyManager {
         }
     }
 
+    /**
+     * The emote can be streamed by reference if it was sent by the same network instance
+     */
+    private static boolean isEmoteKnown(@Nullable EmoteData emote, INetworkInstance network){
+        if(emote == null || !EmoteReferencePacket.isSupported(network.getRemoteVersions()))return false;
+        EmoteHolder holder = EmoteHolder.getEmoteFromUuid(emote.getUuid());
+        return holder != null && holder.fromInstance == network && holder.getEmote() == emote;
+    }
+
+    /**
+     * Write the emote data in a format what the remote can read
+     */
+    private static void setRemoteVersions(EmotePacket.Builder builder, INetworkInstance network){
+        VersionTable remoteVersions = network.getRemoteVersions();
+        if(remoteVersions == null)return;
+        NegotiatedVersions negotiated = lastNegotiated;
+        if(negotiated == null || negotiated.remoteVersions != remoteVersions){
+            negotiated = new NegotiatedVersions(remoteVersions);
+            lastNegotiated = negotiated;
+        }
+        if(negotiated.versions.size() != 0){
+            builder.setVersion(negotiated.versions);
+        }
+    }
+
+    private static final class NegotiatedVersions {
+        final VersionTable remoteVersions;
+        final VersionTable versions;
+
+        NegotiatedVersions(VersionTable remoteVersions){
+            this.remoteVersions = remoteVersions;
+            VersionTable versions = VersionTable.EMPTY;
+            for(byte id : negotiatedVersions){
+                if(remoteVersions.contains(id)){
+                    versions = versions.with(id, remoteVersions.get(id, (byte)0));
+                }
+            }
+            this.versions = versions;
+        }
+    }
+
     static void receiveMessage(ByteBuffer buffer, UUID player, INetworkInstance networkInstance){
         try{
+            buffer = reassembler.receive(networkInstance, buffer);
+            if(buffer == null)return; //Wait for the other fragments
             NetData data = new EmotePacket.Builder().setThreshold(EmoteInstance.config.validThreshold.get()).build().read(buffer);
             if(data == null){
                 throw new IOException("no valid data");
@@ -141,5 +204,6 @@ public final class ClientPacketManager extends EmotesProxyManager {
     public void onDisconnectFromServer(INetworkInstance networkInstance){
         if(networkInstance == null)throw new NullPointerException("network instance must be non-null");
         EmoteHolder.list.removeIf(emoteHolder -> emoteHolder.fromInstance == networkInstance);
+        reassembler.remove(networkInstance);
     }
 }
@@ -10,6 +10,7 @@ import io.github.kosmx.emotes.api.proxy.INetworkInstance;
 import io.github.kosmx.emotes.common.emote.EmoteData;
 import io.github.kosmx.emotes.common.network.EmotePacket;
 import io.github.kosmx.emotes.common.network.GeyserEmotePacket;
+import io.github.kosmx.emotes.common.network.PacketReassembler;
 import io.github.kosmx.emotes.common.network.PacketTask;
 import io.github.kosmx.emotes.common.network.objects.NetData;
 import io.github.kosmx.emotes.common.tools.BiMap;
@@ -30,6 +31,7 @@ import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 /**
@@ -38,6 +40,12 @@ import java.util.logging.Level;
  */
 public abstract class AbstractServerEmotePlay<P> extends ServerEmoteAPI {
     protected EmoteMappings bedrockEmoteMap = new EmoteMappings(new BiMap<>());
+    private final PacketReassembler<INetworkInstance> reassembler = new PacketReassembler<>();
+    private final EmoteExpiryWheel expiryWheel = new EmoteExpiryWheel();
+    /**
+     * Scheduled ends by the tracker of the player
+     */
+    private final ConcurrentHashMap<EmotePlayTracker, Expiry> expiries = new ConcurrentHashMap<>();
 
     //private AbstractServerEmotePlay instance;
 
@@ -88,7 +96,9 @@ public abstract class AbstractServerEmotePlay<P> extends ServerEmoteAPI {
     }
 
     public void receiveMessage(byte[] bytes, P player, INetworkInstance instance) throws IOException{
-        receiveMessage(new EmotePacket.Builder().setThreshold(EmoteInstance.config.validThreshold.get()).build().read(ByteBuffer.wrap(bytes)), player, instance);
+        ByteBuffer message = reassembler.receive(instance, ByteBuffer.wrap(bytes));
+        if(message == null)return; //Wait for the other fragments, incomplete messages are dropped in playerDisconnected
+        receiveMessage(new EmotePacket.Builder().setThreshold(EmoteInstance.config.validThreshold.get()).build().read(message), player, instance);
     }
 
     public void receiveMessage(NetData data, P player, INetworkInstance instance) throws IOException {
@@ -134,6 +144,15 @@ public abstract class AbstractServerEmotePlay<P> extends ServerEmoteAPI {
      * @throws IOException probably not
      */
     protected void handleStreamEmote(NetData data, P player, INetworkInstance instance) throws IOException {
+        if (data.emoteData == null) {
+            //Streamed by reference, only the server emotes were sent to the players
+            data.emoteData = data.emoteReference != null ? UniversalEmoteSerializer.serverEmotes.get(data.emoteReference) : null;
+            if (data.emoteData == null) {
+                EmoteInstance.instance.getLogger().log(Level.WARNING, "Player: " + player + " streamed an unknown emote reference: " + data.emoteReference);
+                return;
+            }
+            data.valid = true;
+        }
         if (!data.valid && doValidate()) {
             EventResult result = ServerEmoteEvents.EMOTE_VERIFICATION.invoker().verify(data.emoteData, getUUIDFromPlayer(player));
             if (result != EventResult.FAIL) {
@@ -158,7 +177,8 @@ public abstract class AbstractServerEmotePlay<P> extends ServerEmoteAPI {
      * @param player source player
      */
     protected void streamEmote(NetData data, P player, boolean isForced) {
-        getPlayerNetworkInstance(player).getEmoteTracker().setPlayedEmote(data.emoteData, isForced);
+        EmotePlayTracker tracker = getPlayerNetworkInstance(player).getEmoteTracker();
+        scheduleExpiry(getUUIDFromPlayer(player), tracker, tracker.setPlayedEmote(data.emoteData, isForced));
         ServerEmoteEvents.EMOTE_PLAY.invoker().onEmotePlay(data.emoteData, getUUIDFromPlayer(player));
         data.isForced = isForced;
         data.player = getUUIDFromPlayer(player);
@@ -173,11 +193,12 @@ public abstract class AbstractServerEmotePlay<P> extends ServerEmoteAPI {
     }
 
     protected void stopEmote(P player, @Nullable NetData originalMessage) {
-        Pair<EmoteData, Integer> emote = getPlayerNetworkInstance(player).getEmoteTracker().getPlayedEmote();
-        getPlayerNetworkInstance(player).getEmoteTracker().setPlayedEmote(null, false);
+        EmotePlayTracker tracker = getPlayerNetworkInstance(player).getEmoteTracker();
+        EmotePlayTracker.PlayedEmote emote = tracker.stopPlayedEmote();
         if (emote != null) {
-            ServerEmoteEvents.EMOTE_STOP_BY_USER.invoker().onStopEmote(emote.getLeft().getUuid(), getUUIDFromPlayer(player));
-            NetData data = new EmotePacket.Builder().configureToSendStop(emote.getLeft().getUuid(), getUUIDFromPlayer(player)).build().data;
+            cancelExpiry(tracker);
+            ServerEmoteEvents.EMOTE_STOP_BY_USER.invoker().onStopEmote(emote.emote.getUuid(), getUUIDFromPlayer(player));
+            NetData data = new EmotePacket.Builder().configureToSendStop(emote.emote.getUuid(), getUUIDFromPlayer(player)).build().data;
 
             sendForEveryoneElse(data, null, player);
             if (originalMessage == null) { //If the stop is not from the player, server needs to notify the player too
@@ -187,6 +208,54 @@ public abstract class AbstractServerEmotePlay<P> extends ServerEmoteAPI {
         }
     }
 
+    /**
+     * Schedule the end of the emote, it replaces the previous emote's schedule
+     */
+    private void scheduleExpiry(UUID player, EmotePlayTracker tracker, @Nullable EmotePlayTracker.PlayedEmote played) {
+        Expiry expiry = null;
+        if (played != null && !played.isInfinite()) {
+            expiry = new Expiry(player, tracker, played);
+            expiry.timeout = expiryWheel.schedule(played.getEndTime(), expiry);
+        }
+        Expiry old = expiry != null ? expiries.put(tracker, expiry) : expiries.remove(tracker);
+        if (old != null) old.timeout.cancel();
+    }
+
+    private void cancelExpiry(EmotePlayTracker tracker) {
+        Expiry old = expiries.remove(tracker);
+        if (old != null) old.timeout.cancel();
+    }
+
+    /**
+     * Call it on the server's main thread every tick.
+     * The ended emotes are processed here, {@link ServerEmoteEvents#EMOTE_END} is invoked on the caller thread.
+     */
+    public void tick() {
+        expiryWheel.advance(System.nanoTime());
+    }
+
+    /**
+     * Call it when the server stops or the plugin is disabled.
+     * The pending ends are dropped without invoking {@link ServerEmoteEvents#EMOTE_END}, the players are gone with the server.
+     */
+    public void shutdown() {
+        for (EmotePlayTracker tracker : expiries.keySet()) {
+            cancelExpiry(tracker);
+        }
+    }
+
+    /**
+     * Call it when a player leaves the server, incomplete messages and the scheduled emote end of the player are dropped
+     * @param instance network instance of the player
+     */
+    public void playerDisconnected(INetworkInstance instance) {
+        reassembler.remove(instance);
+        reassembler.removeExpired();
+        if (instance instanceof IServerNetworkInstance) {
+            cancelExpiry(((IServerNetworkInstance) instance).getEmoteTracker());
+        }
+    }
+
     public void playerEntersInvalidPose(P player) {
         if (!getPlayerNetworkInstance(player).getEmoteTracker().isForced()) {
             stopEmote(player, null);
@@ -206,9 +275,9 @@ public abstract class AbstractServerEmotePlay<P> extends ServerEmoteAPI {
 
     public void playerStartTracking(P tracked, P tracker) {
         if (tracked == null || tracker == null) return;
-        Pair<EmoteData, Integer> playedEmote = getPlayerNetworkInstance(tracked).getEmoteTracker().getPlayedEmote();
+        EmotePlayTracker.PlayedEmote playedEmote = getPlayerNetworkInstance(tracked).getEmoteTracker().getPlayedEmoteState();
         if (playedEmote != null) {
-            sendForPlayer(new EmotePacket.Builder().configureToStreamEmote(playedEmote.getLeft()).configureEmoteTick(playedEmote.getRight()).configureTarget(getUUIDFromPlayer(tracked)).build().data, tracked, getUUIDFromPlayer(tracker));
+            sendForPlayer(new EmotePacket.Builder().configureToStreamEmote(playedEmote.emote).configureEmoteTick(playedEmote.getTick()).configureTarget(getUUIDFromPlayer(tracked)).build().data, tracked, getUUIDFromPlayer(tracker));
         }
     }
 
@@ -228,8 +297,18 @@ public abstract class AbstractServerEmotePlay<P> extends ServerEmoteAPI {
 
     protected abstract void sendForEveryoneElse(GeyserEmotePacket packet, P player);
 
+    /**
+     * Prepare a message for many recipients, it will be encoded only once for every version set
+     * @param data message
+     * @return broadcast packet, use it for only one loop over the recipients
+     */
+    protected BroadcastPacket prepareBroadcast(NetData data) {
+        return new BroadcastPacket(data);
+    }
+
     /**
      * Send the message to everyone, except for the player
+     * Use {@link #prepareBroadcast(NetData)} to not encode the message for every recipient
      * @param data message
      * @param emotePacket GeyserMC emote packet for Geyser users ;D
      * @param player send around this player
@@ -261,6 +340,30 @@ public abstract class AbstractServerEmotePlay<P> extends ServerEmoteAPI {
         return (AbstractServerEmotePlay) ServerEmoteAPI.INSTANCE;
     }
 
+    /**
+     * Clears the tracker when the emote ends and invokes {@link ServerEmoteEvents#EMOTE_END}
+     */
+    private final class Expiry implements Runnable {
+        final UUID player;
+        final EmotePlayTracker tracker;
+        final EmotePlayTracker.PlayedEmote played;
+        EmoteExpiryWheel.Timeout timeout;
+
+        Expiry(UUID player, EmotePlayTracker tracker, EmotePlayTracker.PlayedEmote played) {
+            this.player = player;
+            this.tracker = tracker;
+            this.played = played;
+        }
+
+        @Override
+        public void run() {
+            expiries.remove(tracker, this);
+            if (tracker.clearPlayedEmote(played)) {
+                ServerEmoteEvents.EMOTE_END.invoker().onEmoteEnd(played.emote, player);
+            }
+        }
+    }
+
     @Override
     protected HashMap<UUID, EmoteData> getLoadedEmotesImpl() {
         HashMap<UUID, EmoteData> map = new UUIDMap<>();
@@ -0,0 +1,101 @@
+package io.github.kosmx.emotes.server.network;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Players of a proxy grouped by their current backend server.
+ * A proxy relays emotes only to the players on the emoter's backend, the other backends can't see the emoter anyway.
+ *
+ * The proxy fires connect and disconnect events on its own threads, the index can be used from any thread.
+ * @param <P> proxied player
+ */
+@ThreadSafe
+public final class BackendMembershipIndex<P> {
+    private final ConcurrentHashMap<String, Set<P>> backends = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Membership<P>> players = new ConcurrentHashMap<>();
+
+    /**
+     * The player has connected to a backend, it also moves the player from its previous backend
+     * @param uuid player's uuid
+     * @param player player
+     * @param backend name of the backend server
+     */
+    public void connect(UUID uuid, P player, String backend) {
+        Membership<P> old = players.put(uuid, new Membership<>(player, backend));
+        if (old != null) {
+            if (old.backend.equals(backend) && old.player == player) return;
+            leave(old);
+        }
+        backends.computeIfAbsent(backend, name -> ConcurrentHashMap.newKeySet()).add(player);
+    }
+
+    /**
+     * The player has left the proxy
+     * @param uuid player's uuid
+     */
+    public void disconnect(UUID uuid) {
+        Membership<P> old = players.remove(uuid);
+        if (old != null) leave(old);
+    }
+
+    /**
+     * The player was disconnected from a backend, ignored if it has already switched to another one
+     * @param uuid player's uuid
+     * @param backend name of the backend server
+     */
+    public void disconnect(UUID uuid, String backend) {
+        Membership<P> old = players.get(uuid);
+        if (old != null && old.backend.equals(backend) && players.remove(uuid, old)) leave(old);
+    }
+
+    /**
+     * @param uuid player's uuid
+     * @return name of the player's current backend or null if unknown
+     */
+    @Nullable
+    public String getBackend(UUID uuid) {
+        Membership<P> membership = players.get(uuid);
+        return membership != null ? membership.backend : null;
+    }
+
+    /**
+     * @param backend name of the backend server
+     * @return live view of the players on the backend, empty if there is no one
+     */
+    public Collection<P> getPlayers(@Nullable String backend) {
+        Set<P> set = backend != null ? backends.get(backend) : null;
+        return set != null ? Collections.unmodifiableSet(set) : Collections.emptySet();
+    }
+
+    /**
+     * @param uuid player's uuid
+     * @return live view of the players on the same backend as the player, including the player itself
+     */
+    public Collection<P> getPlayersOnSameBackend(UUID uuid) {
+        return getPlayers(getBackend(uuid));
+    }
+
+    private void leave(Membership<P> membership) {
+        Set<P> set = backends.get(membership.backend);
+        if (set != null) {
+            set.remove(membership.player);
+            //An empty set is kept, the backend is likely to get players again
+        }
+    }
+
+    private static final class Membership<P> {
+        final P player;
+        final String backend;
+
+        Membership(P player, String backend) {
+            this.player = player;
+            this.backend = backend;
+        }
+    }
+}
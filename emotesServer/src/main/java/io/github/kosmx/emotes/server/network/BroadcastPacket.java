@@ -0,0 +1,75 @@
+package io.github.kosmx.emotes.server.network;
+
+import io.github.kosmx.emotes.api.proxy.INetworkInstance;
+import io.github.kosmx.emotes.common.network.EmotePacket;
+import io.github.kosmx.emotes.common.network.PacketFragment;
+import io.github.kosmx.emotes.common.network.VersionTable;
+import io.github.kosmx.emotes.common.network.objects.EmoteReferencePacket;
+import io.github.kosmx.emotes.common.network.objects.NetData;
+import io.github.kosmx.emotes.server.serializer.UniversalEmoteSerializer;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A message sent to many players.
+ * The message is encoded once for every negotiated version set, not once for every recipient.
+ * Recipients with the same versions get the same byte arrays, don't modify them.
+ * Server emotes are streamed by reference to recipients supporting it, these already got the emote on join.
+ * Messages bigger than the recipient's {@link INetworkInstance#maxDataSize()} are split if it can reassemble them.
+ */
+@NotThreadSafe
+public final class BroadcastPacket {
+    private final NetData data;
+    private final boolean isServerEmote;
+    private final HashMap<VersionTable, Frames> frames = new HashMap<>(4);
+
+    public BroadcastPacket(NetData data) {
+        this.data = data;
+        this.isServerEmote = data.emoteData != null && UniversalEmoteSerializer.serverEmotes.get(data.emoteData.getUuid()) == data.emoteData;
+    }
+
+    /**
+     * Get the encoded message for a recipient
+     * @param recipient recipient network instance, null if unknown
+     * @return the frames to send in order, shared between recipients with the same versions
+     * @throws IOException if encoding has failed
+     */
+    public List<byte[]> getFrames(@Nullable INetworkInstance recipient) throws IOException {
+        VersionTable versions = recipient != null ? recipient.getRemoteVersions() : null;
+        if (versions == null) versions = VersionTable.EMPTY;
+        int maxDataSize = recipient != null ? recipient.maxDataSize() : data.sizeLimit;
+        Frames frame = frames.get(versions);
+        if (frame == null || frame.maxDataSize != maxDataSize) {
+            NetData copy = data.copy();
+            copy.versions = versions;
+            copy.streamByReference = isServerEmote && EmoteReferencePacket.isSupported(versions);
+            copy.sizeLimit = PacketFragment.getSizeLimit(versions, maxDataSize);
+            ByteBuffer message = new EmotePacket.Builder(copy).build().write();
+            frame = new Frames(maxDataSize, PacketFragment.split(message, maxDataSize, versions));
+            frames.put(versions, frame);
+        }
+        return frame.frames;
+    }
+
+    /**
+     * @return count of the different encoded messages
+     */
+    public int getFrameCount() {
+        return frames.size();
+    }
+
+    private static final class Frames {
+        final int maxDataSize;
+        final List<byte[]> frames;
+
+        Frames(int maxDataSize, List<byte[]> frames) {
+            this.maxDataSize = maxDataSize;
+            this.frames = frames;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.kosmx.emotes.server.network;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+
+/**
+ * Hashed timing wheel for the end of the played emotes.
+ * An emote's end is put into the bucket of its end tick, the server tick advances the wheel and runs the expired tasks.
+ * It doesn't have its own thread, the tasks run on the thread of {@link #advance(long)}, see {@link AbstractServerEmotePlay#tick()}.
+ * Scheduling and cancelling are O(1), an advance visits only the bucket of the tick.
+ *
+ * Time is {@link System#nanoTime()} like in {@link EmotePlayTracker}, one tick is 50 ms.
+ */
+@ThreadSafe
+public final class EmoteExpiryWheel {
+    private static final int WHEEL_SIZE = 512; //power of 2, 25.6 seconds for one revolution
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private final Timeout[] buckets = new Timeout[WHEEL_SIZE];
+    private final long startTime = System.nanoTime();
+    private long currentTick = 0;
+
+    /**
+     * Schedule a task
+     * @param deadline {@link System#nanoTime()} of the end
+     * @param task invoked by the first advance after the deadline
+     * @return handle to cancel the task
+     */
+    public synchronized Timeout schedule(long deadline, Runnable task) {
+        long tick = (deadline - startTime + EmotePlayTracker.NANOS_PER_TICK - 1) / EmotePlayTracker.NANOS_PER_TICK;
+        Timeout timeout = new Timeout(this, Math.max(tick, currentTick), task);
+        int index = (int) (timeout.deadlineTick & MASK);
+        timeout.next = buckets[index];
+        if (timeout.next != null) timeout.next.prev = timeout;
+        buckets[index] = timeout;
+        return timeout;
+    }
+
+    /**
+     * Run the tasks what are expired until now
+     * @param now {@link System#nanoTime()}
+     */
+    public void advance(long now) {
+        ArrayList<Timeout> expired = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = (now - startTime) / EmotePlayTracker.NANOS_PER_TICK;
+            //After a long pause, like a server what wasn't running, one revolution visits every bucket
+            for (long tick = Math.max(currentTick, targetTick - MASK); tick <= targetTick; tick++) {
+                Timeout timeout = buckets[(int) (tick & MASK)];
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    if (timeout.deadlineTick <= targetTick) {
+                        unlink(timeout);
+                        expired.add(timeout);
+                    }
+                    timeout = next;
+                }
+            }
+            currentTick = Math.max(currentTick, targetTick + 1);
+        }
+        for (Timeout timeout : expired) {
+            try {
+                timeout.task.run();
+            } catch (Throwable t) {
+                t.printStackTrace();
+            }
+        }
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) timeout.prev.next = timeout.next;
+        else buckets[(int) (timeout.deadlineTick & MASK)] = timeout.next;
+        if (timeout.next != null) timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.linked = false;
+    }
+
+    /**
+     * A scheduled task
+     */
+    public static final class Timeout {
+        private final EmoteExpiryWheel wheel;
+        private final long deadlineTick;
+        private final Runnable task;
+        //guarded by wheel
+        private Timeout prev, next;
+        private boolean linked = true;
+
+        private Timeout(EmoteExpiryWheel wheel, long deadlineTick, Runnable task) {
+            this.wheel = wheel;
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        /**
+         * Cancel the task
+         * @return false if the task has already run or it was cancelled
+         */
+        public boolean cancel() {
+            synchronized (wheel) {
+                if (!linked) return false;
+                wheel.unlink(this);
+                return true;
+            }
+        }
+    }
+}
@@ -4,38 +4,59 @@ import io.github.kosmx.emotes.api.Pair;
 import io.github.kosmx.emotes.common.emote.EmoteData;
 
 import javax.annotation.Nullable;
-import java.time.Duration;
-import java.time.Instant;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Server side emote state tracking
- * It uses {@link Instant}
- * By using instant, tracking is mostly immune to server lags, tick drops
- * However susceptible to system clock changes.
- * And less demanding for a large server
+ * It uses {@link System#nanoTime()}
+ * By using real time, tracking is mostly immune to server lags, tick drops
+ * The monotonic clock is not affected by system clock changes either.
  *
+ * The state is one immutable {@link PlayedEmote}, it is replaced atomically.
+ * Finished emotes are cleared by the server's {@link EmoteExpiryWheel}, see {@link #clearPlayedEmote(PlayedEmote)}
+ * The relay threads of a server may use it concurrently, and they always see a consistent snapshot.
  */
+@ThreadSafe
 public class EmotePlayTracker {
+    public static final long NANOS_PER_TICK = 50_000_000L;
 
-    private EmoteData currentEmote = null;
-
-    private Instant startTime = null;
-
-    private boolean isForced = false;
+    private final AtomicReference<PlayedEmote> state = new AtomicReference<>();
 
     /**
      * Set the currently played emote.
      * @param data Emote, null if stop playing
+     * @return the new state, null if stop playing
      */
-    public void setPlayedEmote(@Nullable EmoteData data, boolean isForced) {
-        currentEmote = data;
-        if (data == null) {
-            startTime = null;
-            isForced = false;
-        }
-        else {
-            startTime = Instant.now();
-            isForced = isForced;
+    @Nullable
+    public PlayedEmote setPlayedEmote(@Nullable EmoteData data, boolean isForced) {
+        PlayedEmote played = data != null ? new PlayedEmote(data, System.nanoTime(), isForced) : null;
+        state.set(played);
+        return played;
+    }
+
+    /**
+     * Clear the state if the emote is still the played one, it is used when the emote ends
+     * @param played the ended emote
+     * @return true if it was cleared
+     */
+    public boolean clearPlayedEmote(PlayedEmote played) {
+        return state.compareAndSet(played, null);
+    }
+
+    /**
+     * Stop the currently played emote
+     * Only one of the concurrent callers gets the stopped emote
+     * @return the emote what was playing, null if not playing emote
+     */
+    @Nullable
+    public PlayedEmote stopPlayedEmote() {
+        while (true) {
+            PlayedEmote played = state.get();
+            //A finished emote is cleared by its expiry
+            if (played == null || played.isFinished(System.nanoTime())) return null;
+            if (state.compareAndSet(played, null)) return played;
         }
     }
 
@@ -46,10 +67,19 @@ public class EmotePlayTracker {
      * @return true if forced, false if not playing any emote.
      */
     public boolean isForced() {
-        if( getPlayedEmote() != null) {
-            return isForced;
-        }
-        else return false;
+        PlayedEmote played = getPlayedEmoteState();
+        return played != null && played.isForced;
+    }
+
+    /**
+     * Get the currently played emote, it doesn't allocate
+     * @return snapshot of the state, null if not playing emote
+     */
+    @Nullable
+    public PlayedEmote getPlayedEmoteState() {
+        PlayedEmote played = state.get();
+        //The expiry may be late by one tick
+        return played != null && !played.isFinished(System.nanoTime()) ? played : null;
     }
 
     /**
@@ -58,16 +88,58 @@ public class EmotePlayTracker {
      */
     @Nullable
     public Pair<EmoteData, Integer> getPlayedEmote() {
-        if (currentEmote == null) return null;
-        Instant now = Instant.now();
-        int tick = (int)(Duration.between(startTime, Instant.now()).toMillis() / 50);
-        if (!currentEmote.isInfinite() && currentEmote.getLength() <= tick) {
-            currentEmote = null;
-            startTime = null;
-            isForced = false;
-            return null;
-        }
-        return new Pair<>(currentEmote, tick);
+        PlayedEmote played = getPlayedEmoteState();
+        return played != null ? new Pair<>(played.emote, played.getTick()) : null;
     }
 
+    /**
+     * An emote played by the player, the state of {@link EmotePlayTracker}
+     */
+    @Immutable
+    public static final class PlayedEmote {
+        public final EmoteData emote;
+        public final boolean isForced;
+        private final long startTime;
+        private final long length;
+
+        PlayedEmote(EmoteData emote, long startTime, boolean isForced) {
+            this.emote = emote;
+            this.startTime = startTime;
+            this.isForced = isForced;
+            this.length = emote.isInfinite() ? Long.MAX_VALUE : emote.getLength() * NANOS_PER_TICK;
+        }
+
+        /**
+         * @return current tick of the emote
+         */
+        public int getTick() {
+            return (int) ((System.nanoTime() - startTime) / NANOS_PER_TICK);
+        }
+
+        /**
+         * @param now {@link System#nanoTime()}
+         * @return the emote is over, infinite emotes never finish
+         */
+        public boolean isFinished(long now) {
+            return now - startTime >= length;
+        }
+
+        /**
+         * @return {@link System#nanoTime()} when the emote started
+         */
+        public long getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * @return {@link System#nanoTime()} when the emote ends, don't use it for infinite emotes
+         */
+        public long getEndTime() {
+            return startTime + length;
+        }
+
+        public boolean isInfinite() {
+            return length == Long.MAX_VALUE;
+        }
+    }
 }
@@ -3,6 +3,8 @@ package io.github.kosmx.emotes.server.network;
 import io.github.kosmx.emotes.api.proxy.INetworkInstance;
 import io.github.kosmx.emotes.common.emote.EmoteData;
 import io.github.kosmx.emotes.common.network.EmotePacket;
+import io.github.kosmx.emotes.common.network.PacketConfig;
+import io.github.kosmx.emotes.common.network.VersionTable;
 import io.github.kosmx.emotes.common.network.objects.NetData;
 import io.github.kosmx.emotes.executor.EmoteInstance;
 import io.github.kosmx.emotes.server.serializer.UniversalEmoteSerializer;
@@ -17,17 +19,18 @@ public interface IServerNetworkInstance extends INetworkInstance {
         INetworkInstance.super.presenceResponse();
         NetData configData = new EmotePacket.Builder().configureToConfigExchange(true).build().data;
         if (trackPlayState()) {
-            configData.versions.put((byte)0x80, (byte)0x01);
+            configData.versions = configData.versions.with(PacketConfig.SERVER_TRACK_EMOTE_PLAY, (byte)0x01);
         }
         try {
             this.sendMessage(new EmotePacket.Builder(configData), null);
         } catch(IOException e) {
             EmoteInstance.instance.getLogger().log(Level.SEVERE, e.getMessage());
         }
-        if(this.getRemoteVersions().getOrDefault((byte)11, (byte)0) >= 0) {
+        VersionTable remoteVersions = this.getRemoteVersions();
+        if(remoteVersions == null || remoteVersions.get((byte)11, (byte)0) >= 0) {
             for (EmoteData emote : UniversalEmoteSerializer.serverEmotes.values()) {
                 try{
-                    this.sendMessage(new EmotePacket.Builder().configureToSaveEmote(emote).setSizeLimit(0x100000), null); //1 MB
+                    this.sendMessage(new EmotePacket.Builder().configureToSaveEmote(emote).setVersion(remoteVersions).setSizeLimit(0x100000), null); //1 MB
                 }catch (IOException e){
                     e.printStackTrace();
                 }
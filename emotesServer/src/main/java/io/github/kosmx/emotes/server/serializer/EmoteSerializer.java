@@ -304,12 +304,12 @@ public class EmoteSerializer implements JsonDeserializer<List<EmoteData>>, JsonS
     }
 
     private static void partDeserialize(JsonArray array, EmoteData.StateCollection.State part, String parentName){
-        for(EmoteData.KeyFrame keyFrame : part.keyFrames){
+        for(int i = 0; i < part.length(); i++){
             JsonObject node = new JsonObject();
-            node.addProperty("tick", keyFrame.tick);
-            node.addProperty("easing", keyFrame.ease.toString());
+            node.addProperty("tick", part.getTick(i));
+            node.addProperty("easing", part.getEase(i).toString());
             JsonObject jsonMove = new JsonObject();
-            jsonMove.addProperty(part.name, keyFrame.value);
+            jsonMove.addProperty(part.name, part.getValue(i));
             node.add(parentName, jsonMove);
             array.add(node);
         }
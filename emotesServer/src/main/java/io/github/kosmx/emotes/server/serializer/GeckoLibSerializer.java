@@ -46,8 +46,8 @@ public class GeckoLibSerializer {
             builder.name = name.toJsonTree().toString();
             builder.description = EmoteInstance.instance.getDefaults().textFromString("").formatted(EmotesTextFormatting.YELLOW).toString();
 
+            keyframeSerializer(builder, node.get("bones").getAsJsonObject());
             EmoteData emoteData = builder.build();
-            keyframeSerializer(emoteData, node.get("bones").getAsJsonObject());
             //EmoteHolder emoteHolder = new EmoteHolder(emoteData, name, EmoteInstance.instance.getDefaults().textFromString("").formatted(EmotesTextFormatting.YELLOW), EmoteInstance.instance.getDefaults().emptyTex(), node.hashCode());
             //emoteHolder.isFromGeckoLib = true;
             emotes.add(emoteData);
@@ -55,38 +55,38 @@ public class GeckoLibSerializer {
         return emotes;
     }
 
-    private static void keyframeSerializer(EmoteData emoteData, JsonObject node){
-        if(node.has("head"))readBone(emoteData.head, node.get("head").getAsJsonObject(), emoteData);
-        if(node.has("body"))readBone(emoteData.body, node.get("body").getAsJsonObject(), emoteData);
+    private static void keyframeSerializer(EmoteData.EmoteBuilder builder, JsonObject node){
+        if(node.has("head"))readBone(builder.head, node.get("head").getAsJsonObject(), builder);
+        if(node.has("body"))readBone(builder.body, node.get("body").getAsJsonObject(), builder);
 
-        if(node.has("right_arm"))readBone(emoteData.rightArm, node.get("right_arm").getAsJsonObject(), emoteData);
-        else if(node.has("rightArm"))readBone(emoteData.rightArm, node.get("rightArm").getAsJsonObject(), emoteData);
+        if(node.has("right_arm"))readBone(builder.rightArm, node.get("right_arm").getAsJsonObject(), builder);
+        else if(node.has("rightArm"))readBone(builder.rightArm, node.get("rightArm").getAsJsonObject(), builder);
 
-        if(node.has("left_arm"))readBone(emoteData.leftArm, node.get("left_arm").getAsJsonObject(), emoteData);
-        else if(node.has("leftArm"))readBone(emoteData.leftArm, node.get("leftArm").getAsJsonObject(), emoteData);
+        if(node.has("left_arm"))readBone(builder.leftArm, node.get("left_arm").getAsJsonObject(), builder);
+        else if(node.has("leftArm"))readBone(builder.leftArm, node.get("leftArm").getAsJsonObject(), builder);
 
-        if(node.has("right_leg"))readBone(emoteData.rightLeg, node.get("right_leg").getAsJsonObject(), emoteData);
-        else if(node.has("rightLeg"))readBone(emoteData.rightLeg, node.get("rightLeg").getAsJsonObject(), emoteData);
+        if(node.has("right_leg"))readBone(builder.rightLeg, node.get("right_leg").getAsJsonObject(), builder);
+        else if(node.has("rightLeg"))readBone(builder.rightLeg, node.get("rightLeg").getAsJsonObject(), builder);
 
-        if(node.has("left_leg"))readBone(emoteData.leftLeg, node.get("left_leg").getAsJsonObject(), emoteData);
-        else if(node.has("leftLeg"))readBone(emoteData.leftLeg, node.get("leftLeg").getAsJsonObject(), emoteData);
+        if(node.has("left_leg"))readBone(builder.leftLeg, node.get("left_leg").getAsJsonObject(), builder);
+        else if(node.has("leftLeg"))readBone(builder.leftLeg, node.get("leftLeg").getAsJsonObject(), builder);
     }
 
-    private static void readBone(EmoteData.StateCollection stateCollection, JsonObject node, EmoteData emoteData){
+    private static void readBone(EmoteData.StateCollection stateCollection, JsonObject node, EmoteData.EmoteBuilder builder){
         if(node.has("rotation")){
             JsonElement jsonRotation = node.get("rotation");
             if(jsonRotation.isJsonArray()){
-                readCollection(getRots(stateCollection), 0, Ease.LINEAR, jsonRotation.getAsJsonArray(), emoteData);
+                readCollection(getRots(stateCollection), 0, Ease.LINEAR, jsonRotation.getAsJsonArray(), builder);
             }
             else {
                 jsonRotation.getAsJsonObject().entrySet().forEach(entry -> {
                     if(entry.getKey().equals("vector")){
-                        readCollection(getRots(stateCollection), 0, Ease.LINEAR, entry.getValue().getAsJsonArray(), emoteData);
+                        readCollection(getRots(stateCollection), 0, Ease.LINEAR, entry.getValue().getAsJsonArray(), builder);
                     }
                     else {
                         int tick = (int) (Float.parseFloat(entry.getKey()) * 20);
                         if (entry.getValue().isJsonArray()) {
-                            readCollection(getRots(stateCollection), tick, Ease.CONSTANT, entry.getValue().getAsJsonArray(), emoteData);
+                            readCollection(getRots(stateCollection), tick, Ease.CONSTANT, entry.getValue().getAsJsonArray(), builder);
                         }
                         else {
                             Ease ease = Ease.LINEAR;
@@ -97,11 +97,11 @@ public class GeckoLibSerializer {
                             }
                             if (currentNode.has("easing")) ease = Easing.easeFromString(currentNode.get("easing").getAsString());
                             if (currentNode.has("pre"))
-                                readCollection(getRots(stateCollection), tick, ease, currentNode.get("pre").getAsJsonArray(), emoteData);
+                                readCollection(getRots(stateCollection), tick, ease, currentNode.get("pre").getAsJsonArray(), builder);
                             if (currentNode.has("vector"))
-                                readCollection(getRots(stateCollection), tick, ease, currentNode.get("vector").getAsJsonArray(), emoteData);
+                                readCollection(getRots(stateCollection), tick, ease, currentNode.get("vector").getAsJsonArray(), builder);
                             if (currentNode.has("post"))
-                                readCollection(getRots(stateCollection), tick, ease, currentNode.get("post").getAsJsonArray(), emoteData);
+                                readCollection(getRots(stateCollection), tick, ease, currentNode.get("post").getAsJsonArray(), builder);
                         }
                     }
                 });
@@ -110,16 +110,16 @@ public class GeckoLibSerializer {
         if(node.has("position")){
             JsonElement jsonPosition = node.get("position");
             if(jsonPosition.isJsonArray()){
-                readCollection(getOffs(stateCollection), 0, Ease.LINEAR, jsonPosition.getAsJsonArray(), emoteData);
+                readCollection(getOffs(stateCollection), 0, Ease.LINEAR, jsonPosition.getAsJsonArray(), builder);
             }
             else {
                 jsonPosition.getAsJsonObject().entrySet().forEach(entry -> {
                     if(entry.getKey().equals("vector")){
-                        readCollection(getOffs(stateCollection), 0, Ease.LINEAR, entry.getValue().getAsJsonArray(), emoteData);
+                        readCollection(getOffs(stateCollection), 0, Ease.LINEAR, entry.getValue().getAsJsonArray(), builder);
                     }else {
                         int tick = (int) (Float.parseFloat(entry.getKey()) * 20);
                         if (entry.getValue().isJsonArray()) {
-                            readCollection(getOffs(stateCollection), tick, Ease.LINEAR, entry.getValue().getAsJsonArray(), emoteData);
+                            readCollection(getOffs(stateCollection), tick, Ease.LINEAR, entry.getValue().getAsJsonArray(), builder);
                         }
                         else {
                             Ease ease = Ease.LINEAR;
@@ -130,11 +130,11 @@ public class GeckoLibSerializer {
                             }
                             if (currentNode.has("easing")) ease = Easing.easeFromString(currentNode.get("easing").getAsString());
                             if (currentNode.has("pre"))
-                                readCollection(getOffs(stateCollection), tick, ease, currentNode.get("pre").getAsJsonArray(), emoteData);
+                                readCollection(getOffs(stateCollection), tick, ease, currentNode.get("pre").getAsJsonArray(), builder);
                             if (currentNode.has("vector"))
-                                readCollection(getOffs(stateCollection), tick, ease, currentNode.get("vector").getAsJsonArray(), emoteData);
+                                readCollection(getOffs(stateCollection), tick, ease, currentNode.get("vector").getAsJsonArray(), builder);
                             if (currentNode.has("post"))
-                                readCollection(getOffs(stateCollection), tick, ease, currentNode.get("post").getAsJsonArray(), emoteData);
+                                readCollection(getOffs(stateCollection), tick, ease, currentNode.get("post").getAsJsonArray(), builder);
                         }
                     }
                 });
@@ -142,12 +142,12 @@ public class GeckoLibSerializer {
         }
     }
 
-    private static void readCollection(EmoteData.StateCollection.State[] a, int tick, Ease ease, JsonArray array, EmoteData emoteData){
+    private static void readCollection(EmoteData.StateCollection.State[] a, int tick, Ease ease, JsonArray array, EmoteData.EmoteBuilder builder){
         if(a.length != 3)throw new ArrayStoreException("wrong array length");
         for(int i = 0; i < 3; i++){
             float value = array.get(i).getAsFloat();
-            if(a[0] == emoteData.body.x) value = value / 16f;
-            else if(a[0] == emoteData.body.pitch) value = -value;
+            if(a[0] == builder.body.x) value = value / 16f;
+            else if(a[0] == builder.body.pitch) value = -value;
             value += a[i].defaultValue;
             a[i].addKeyFrame(tick, value, ease, 0, true);
         }
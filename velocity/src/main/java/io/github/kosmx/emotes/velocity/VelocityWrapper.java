@@ -8,6 +8,7 @@ import com.velocitypowered.api.plugin.Plugin;
 import com.velocitypowered.api.proxy.ProxyServer;
 import com.velocitypowered.api.proxy.messages.ChannelIdentifier;
 import com.velocitypowered.api.proxy.messages.MinecraftChannelIdentifier;
+import com.velocitypowered.api.scheduler.ScheduledTask;
 import io.github.kosmx.emotes.common.CommonData;
 import io.github.kosmx.emotes.executor.EmoteInstance;
 import io.github.kosmx.emotes.server.config.Serializer;
@@ -15,6 +16,7 @@ import io.github.kosmx.emotes.server.serializer.UniversalEmoteSerializer;
 import io.github.kosmx.emotes.velocity.executor.VelocityInstance;
 import io.github.kosmx.emotes.velocity.network.ServerSideEmotePlay;
 
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 @Plugin(
@@ -34,6 +36,7 @@ public class VelocityWrapper {
     private final Logger logger;
 
     private ServerSideEmotePlay networkPlay;
+    private ScheduledTask tickTask;
 
     @Inject
     public VelocityWrapper(ProxyServer server, Logger logger) {
@@ -55,6 +58,8 @@ public class VelocityWrapper {
         UniversalEmoteSerializer.loadEmotes();
         this.networkPlay = new ServerSideEmotePlay(server);
         server.getEventManager().register(this, networkPlay);
+        //The proxy doesn't have a main thread, the emote ends are processed on the scheduler
+        this.tickTask = server.getScheduler().buildTask(this, networkPlay::tick).repeat(50, TimeUnit.MILLISECONDS).schedule();
         logger.info("Loading Emotecraft as a velocity plugin...");
 
         logger.warning("Emotecraft is meant to be used on a server, not on a proxy.");
@@ -63,6 +68,8 @@ public class VelocityWrapper {
 
     public void shutdown() {
         server.getChannelRegistrar().unregister(EmotePacket);
+        if (tickTask != null) tickTask.cancel();
+        if (networkPlay != null) networkPlay.shutdown();
     }
 
     @Subscribe
@@ -4,17 +4,20 @@ import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.connection.DisconnectEvent;
 import com.velocitypowered.api.event.connection.PluginMessageEvent;
 import com.velocitypowered.api.event.connection.PostLoginEvent;
+import com.velocitypowered.api.event.player.ServerConnectedEvent;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
-import io.github.kosmx.emotes.common.network.EmotePacket;
 import io.github.kosmx.emotes.common.network.GeyserEmotePacket;
 import io.github.kosmx.emotes.common.network.objects.NetData;
 import io.github.kosmx.emotes.executor.EmoteInstance;
 import io.github.kosmx.emotes.server.network.AbstractServerEmotePlay;
+import io.github.kosmx.emotes.server.network.BackendMembershipIndex;
+import io.github.kosmx.emotes.server.network.BroadcastPacket;
 import io.github.kosmx.emotes.server.network.IServerNetworkInstance;
 import io.github.kosmx.emotes.velocity.VelocityWrapper;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.UUID;
 import java.util.logging.Level;
@@ -23,6 +26,7 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<Player> {
 
     private final ProxyServer server;
     private final HashMap<UUID, VelocityNetworkInstance> player_database = new HashMap<>();
+    private final BackendMembershipIndex<Player> backends = new BackendMembershipIndex<>();
 
     public ServerSideEmotePlay(ProxyServer server) {
         this.server = server;
@@ -76,8 +80,24 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<Player> {
         Player player = event.getPlayer();
 
         VelocityNetworkInstance instance = this.player_database.remove(player.getUniqueId());
-        if (instance != null)
+        if (instance != null) {
             instance.closeConnection();
+            playerDisconnected(instance);
+        }
+        backends.disconnect(player.getUniqueId());
+    }
+
+    @Subscribe
+    public void serverConnected(ServerConnectedEvent event) {
+        backends.connect(event.getPlayer().getUniqueId(), event.getPlayer(), event.getServer().getServerInfo().getName());
+    }
+
+    /**
+     * Players on the same backend server, or everyone if {@link io.github.kosmx.emotes.common.SerializableConfig#proxyGlobalRelay} is set
+     */
+    private Collection<Player> getRelayTargets(Player player) {
+        if (EmoteInstance.config.proxyGlobalRelay.get()) return server.getAllPlayers();
+        return backends.getPlayersOnSameBackend(player.getUniqueId());
     }
 
     @Override
@@ -102,7 +122,7 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<Player> {
 
     @Override
     protected void sendForEveryoneElse(GeyserEmotePacket packet, Player player) {
-        for (Player player1 : server.getAllPlayers()) {
+        for (Player player1 : getRelayTargets(player)) {
             if (player1 != player) {
                 try {
                     player1.sendPluginMessage(VelocityWrapper.GeyserPacket, packet.write());
@@ -115,10 +135,13 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<Player> {
 
     @Override
     protected void sendForEveryoneElse(NetData data, @Nullable GeyserEmotePacket emotePacket, Player player) {
-        for (Player player1 : server.getAllPlayers()) {
+        BroadcastPacket packet = prepareBroadcast(data);
+        for (Player player1 : getRelayTargets(player)) {
             if (player1 != player) {
                 try {
-                    player1.sendPluginMessage(VelocityWrapper.EmotePacket, new EmotePacket.Builder(data).build().write().array());
+                    for (byte[] frame : packet.getFrames(player_database.get(player1.getUniqueId()))) {
+                        player1.sendPluginMessage(VelocityWrapper.EmotePacket, frame);
+                    }
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -135,7 +158,9 @@ public class ServerSideEmotePlay extends AbstractServerEmotePlay<Player> {
     protected void sendForPlayer(NetData data, Player player, UUID target) {
         Player targetPlayer = getPlayerFromUUID(target);
         try {
-            targetPlayer.sendPluginMessage(VelocityWrapper.EmotePacket, new EmotePacket.Builder(data).build().write().array());
+            for (byte[] frame : new BroadcastPacket(data).getFrames(player_database.get(target))) {
+                targetPlayer.sendPluginMessage(VelocityWrapper.EmotePacket, frame);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
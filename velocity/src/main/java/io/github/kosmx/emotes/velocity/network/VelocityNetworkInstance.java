@@ -7,12 +7,10 @@ import io.github.kosmx.emotes.server.network.IServerNetworkInstance;
 import io.github.kosmx.emotes.velocity.VelocityWrapper;
 
 import javax.annotation.Nullable;
-import java.util.HashMap;
 import java.util.UUID;
 
 public class VelocityNetworkInstance extends AbstractNetworkInstance implements IServerNetworkInstance {
 
-    private HashMap<Byte, Byte> version = null;
     private final Player player;
 
     private final EmotePlayTracker emotePlayTracker = new EmotePlayTracker();
@@ -26,16 +24,6 @@ public class VelocityNetworkInstance extends AbstractNetworkInstance implements
         return this.emotePlayTracker;
     }
 
-    @Override
-    public HashMap<Byte, Byte> getVersions() {
-        return version;
-    }
-
-    @Override
-    public void setVersions(HashMap<Byte, Byte> map) {
-        this.version = map;
-    }
-
     @Override
     public void sendMessage(byte[] bytes, @Nullable UUID target) {
         player.sendPluginMessage(VelocityWrapper.EmotePacket, bytes);